@@ -0,0 +1,87 @@
+package io.dongtai.api;
+
+import java.io.*;
+
+/**
+ * 请求体缓存，保留原始字节，只在需要时按请求编码解码为文本
+ * <p>
+ * 最多缓存 maxSize 字节，超过部分不缓存，由第一个读取者直接从原始输入流读取
+ */
+public class RequestBodyCache {
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private final byte[] buffer;
+    private final int length;
+    /**
+     * 超过缓存上限时尚未读取的原始输入流，未超过时为 null
+     */
+    private InputStream remaining;
+    private String text;
+
+    private RequestBodyCache(byte[] buffer, int length, InputStream remaining) {
+        this.buffer = buffer;
+        this.length = length;
+        this.remaining = remaining;
+    }
+
+    /**
+     * @param in      原始输入流
+     * @param maxSize 最多缓存的字节数，小于 0 时不限制
+     */
+    public static RequestBodyCache read(InputStream in, int maxSize) throws IOException {
+        if (in == null) {
+            return new RequestBodyCache(new byte[0], 0, null);
+        }
+        int limit = maxSize < 0 ? Integer.MAX_VALUE : maxSize;
+        byte[] buffer = new byte[Math.min(limit, READ_BUFFER_SIZE)];
+        int length = 0;
+        while (length < limit) {
+            if (length == buffer.length) {
+                byte[] newBuffer = new byte[(int) Math.min((long) limit, buffer.length * 2L)];
+                System.arraycopy(buffer, 0, newBuffer, 0, length);
+                buffer = newBuffer;
+            }
+            int n = in.read(buffer, length, buffer.length - length);
+            if (n < 0) {
+                return new RequestBodyCache(buffer, length, null);
+            }
+            length += n;
+        }
+        return new RequestBodyCache(buffer, length, in);
+    }
+
+    /**
+     * @return 从头读取请求体的输入流；超过缓存上限时，只有第一次返回的流能读到上限之后的内容
+     */
+    public synchronized InputStream newInputStream() {
+        InputStream cached = new ByteArrayInputStream(this.buffer, 0, this.length);
+        if (this.remaining == null) {
+            return cached;
+        }
+        InputStream rest = this.remaining;
+        this.remaining = null;
+        return new SequenceInputStream(cached, rest);
+    }
+
+    /**
+     * @param charset 请求编码，为空时使用平台默认编码
+     * @return 已缓存部分解码后的文本
+     */
+    public synchronized String getText(String charset) {
+        if (this.text == null) {
+            String decoded = null;
+            if (charset != null && !charset.isEmpty()) {
+                try {
+                    decoded = new String(this.buffer, 0, this.length, charset);
+                } catch (UnsupportedEncodingException ignore) {
+                }
+            }
+            this.text = decoded != null ? decoded : new String(this.buffer, 0, this.length);
+        }
+        return this.text;
+    }
+
+    public int getLength() {
+        return this.length;
+    }
+}
@@ -12,18 +12,32 @@ import io.dongtai.api.servlet2.ServletResponseWrapper;
 public class ServletProxy {
 
     public static Object cloneRequest(Object request, boolean isJakarta) {
+        return cloneRequest(request, isJakarta, -1);
+    }
+
+    /**
+     * @param maxBodySize 最多缓存的请求体字节数，小于 0 时不限制
+     */
+    public static Object cloneRequest(Object request, boolean isJakarta, int maxBodySize) {
         if (isJakarta) {
-            return new JakartaRequestWrapper((jakarta.servlet.http.HttpServletRequest) request);
+            return new JakartaRequestWrapper((jakarta.servlet.http.HttpServletRequest) request, maxBodySize);
         } else {
-            return new ServletRequestWrapper((javax.servlet.http.HttpServletRequest) request);
+            return new ServletRequestWrapper((javax.servlet.http.HttpServletRequest) request, maxBodySize);
         }
     }
 
     public static Object cloneResponse(Object response, boolean isJakarta) {
+        return cloneResponse(response, isJakarta, -1);
+    }
+
+    /**
+     * @param responseLength 最多保留的响应体字节数，小于 0 时不限制，为 0 时不保留
+     */
+    public static Object cloneResponse(Object response, boolean isJakarta, int responseLength) {
         if (isJakarta) {
-            return new JakartaResponseWrapper((jakarta.servlet.http.HttpServletResponse) response);
+            return new JakartaResponseWrapper((jakarta.servlet.http.HttpServletResponse) response, responseLength);
         } else {
-            return new ServletResponseWrapper((javax.servlet.http.HttpServletResponse) response);
+            return new ServletResponseWrapper((javax.servlet.http.HttpServletResponse) response, responseLength);
         }
     }
 
@@ -1,13 +1,13 @@
 package io.dongtai.api.jakarta;
 
 import io.dongtai.api.DongTaiRequest;
+import io.dongtai.api.RequestBodyCache;
 import io.dongtai.log.DongTaiLog;
 import jakarta.servlet.ReadListener;
 import jakarta.servlet.ServletInputStream;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletRequestWrapper;
 import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -17,70 +17,36 @@ import java.util.Map;
 
 public class JakartaRequestWrapper extends HttpServletRequestWrapper implements DongTaiRequest {
 
-    private String body;
     private final boolean usingBody;
     private final boolean isPostMethod;
-    private boolean isCachedBody;
+    /**
+     * 最多缓存的请求体字节数，小于 0 时不限制
+     */
+    private final int maxBodySize;
+    private RequestBodyCache bodyCache;
 
     public JakartaRequestWrapper(HttpServletRequest request) {
+        this(request, -1);
+    }
+
+    public JakartaRequestWrapper(HttpServletRequest request, int maxBodySize) {
         super(request);
         this.isPostMethod = "POST".equals(getMethod());
         this.usingBody = isPostMethod && allowedContentType(request.getContentType());
+        this.maxBodySize = maxBodySize;
+    }
+
+    private synchronized RequestBodyCache getBodyCache() throws IOException {
+        if (bodyCache == null) {
+            bodyCache = RequestBodyCache.read(super.getInputStream(), maxBodySize);
+        }
+        return bodyCache;
     }
 
     @Override
     public ServletInputStream getInputStream() throws IOException {
         if (this.usingBody) {
-            if (!isCachedBody) {
-                InputStream inputStream = super.getInputStream();
-                StringBuilder stringBuilder = new StringBuilder();
-                BufferedReader bufferedReader = null;
-                try {
-                    if (inputStream != null) {
-                        String ce = getCharacterEncoding();
-                        if (null == ce || ce.isEmpty()) {
-                            bufferedReader = new BufferedReader(new InputStreamReader(inputStream));
-                        } else {
-                            bufferedReader = new BufferedReader(new InputStreamReader(inputStream, ce));
-                        }
-                        char[] charBuffer = new char[128];
-                        int bytesRead;
-                        while ((bytesRead = bufferedReader.read(charBuffer)) > 0) {
-                            stringBuilder.append(charBuffer, 0, bytesRead);
-                        }
-                    }
-                    assert bufferedReader != null;
-                    bufferedReader.close();
-                } catch (IOException e) {
-                    // fixme: add logger for solve exception
-                    DongTaiLog.error(e);
-                }
-                body = stringBuilder.toString();
-                isCachedBody = true;
-            }
-            final ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(body.getBytes());
-
-            return new ServletInputStream() {
-                @Override
-                public boolean isFinished() {
-                    return false;
-                }
-
-                @Override
-                public boolean isReady() {
-                    return false;
-                }
-
-                @Override
-                public void setReadListener(ReadListener readListener) {
-
-                }
-
-                @Override
-                public int read() {
-                    return byteArrayInputStream.read();
-                }
-            };
+            return new CachedServletInputStream(getBodyCache().newInputStream());
         }
         return super.getInputStream();
     }
@@ -88,7 +54,11 @@ public class JakartaRequestWrapper extends HttpServletRequestWrapper implements
     @Override
     public BufferedReader getReader() throws IOException {
         if (usingBody) {
-            return new BufferedReader(new InputStreamReader(this.getInputStream()));
+            String ce = getCharacterEncoding();
+            if (null == ce || ce.isEmpty()) {
+                return new BufferedReader(new InputStreamReader(this.getInputStream()));
+            }
+            return new BufferedReader(new InputStreamReader(this.getInputStream(), ce));
         } else {
             return super.getReader();
         }
@@ -140,13 +110,8 @@ public class JakartaRequestWrapper extends HttpServletRequestWrapper implements
                 return postBody.toString();
             }
 
-            if (isCachedBody) {
-                return body;
-            }
-
             if (usingBody) {
-                this.getInputStream();
-                return body;
+                return getBodyCache().getText(getCharacterEncoding());
             } else {
                 Enumeration<?> parameterNames = this.getParameterNames();
                 String param;
@@ -172,4 +137,52 @@ public class JakartaRequestWrapper extends HttpServletRequestWrapper implements
         return remoteAddr.equals("0:0:0:0:0:0:0:1") ? "127.0.0.1" : remoteAddr;
     }
 
+    /**
+     * 从缓存的请求体读取，支持批量读取
+     */
+    private static class CachedServletInputStream extends ServletInputStream {
+        private final InputStream in;
+        private boolean finished;
+
+        private CachedServletInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b < 0) {
+                finished = true;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n < 0) {
+                finished = true;
+            }
+            return n;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return in.available();
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+        }
+    }
 }
@@ -20,8 +20,18 @@ public class JakartaResponseWrapper extends HttpServletResponseWrapper implement
     private ServletOutputStream outputStream;
     private JakartaWrapperOutputStreamCopier copier;
 
+    /**
+     * 最多保留的响应体字节数，小于 0 时不限制
+     */
+    private final int responseLength;
+
     public JakartaResponseWrapper(HttpServletResponse response) {
+        this(response, -1);
+    }
+
+    public JakartaResponseWrapper(HttpServletResponse response, int responseLength) {
         super(response);
+        this.responseLength = responseLength;
         response.addHeader("DongTai", AgentConstant.VERSION_VALUE);
     }
 
@@ -29,7 +39,7 @@ public class JakartaResponseWrapper extends HttpServletResponseWrapper implement
     public ServletOutputStream getOutputStream() throws IOException {
         if (outputStream == null) {
             outputStream = getResponse().getOutputStream();
-            copier = new JakartaWrapperOutputStreamCopier(outputStream);
+            copier = new JakartaWrapperOutputStreamCopier(outputStream, responseLength);
         }
         return copier;
     }
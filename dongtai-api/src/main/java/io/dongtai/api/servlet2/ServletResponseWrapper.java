@@ -16,8 +16,18 @@ public class ServletResponseWrapper extends HttpServletResponseWrapper implement
     private PrintWriter writer = null;
     private ServletWrapperOutputStreamCopier copier = null;
 
+    /**
+     * 最多保留的响应体字节数，小于 0 时不限制
+     */
+    private final int responseLength;
+
     public ServletResponseWrapper(HttpServletResponse response) {
+        this(response, -1);
+    }
+
+    public ServletResponseWrapper(HttpServletResponse response, int responseLength) {
         super(response);
+        this.responseLength = responseLength;
         response.addHeader("DongTai", AgentConstant.VERSION_VALUE);
     }
 
@@ -32,7 +42,7 @@ public class ServletResponseWrapper extends HttpServletResponseWrapper implement
         }
         if (outputStream == null) {
             outputStream = getResponse().getOutputStream();
-            copier = new ServletWrapperOutputStreamCopier(outputStream);
+            copier = new ServletWrapperOutputStreamCopier(outputStream, responseLength);
         }
         return copier;
     }
@@ -43,7 +53,7 @@ public class ServletResponseWrapper extends HttpServletResponseWrapper implement
             DongTaiLog.error("getWriter() has already been called over once");
         }
         if (writer == null) {
-            copier = new ServletWrapperOutputStreamCopier(getResponse().getOutputStream());
+            copier = new ServletWrapperOutputStreamCopier(getResponse().getOutputStream(), responseLength);
             writer = new PrintWriter(new OutputStreamWriter(copier, getResponse().getCharacterEncoding()), true);
         }
         return writer;
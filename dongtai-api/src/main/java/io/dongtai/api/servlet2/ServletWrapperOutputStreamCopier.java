@@ -13,22 +13,46 @@ import javax.servlet.WriteListener;
  */
 public class ServletWrapperOutputStreamCopier extends ServletOutputStream {
 
+    private static final int INITIAL_COPY_SIZE = 1024;
+
     private final OutputStream out;
+    /**
+     * 最多保留的响应体字节数，小于 0 时不限制
+     */
+    private final int limit;
+    /**
+     * limit 为 0 时不保留响应体，为 null
+     */
     private final ByteArrayOutputStream copier;
 
-    ServletWrapperOutputStreamCopier(OutputStream out) {
+    ServletWrapperOutputStreamCopier(OutputStream out, int limit) {
         this.out = out;
-        this.copier = new ByteArrayOutputStream();
+        this.limit = limit;
+        this.copier = limit == 0 ? null
+                : new ByteArrayOutputStream(limit > 0 ? Math.min(limit, INITIAL_COPY_SIZE) : INITIAL_COPY_SIZE);
     }
 
     @Override
     public void write(int b) throws IOException {
         out.write(b);
-        copier.write(b);
+        if (copier != null && (limit < 0 || copier.size() < limit)) {
+            copier.write(b);
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        if (copier != null) {
+            int size = limit < 0 ? len : Math.min(len, limit - copier.size());
+            if (size > 0) {
+                copier.write(b, off, size);
+            }
+        }
     }
 
     byte[] getCopy() {
-        return copier.toByteArray();
+        return copier == null ? new byte[0] : copier.toByteArray();
     }
 
     @Override
@@ -0,0 +1,92 @@
+package io.dongtai.api;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.*;
+
+public class RequestBodyCacheTest {
+    @Test
+    public void testBinaryBody() throws IOException {
+        byte[] body = new byte[]{(byte) 0xff, 0, (byte) 0x80, 'a', (byte) 0xc3};
+        RequestBodyCache cache = RequestBodyCache.read(new ByteArrayInputStream(body), -1);
+        Assert.assertArrayEquals(body, readAll(cache.newInputStream()));
+        Assert.assertArrayEquals(body, readAll(cache.newInputStream()));
+        Assert.assertEquals(5, cache.getLength());
+    }
+
+    @Test
+    public void testText() throws IOException {
+        byte[] body = "{\"name\":\"测试\"}".getBytes("UTF-8");
+        RequestBodyCache cache = RequestBodyCache.read(new ByteArrayInputStream(body), 1024);
+        Assert.assertEquals("{\"name\":\"测试\"}", cache.getText("UTF-8"));
+    }
+
+    @Test
+    public void testMaxSize() throws IOException {
+        byte[] body = "0123456789".getBytes("UTF-8");
+        RequestBodyCache cache = RequestBodyCache.read(new ByteArrayInputStream(body), 4);
+        Assert.assertEquals("0123", cache.getText(null));
+        Assert.assertArrayEquals(body, readAll(cache.newInputStream()));
+        Assert.assertEquals("0123", new String(readAll(cache.newInputStream()), "UTF-8"));
+
+        cache = RequestBodyCache.read(new ByteArrayInputStream(body), 0);
+        Assert.assertEquals("", cache.getText(null));
+        Assert.assertArrayEquals(body, readAll(cache.newInputStream()));
+    }
+
+    @Test
+    public void testLargeJsonBody() throws IOException {
+        StringBuilder sb = new StringBuilder("[");
+        while (sb.length() < 8 * 1024 * 1024) {
+            sb.append("{\"id\":").append(sb.length()).append(",\"name\":\"dongtai\"},");
+        }
+        sb.append("{}]");
+        byte[] body = sb.toString().getBytes("UTF-8");
+
+        CountingInputStream source = new CountingInputStream(body);
+        RequestBodyCache cache = RequestBodyCache.read(source, -1);
+        Assert.assertEquals(body.length, cache.getLength());
+        Assert.assertArrayEquals(body, readAll(cache.newInputStream()));
+        Assert.assertArrayEquals(body, readAll(cache.newInputStream()));
+        // 请求体只从原始流读取一遍，重复读取都来自缓存
+        Assert.assertEquals(body.length, source.consumed);
+        Assert.assertEquals(-1, source.read());
+    }
+
+    private static class CountingInputStream extends ByteArrayInputStream {
+        private int consumed;
+
+        private CountingInputStream(byte[] buf) {
+            super(buf);
+        }
+
+        @Override
+        public synchronized int read() {
+            int b = super.read();
+            if (b != -1) {
+                consumed++;
+            }
+            return b;
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                consumed += n;
+            }
+            return n;
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer, 0, buffer.length)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,75 @@
+package io.dongtai.api.servlet2;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+public class ServletWrapperOutputStreamCopierTest {
+    @Test
+    public void testCopyLimit() throws IOException {
+        byte[] data = new byte[100];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ServletWrapperOutputStreamCopier copier = new ServletWrapperOutputStreamCopier(out, 10);
+        copier.write(data, 0, 8);
+        copier.write(data, 8, 92);
+        copier.write(1);
+        Assert.assertEquals(101, out.size());
+        Assert.assertArrayEquals(Arrays.copyOfRange(data, 0, 10), copier.getCopy());
+
+        out.reset();
+        copier = new ServletWrapperOutputStreamCopier(out, -1);
+        copier.write(data);
+        copier.write(1);
+        Assert.assertEquals(101, out.size());
+        Assert.assertEquals(101, copier.getCopy().length);
+
+        out.reset();
+        copier = new ServletWrapperOutputStreamCopier(out, 0);
+        copier.write(data);
+        Assert.assertEquals(100, out.size());
+        Assert.assertEquals(0, copier.getCopy().length);
+    }
+
+    @Test
+    public void testLargeResponse() throws IOException {
+        OutputStream discard = new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        };
+        byte[] chunk = new byte[8192];
+        int total = 50 * 1024 * 1024;
+        for (int limit : new int[]{-1, 4096, 0}) {
+            ServletWrapperOutputStreamCopier copier = new ServletWrapperOutputStreamCopier(discard, limit);
+            for (int written = 0; written < total; written += chunk.length) {
+                for (int i = 0; i < chunk.length; i++) {
+                    chunk[i] = contentAt(written + i);
+                }
+                copier.write(chunk, 0, chunk.length);
+            }
+            byte[] copy = copier.getCopy();
+            Assert.assertEquals(limit < 0 ? total : limit, copy.length);
+            for (int i = 0; i < copy.length; i++) {
+                if (copy[i] != contentAt(i)) {
+                    Assert.fail("limit " + limit + ", copy differs at " + i);
+                }
+            }
+        }
+    }
+
+    private static byte contentAt(int position) {
+        return (byte) (position % 251);
+    }
+}
@@ -29,5 +29,10 @@ public class PropertyConstant {
     public static final String PROPERTY_DUMP_CLASS_ENABLE = "iast.dump.class.enable";
     public static final String PROPERTY_SERVICE_HEARTBEAT_INTERVAL = "iast.service.heartbeat.interval";
     public static final String PROPERTY_RESPONSE_LENGTH = "dongtai.response.length";
+    public static final String PROPERTY_REQUEST_BODY_MAX_SIZE = "dongtai.request.body.max-size";
+    public static final String PROPERTY_SOURCE_TRACK_MAX_NODES = "dongtai.source.track.max-nodes";
+    public static final String PROPERTY_SOURCE_TRACK_MAX_BREADTH = "dongtai.source.track.max-breadth";
     public static final String PROPERTY_POLICY_PATH = "dongtai.policy.path";
+    public static final String PROPERTY_TRANSFORM_CACHE_DIR = "dongtai.transform.cache.dir";
+    public static final String PROPERTY_ORIGINAL_CLASS_MAX_SIZE = "dongtai.transform.original-class.max-size";
 }
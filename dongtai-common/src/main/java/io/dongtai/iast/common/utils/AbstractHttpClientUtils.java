@@ -4,6 +4,7 @@ import io.dongtai.iast.common.enums.HttpMethods;
 import io.dongtai.log.DongTaiLog;
 import org.apache.http.HttpHost;
 import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.entity.GzipCompressingEntity;
 import org.apache.http.client.methods.*;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
@@ -13,6 +14,7 @@ import org.apache.http.util.EntityUtils;
 
 import java.io.*;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 public class AbstractHttpClientUtils {
     protected static final String REQUEST_HEADER_TOKEN_KEY = "Authorization";
@@ -23,6 +25,14 @@ public class AbstractHttpClientUtils {
     protected static final String MEDIA_TYPE_TEXT_PLAIN = "text/plain";
     protected static final String MEDIA_TYPE_TEXT_HTML = "text/html";
 
+    private static final long POOLED_IDLE_TIMEOUT_SECONDS = 30L;
+    /**
+     * 长连接客户端的超时时间(毫秒)，避免服务端无响应时连接一直被占用、所有上报线程阻塞
+     */
+    private static final int POOLED_CONNECT_TIMEOUT = 10000;
+    private static final int POOLED_SOCKET_TIMEOUT = 60000;
+    private static final int POOLED_CONNECTION_REQUEST_TIMEOUT = 10000;
+
     protected interface HttpClientExceptionHandler {
         void run();
     }
@@ -52,6 +62,21 @@ public class AbstractHttpClientUtils {
 
     protected static StringBuilder sendRequest(CloseableHttpClient client, HttpMethods method, String url, String data,
                                                Map<String, String> headers, HttpClientExceptionHandler handler) {
+        return sendRequest(client, method, url, data, headers, handler, true);
+    }
+
+    /**
+     * 使用长连接客户端发送请求，请求结束后连接归还连接池，客户端不会被关闭
+     */
+    protected static StringBuilder sendPooledRequest(CloseableHttpClient client, HttpMethods method, String url,
+                                                     String data, Map<String, String> headers,
+                                                     HttpClientExceptionHandler handler) {
+        return sendRequest(client, method, url, data, headers, handler, false);
+    }
+
+    private static StringBuilder sendRequest(CloseableHttpClient client, HttpMethods method, String url, String data,
+                                             Map<String, String> headers, HttpClientExceptionHandler handler,
+                                             boolean closeClient) {
         StringBuilder response = new StringBuilder();
         CloseableHttpResponse resp = null;
 
@@ -87,7 +112,7 @@ public class AbstractHttpClientUtils {
                 }
             }
 
-            if (client != null) {
+            if (closeClient && client != null) {
                 try {
                     client.close();
                 } catch (IOException ignore) {
@@ -135,6 +160,34 @@ public class AbstractHttpClientUtils {
         return hcb.build();
     }
 
+    /**
+     * 创建带连接池的长连接客户端，由调用方缓存复用，空闲连接定期回收
+     *
+     * @param maxConnections 连接池大小，应与并发发送请求的线程数一致
+     */
+    public static CloseableHttpClient getPooledClient(int maxRetries, String proxyHost, int proxyPort,
+                                                      int maxConnections) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(POOLED_CONNECT_TIMEOUT)
+                .setSocketTimeout(POOLED_SOCKET_TIMEOUT)
+                .setConnectionRequestTimeout(POOLED_CONNECTION_REQUEST_TIMEOUT)
+                .build();
+        return getPooledClient(maxRetries, proxyHost, proxyPort, maxConnections, requestConfig);
+    }
+
+    public static CloseableHttpClient getPooledClient(int maxRetries, String proxyHost, int proxyPort,
+                                                      int maxConnections, RequestConfig requestConfig) {
+        // 所有请求都发往同一服务端，单个路由即可使用全部连接
+        int size = Math.max(maxConnections, 1);
+        HttpClientBuilder hcb = getClientBuilder(maxRetries, proxyHost, proxyPort)
+                .setMaxConnPerRoute(size)
+                .setMaxConnTotal(size)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(POOLED_IDLE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        return hcb.build();
+    }
+
     public static HttpClientBuilder getClientBuilder(int maxRetries, String proxyHost, int proxyPort) {
         HttpClientBuilder hcb = HttpClients.custom()
                 .setSSLHostnameVerifier(NoopHostnameVerifier.INSTANCE);
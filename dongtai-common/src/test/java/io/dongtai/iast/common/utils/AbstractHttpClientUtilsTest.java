@@ -1,5 +1,8 @@
 package io.dongtai.iast.common.utils;
 
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
 import io.dongtai.iast.common.enums.HttpMethods;
 import io.dongtai.log.DongTaiLog;
 import org.apache.http.client.config.RequestConfig;
@@ -9,9 +12,17 @@ import org.json.JSONObject;
 import org.junit.*;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintStream;
+import java.net.InetSocketAddress;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class AbstractHttpClientUtilsTest {
     private final PrintStream standardOut = System.out;
@@ -104,4 +115,91 @@ public class AbstractHttpClientUtilsTest {
         Assert.assertTrue("invalid token download error",
                 log.contains("[ERROR]") && log.contains("download failed") && log.contains("response code: 401"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testPooledClient() throws Exception {
+        final Semaphore hangReceived = new Semaphore(0);
+        final CountDownLatch hangRelease = new CountDownLatch(1);
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/ok", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                respond(exchange, "ok");
+            }
+        });
+        server.createContext("/hang", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                hangReceived.release();
+                try {
+                    hangRelease.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ignore) {
+                }
+                respond(exchange, "late");
+            }
+        });
+        server.start();
+        final String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        final AtomicInteger failures = new AtomicInteger();
+        final AbstractHttpClientUtils.HttpClientExceptionHandler handler =
+                new AbstractHttpClientUtils.HttpClientExceptionHandler() {
+                    @Override
+                    public void run() {
+                        failures.incrementAndGet();
+                    }
+                };
+
+        try {
+            // 服务端无响应时按 socket 超时失败，连接归还连接池，后续请求不受影响
+            CloseableHttpClient client = AbstractHttpClientUtils.getPooledClient(0, "", -1, 1,
+                    RequestConfig.custom().setConnectTimeout(1000).setSocketTimeout(300)
+                            .setConnectionRequestTimeout(1000).build());
+            Assert.assertEquals("ok", AbstractHttpClientUtils.sendPooledRequest(client, HttpMethods.GET,
+                    baseUrl + "/ok", null, null, handler).toString());
+            Assert.assertEquals("", AbstractHttpClientUtils.sendPooledRequest(client, HttpMethods.GET,
+                    baseUrl + "/hang", null, null, handler).toString());
+            Assert.assertEquals(1, failures.get());
+            Assert.assertEquals("ok", AbstractHttpClientUtils.sendPooledRequest(client, HttpMethods.GET,
+                    baseUrl + "/ok", null, null, handler).toString());
+            client.close();
+
+            // 连接池耗尽时按获取连接超时失败，而不是一直等待
+            final CloseableHttpClient busyClient = AbstractHttpClientUtils.getPooledClient(0, "", -1, 1,
+                    RequestConfig.custom().setConnectTimeout(1000).setSocketTimeout(5000)
+                            .setConnectionRequestTimeout(200).build());
+            Thread holder = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    AbstractHttpClientUtils.sendPooledRequest(busyClient, HttpMethods.GET,
+                            baseUrl + "/hang", null, null, null);
+                }
+            });
+            // 丢弃第一段 /hang 请求的记录，确认占用连接的请求已到达服务端
+            hangReceived.drainPermits();
+            holder.start();
+            Assert.assertTrue(hangReceived.tryAcquire(5, TimeUnit.SECONDS));
+            failures.set(0);
+            Assert.assertEquals("", AbstractHttpClientUtils.sendPooledRequest(busyClient, HttpMethods.GET,
+                    baseUrl + "/ok", null, null, handler).toString());
+            Assert.assertEquals(1, failures.get());
+
+            hangRelease.countDown();
+            holder.join(5000);
+            Assert.assertEquals("ok", AbstractHttpClientUtils.sendPooledRequest(busyClient, HttpMethods.GET,
+                    baseUrl + "/ok", null, null, handler).toString());
+            busyClient.close();
+        } finally {
+            hangRelease.countDown();
+            server.stop(0);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes("UTF-8");
+        exchange.sendResponseHeaders(200, bytes.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(bytes);
+        out.close();
+    }
+}
@@ -8,7 +8,9 @@ import io.dongtai.iast.core.init.IEngine;
 import io.dongtai.iast.core.init.impl.ConfigEngine;
 import io.dongtai.iast.core.init.impl.TransformEngine;
 import io.dongtai.iast.core.service.*;
+import io.dongtai.iast.core.utils.HttpClientUtils;
 import io.dongtai.iast.core.utils.PropertyUtils;
+import io.dongtai.iast.core.utils.threadlocal.RequestState;
 import io.dongtai.log.DongTaiLog;
 import org.apache.commons.lang3.time.StopWatch;
 
@@ -100,11 +102,13 @@ public class AgentEngine {
             assert agentEngine != null;
             agentEngine.destroy();
             ThreadPools.destroy();
+            HttpClientUtils.closeClient();
             ServiceFactory.getInstance().destroy();
             SpyDispatcherHandler.destroy();
             System.clearProperty("DongTai.IAST.Status");
             DongTaiLog.info("Engine uninstallation succeeded");
             EngineManager.cleanThreadState();
+            RequestState.remove();
         } catch (Exception e) {
             DongTaiLog.error("engine destroy failed", e);
         }
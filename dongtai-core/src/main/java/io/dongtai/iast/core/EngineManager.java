@@ -5,8 +5,6 @@ import io.dongtai.iast.core.bytecode.enhance.plugin.fallback.FallbackManager;
 import io.dongtai.iast.core.bytecode.enhance.plugin.fallback.FallbackSwitch;
 import io.dongtai.iast.core.handler.context.ContextManager;
 import io.dongtai.iast.core.handler.hookpoint.IastServer;
-import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
-import io.dongtai.iast.core.handler.hookpoint.vulscan.taintrange.TaintRanges;
 import io.dongtai.iast.core.service.ServerAddressReport;
 import io.dongtai.iast.core.service.ServiceFactory;
 import io.dongtai.iast.core.utils.PropertyUtils;
@@ -42,8 +40,6 @@ public class EngineManager {
     private static final AtomicInteger reqCounts = new AtomicInteger(0);
     public static int enableDongTai = 0;
 
-    public static final BooleanThreadLocal ENTER_REPLAY_ENTRYPOINT = new BooleanThreadLocal(false);
-
     /**
      * hook点是否降级
      */
@@ -100,17 +96,10 @@ public class EngineManager {
     }
 
     /**
-     * 清除当前线程的状态，避免线程重用导致的ThreadLocal产生内存泄漏的问题
+     * 清除当前线程的状态，请求级状态原地重置以便线程复用
      */
     public static void cleanThreadState() {
-        EngineManager.REQUEST_CONTEXT.remove();
-        EngineManager.TRACK_MAP.remove();
-        EngineManager.TAINT_HASH_CODES.remove();
-        EngineManager.TAINT_RANGES_POOL.remove();
-        EngineManager.ENTER_REPLAY_ENTRYPOINT.remove();
-        FallbackSwitch.clearHeavyHookFallback();
-        EngineManager.getFallbackManager().getHookRateLimiter().remove();
-        ContextManager.getCONTEXT().remove();
+        RequestState.get().reset();
         ScopeManager.SCOPE_TRACKER.remove();
     }
 
@@ -201,9 +190,9 @@ public class EngineManager {
             headers.put("dt-spandid", spanId);
         }
         REQUEST_CONTEXT.set(requestMeta);
-        TRACK_MAP.set(new HashMap<Integer, MethodEvent>(1024));
-        TAINT_HASH_CODES.set(new HashSet<Integer>());
-        TAINT_RANGES_POOL.set(new HashMap<Integer, TaintRanges>());
+        TRACK_MAP.enable();
+        TAINT_HASH_CODES.enable();
+        TAINT_RANGES_POOL.enable();
         ScopeManager.SCOPE_TRACKER.getHttpEntryScope().enter();
     }
 
@@ -260,8 +249,8 @@ public class EngineManager {
             REQUEST_CONTEXT.set(requestMeta);
         }
 
-        TRACK_MAP.set(new HashMap<Integer, MethodEvent>(1024));
-        TAINT_HASH_CODES.set(new HashSet<Integer>());
+        TRACK_MAP.enable();
+        TAINT_HASH_CODES.enable();
     }
 
     public static boolean isEnterEntry(String currentFramework) {
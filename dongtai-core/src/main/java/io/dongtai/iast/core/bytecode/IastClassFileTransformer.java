@@ -1,14 +1,18 @@
 package io.dongtai.iast.core.bytecode;
 
+import io.dongtai.iast.common.constants.AgentConstant;
 import io.dongtai.iast.common.scope.ScopeManager;
 import io.dongtai.iast.core.EngineManager;
 import io.dongtai.iast.core.bytecode.enhance.ClassContext;
+import io.dongtai.iast.core.bytecode.enhance.ClassHierarchyCache;
 import io.dongtai.iast.core.bytecode.enhance.IastClassDiagram;
 import io.dongtai.iast.core.bytecode.enhance.plugin.AbstractClassVisitor;
 import io.dongtai.iast.core.bytecode.enhance.plugin.PluginRegister;
+import io.dongtai.iast.core.bytecode.enhance.plugin.hardcoded.DispatchHardcodedPlugin;
 import io.dongtai.iast.core.bytecode.sca.ScaScanner;
 import io.dongtai.iast.core.handler.hookpoint.SpyDispatcherImpl;
 import io.dongtai.iast.core.handler.hookpoint.models.IastHookRuleModel;
+import io.dongtai.iast.core.handler.hookpoint.models.policy.Policy;
 import io.dongtai.iast.core.handler.hookpoint.models.policy.PolicyManager;
 import io.dongtai.iast.core.utils.AsmUtils;
 import io.dongtai.iast.core.utils.PropertyUtils;
@@ -22,10 +26,11 @@ import java.io.IOException;
 import java.lang.dongtai.SpyDispatcherHandler;
 import java.lang.instrument.ClassFileTransformer;
 import java.lang.instrument.Instrumentation;
-import java.net.URL;
 import java.security.CodeSource;
 import java.security.ProtectionDomain;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.apache.commons.io.FileUtils.writeByteArrayToFile;
 import static org.objectweb.asm.ClassWriter.*;
@@ -37,7 +42,17 @@ public class IastClassFileTransformer implements ClassFileTransformer {
 
     private final IastClassDiagram classDiagram;
 
-    private int transformCount = 0;
+    /**
+     * 批量重转换时每批的类数量，单批失败时逐个重试，避免一个类拖累整批，见 {@link ReTransformBatch}
+     */
+    private static final int RETRANSFORM_BATCH_SIZE = 64;
+
+    /**
+     * 并行重转换的最大线程数
+     */
+    private static final int MAX_RETRANSFORM_THREADS = 8;
+
+    private final AtomicInteger transformCount = new AtomicInteger();
     private final boolean isDumpClass;
     private final ConfigMatcher configMatcher;
     private final Instrumentation inst;
@@ -46,7 +61,8 @@ public class IastClassFileTransformer implements ClassFileTransformer {
     private static IastClassFileTransformer INSTANCE;
     private final IastHookRuleModel hookRuleModel;
     private final PolicyManager policyManager;
-    private final static HashMap<Object, byte[]> transformMap = new HashMap<Object, byte[]>();
+    private final TransformCache transformCache;
+    private final OriginalClassStore originalClassStore;
 
     /**
      * Gets a singleton object
@@ -72,12 +88,15 @@ public class IastClassFileTransformer implements ClassFileTransformer {
         this.configMatcher.setInst(inst);
         this.hookRuleModel = IastHookRuleModel.getInstance();
         this.policyManager = policyManager;
+        this.originalClassStore = new OriginalClassStore(this.properties.getOriginalClassMaxSize());
+        this.transformCache = TransformCache.open(this.properties.getTransformCacheDir(),
+                AgentConstant.VERSION_VALUE, policyManager.getFingerprint());
 
         SpyDispatcherHandler.setDispatcher(new SpyDispatcherImpl());
     }
 
     public int getTransformCount() {
-        return transformCount;
+        return transformCount.get();
     }
 
     /**
@@ -129,9 +148,8 @@ public class IastClassFileTransformer implements ClassFileTransformer {
                 if (codeSource == null) {
                     return null;
                 }
-                URL location = codeSource.getLocation();
-                if (location != null && !internalClassName.startsWith("sun/") && !location.getFile().isEmpty()) {
-                    ScaScanner.scanForSCA(location.getFile(), internalClassName);
+                if (!internalClassName.startsWith("sun/")) {
+                    ScaScanner.scanForSCA(codeSource);
                 }
             }
 
@@ -139,19 +157,30 @@ public class IastClassFileTransformer implements ClassFileTransformer {
                 byte[] sourceCodeBak = new byte[srcByteCodeArray.length];
                 System.arraycopy(srcByteCodeArray, 0, sourceCodeBak, 0, srcByteCodeArray.length);
                 final ClassReader cr = new ClassReader(sourceCodeBak);
+                ClassHierarchyCache.getInstance().put(loader, cr.getClassName(), cr.getSuperName(),
+                        cr.getInterfaces(), cr.getAccess());
 
                 ClassContext classContext = new ClassContext(cr, loader);
                 final String className = classContext.getClassName();
 
-                Set<String> ancestors = classDiagram.getDiagram(className);
-                if (ancestors == null) {
-                    classDiagram.setLoader(loader);
-                    classDiagram.saveAncestors(className, classContext.getSuperClassName(), classContext.getInterfaces());
-                    ancestors = classDiagram.getAncestors(className, classContext.getSuperClassName(),
-                            classContext.getInterfaces());
-                }
+                Set<String> ancestors = classDiagram.getAncestors(loader, className,
+                        classContext.getSuperClassName(), classContext.getInterfaces());
                 classContext.setAncestors(ancestors);
 
+                byte[] cacheKey = null;
+                if (transformCache != null) {
+                    cacheKey = TransformCache.key(srcByteCodeArray, classContext.isBootstrapClassLoader(), ancestors);
+                    byte[] cached = cacheKey == null ? null : transformCache.get(cacheKey);
+                    if (cached != null) {
+                        scanHardcoded(cr, classContext);
+                        if (cached == TransformCache.UNCHANGED) {
+                            return null;
+                        }
+                        saveOriginalClass(loader, className, srcByteCodeArray, classBeingRedefined != null);
+                        return dumpClassIfNecessary(cr.getClassName(), cached, srcByteCodeArray);
+                    }
+                }
+
                 final ClassWriter cw = createClassWriter(loader, cr);
                 ClassVisitor cv = plugins.initial(cw, classContext, policyManager);
 
@@ -159,27 +188,67 @@ public class IastClassFileTransformer implements ClassFileTransformer {
                     cr.accept(cv, ClassReader.EXPAND_FRAMES);
                     AbstractClassVisitor dumpClassVisitor = (AbstractClassVisitor) cv;
                     if (dumpClassVisitor.hasTransformed()) {
-                        if (null == classBeingRedefined) {
-                            transformMap.put(className, srcByteCodeArray);
-                        } else {
-                            transformMap.put(classBeingRedefined, srcByteCodeArray);
+                        byte[] transformed = cw.toByteArray();
+                        if (transformCache != null) {
+                            transformCache.put(cacheKey, transformed);
                         }
-                        transformCount++;
-                        return dumpClassIfNecessary(cr.getClassName(), cw.toByteArray(), srcByteCodeArray);
+                        saveOriginalClass(loader, className, srcByteCodeArray, classBeingRedefined != null);
+                        return dumpClassIfNecessary(cr.getClassName(), transformed, srcByteCodeArray);
                     }
                 }
+                if (transformCache != null && policyManager.getPolicy() != null) {
+                    transformCache.put(cacheKey, null);
+                }
                 sourceCodeBak = null;
             }
         } catch (Throwable throwable) {
             DongTaiLog.warn("transform class " + internalClassName + " failed", throwable);
         } finally {
-            classDiagram.setLoader(null);
             ScopeManager.SCOPE_TRACKER.getPolicyScope().leaveAgent();
         }
 
         return null;
     }
 
+    /**
+     * 重转换时推迟到 retransformClasses 成功后再记录，失败重试的类不会重复保存和计数
+     */
+    private void saveOriginalClass(final ClassLoader loader, final String className, final byte[] srcByteCodeArray,
+                                   boolean retransform) {
+        if (retransform && ReTransformBatch.isInBatch()) {
+            ReTransformBatch.defer(new Runnable() {
+                @Override
+                public void run() {
+                    saveOriginalClass(loader, className, srcByteCodeArray, false);
+                }
+            });
+            return;
+        }
+        originalClassStore.save(loader, className, srcByteCodeArray);
+        transformCount.incrementAndGet();
+    }
+
+    /**
+     * 命中缓存时跳过了插件，单独扫描字段中的硬编码，保持与完整增强时相同的上报
+     */
+    private void scanHardcoded(ClassReader cr, ClassContext classContext) {
+        Policy policy = policyManager.getPolicy();
+        if (policy == null || classContext.isBootstrapClassLoader()) {
+            return;
+        }
+        cr.accept(new DispatchHardcodedPlugin().dispatch(null, classContext, policy),
+                ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
+    }
+
+    /**
+     * 关闭增强字节码缓存
+     */
+    public void closeTransformCache() {
+        if (transformCache != null) {
+            transformCache.close();
+        }
+    }
+
     /**
      * 创建ClassWriter for asm
      *
@@ -262,7 +331,7 @@ public class IastClassFileTransformer implements ClassFileTransformer {
                     continue;
                 }
                 String className = clazz.getName();
-                Set<String> diagram = classDiagram.getDiagram(className);
+                Set<String> diagram = classDiagram.getDiagram(clazz.getClassLoader(), className);
                 if (diagram == null) {
                     diagram = new HashSet<String>();
                     Queue<Class<?>> classQueue = new LinkedList<Class<?>>();
@@ -279,7 +348,7 @@ public class IastClassFileTransformer implements ClassFileTransformer {
                         Class<?>[] interfaces = currentClazz.getInterfaces();
                         Collections.addAll(classQueue, interfaces);
                     }
-                    classDiagram.setDiagram(className, diagram);
+                    diagram = classDiagram.setDiagram(clazz.getClassLoader(), className, diagram);
                 }
                 for (String clazzName : diagram) {
                     if (this.policyManager.getPolicy() != null && this.policyManager.getPolicy().isMatchClass(clazzName)) {
@@ -304,28 +373,70 @@ public class IastClassFileTransformer implements ClassFileTransformer {
 
     /**
      * 执行字节码转换
+     * <p>
+     * 待转换的类按批调用 retransformClasses，多个批次在有限线程池中并行执行：transform 回调(ASM 解析与重写)
+     * 在调用线程中完成，可以并行；JVM 替换类定义的阶段仍由虚拟机串行处理
      */
     public void reTransform() {
         StopWatch stopWatch = new StopWatch();
         stopWatch.start();
         Class<?>[] waitingReTransformClasses = findForRetransform();
-        DongTaiLog.debug("find {} classes to reTransform, time: {}", waitingReTransformClasses.length, stopWatch.getTime());
-        // fixme: Performance Loss Calculation, 6752 * 50ms = 337600ms, 337s, 6-7min
-        for (Class<?> clazz : waitingReTransformClasses) {
-            try {
-                inst.retransformClasses(clazz);
-            } catch (InternalError ignored) {
-            } catch (Exception e) {
-                DongTaiLog.error("transform class failure, class: {}, reason: {}", clazz.getCanonicalName(), e.getMessage());
-                DongTaiLog.error(e);
+        long findTime = stopWatch.getTime();
+        DongTaiLog.debug("find {} classes to reTransform, time: {}", waitingReTransformClasses.length, findTime);
+
+        final List<Class<?>[]> batches = new ArrayList<Class<?>[]>();
+        for (int i = 0; i < waitingReTransformClasses.length; i += RETRANSFORM_BATCH_SIZE) {
+            int end = Math.min(i + RETRANSFORM_BATCH_SIZE, waitingReTransformClasses.length);
+            batches.add(Arrays.copyOfRange(waitingReTransformClasses, i, end));
+        }
+
+        int threads = Math.max(1, Math.min(batches.size(),
+                Math.min(Runtime.getRuntime().availableProcessors(), MAX_RETRANSFORM_THREADS)));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger index = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, AgentConstant.THREAD_NAME_PREFIX + "ReTransform-" + index.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        final AtomicInteger finishedClasses = new AtomicInteger();
+        final int totalClasses = waitingReTransformClasses.length;
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>(batches.size());
+            for (final Class<?>[] batch : batches) {
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        ReTransformBatch.reTransform(inst, batch);
+                        DongTaiLog.debug("reTransform progress: {}/{}",
+                                finishedClasses.addAndGet(batch.length), totalClasses);
+                    }
+                }));
             }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    DongTaiLog.error("reTransform batch failed", e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            DongTaiLog.warn("reTransform interrupted, finished {}/{}", finishedClasses.get(), totalClasses);
+        } finally {
+            executor.shutdownNow();
         }
         stopWatch.stop();
-        DongTaiLog.debug("finish reTransform, class count: {}, time: {}", getTransformCount(), stopWatch.getTime());
+        DongTaiLog.debug("finish reTransform, class count: {}, batches: {}, threads: {}, find time: {}, "
+                        + "reTransform time: {}, total time: {}", getTransformCount(), batches.size(), threads,
+                findTime, stopWatch.getTime() - findTime, stopWatch.getTime());
     }
 
-    public static HashMap<Object, byte[]> getTransformMap() {
-        return transformMap;
+    public OriginalClassStore getOriginalClassStore() {
+        return originalClassStore;
     }
 }
 
@@ -0,0 +1,226 @@
+package io.dongtai.iast.core.bytecode;
+
+import io.dongtai.iast.core.utils.PropertyUtils;
+import io.dongtai.log.DongTaiLog;
+import org.apache.commons.io.IOUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.instrument.ClassDefinition;
+import java.lang.instrument.Instrumentation;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 保存被增强类的原始字节码，用于卸载引擎时还原
+ * <p>
+ * 字节码依次追加到临时文件的内存映射块中，不占用应用的堆及 -XX:MaxDirectMemorySize 额度。按类加载器弱引用分组，
+ * 应用被卸载后其条目随类加载器一起回收，映射块在其中的条目全部回收后释放；总量超过上限时不再保存，
+ * 对应的类卸载时无法还原。线程安全
+ */
+public class OriginalClassStore {
+    /**
+     * 每个映射块的大小，超过该大小的类单独映射
+     */
+    private static final int SLAB_SIZE = 4 * 1024 * 1024;
+    private static final String SLAB_FILE_PREFIX = "dongtai-original-class-";
+
+    private final long maxBytes;
+    private final int slabSize;
+    /**
+     * 当前追加写入的映射块，position 为下一个类的起始位置
+     */
+    private ByteBuffer slab;
+    private final Map<ClassLoader, Map<String, ByteBuffer>> store =
+            new WeakHashMap<ClassLoader, Map<String, ByteBuffer>>();
+    private long usedBytes;
+    private boolean overflowLogged;
+    private boolean allocationFailureLogged;
+
+    public OriginalClassStore(long maxBytes) {
+        this(maxBytes, SLAB_SIZE);
+    }
+
+    OriginalClassStore(long maxBytes, int slabSize) {
+        this.maxBytes = maxBytes;
+        this.slabSize = (int) Math.max(1, Math.min(slabSize, maxBytes));
+    }
+
+    /**
+     * 保存原始字节码
+     *
+     * @return 超过内存上限或映射临时文件失败未保存时返回 false
+     */
+    public boolean save(ClassLoader loader, String className, byte[] bytes) {
+        synchronized (this) {
+            Map<String, ByteBuffer> classes = this.store.get(loader);
+            ByteBuffer previous = classes == null ? null : classes.get(className);
+            long required = bytes.length - (previous == null ? 0 : previous.capacity());
+            if (this.usedBytes + required > this.maxBytes) {
+                // 类加载器被回收后其字节码不再计入，重新统计后再判断
+                this.usedBytes = computeUsedBytes();
+                if (this.usedBytes + required > this.maxBytes) {
+                    if (!this.overflowLogged) {
+                        this.overflowLogged = true;
+                        DongTaiLog.warn("original class store is full ({} bytes), classes transformed later can not "
+                                + "be restored", this.maxBytes);
+                    }
+                    return false;
+                }
+            }
+
+            ByteBuffer buffer;
+            try {
+                buffer = allocate(bytes.length);
+            } catch (IOException e) {
+                // 临时文件无法创建或映射时放弃保存该类，不能影响应用的类加载
+                logAllocationFailure(e);
+                return false;
+            } catch (OutOfMemoryError e) {
+                logAllocationFailure(e);
+                return false;
+            }
+            buffer.put(bytes);
+            if (classes == null) {
+                classes = new ConcurrentHashMap<String, ByteBuffer>();
+                this.store.put(loader, classes);
+            }
+            classes.put(className, buffer);
+            this.usedBytes += required;
+            return true;
+        }
+    }
+
+    public byte[] get(ClassLoader loader, String className) {
+        ByteBuffer buffer;
+        synchronized (this) {
+            Map<String, ByteBuffer> classes = this.store.get(loader);
+            buffer = classes == null ? null : classes.get(className);
+        }
+        if (buffer == null) {
+            return null;
+        }
+        byte[] bytes = new byte[buffer.capacity()];
+        ByteBuffer source = buffer.duplicate();
+        source.clear();
+        source.get(bytes);
+        return bytes;
+    }
+
+    public synchronized int size() {
+        int size = 0;
+        for (Map<String, ByteBuffer> classes : this.store.values()) {
+            size += classes.size();
+        }
+        return size;
+    }
+
+    public synchronized long getUsedBytes() {
+        this.usedBytes = computeUsedBytes();
+        return this.usedBytes;
+    }
+
+    public synchronized void clear() {
+        this.store.clear();
+        this.slab = null;
+        this.usedBytes = 0;
+        this.overflowLogged = false;
+        this.allocationFailureLogged = false;
+    }
+
+    /**
+     * 将已加载且保存过原始字节码的类还原，完成后清空存储
+     *
+     * @return 还原的类数量
+     */
+    public int restore(Instrumentation inst) {
+        List<ClassDefinition> definitions = new ArrayList<ClassDefinition>();
+        for (Class<?> clazz : inst.getAllLoadedClasses()) {
+            if (clazz == null) {
+                continue;
+            }
+            try {
+                byte[] bytes = get(clazz.getClassLoader(), clazz.getName());
+                if (bytes != null) {
+                    definitions.add(new ClassDefinition(clazz, bytes));
+                }
+            } catch (Throwable e) {
+                DongTaiLog.debug(e);
+            }
+        }
+
+        int restored = 0;
+        try {
+            inst.redefineClasses(definitions.toArray(new ClassDefinition[0]));
+            restored = definitions.size();
+        } catch (Throwable batchError) {
+            for (ClassDefinition definition : definitions) {
+                try {
+                    inst.redefineClasses(definition);
+                    restored++;
+                } catch (Exception e) {
+                    DongTaiLog.error(e);
+                }
+            }
+        }
+        clear();
+        return restored;
+    }
+
+    /**
+     * 从当前映射块中切出指定大小的区域，剩余空间不足时映射新的块，旧块中的区域仍由各自的条目引用
+     */
+    ByteBuffer allocate(int capacity) throws IOException {
+        if (capacity >= this.slabSize) {
+            return mapSlab(capacity);
+        }
+        if (this.slab == null || this.slab.remaining() < capacity) {
+            this.slab = mapSlab(this.slabSize);
+        }
+        ByteBuffer region = this.slab.slice();
+        region.limit(capacity);
+        this.slab.position(this.slab.position() + capacity);
+        return region.slice();
+    }
+
+    /**
+     * 映射一个新的临时文件；映射建立后文件即可删除，映射在 buffer 被回收时解除
+     */
+    ByteBuffer mapSlab(int size) throws IOException {
+        String tmpDir = PropertyUtils.getTmpDir();
+        File dir = tmpDir == null ? null : new File(tmpDir);
+        File file = File.createTempFile(SLAB_FILE_PREFIX, ".bin", dir != null && dir.isDirectory() ? dir : null);
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "rw");
+            raf.setLength(size);
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } finally {
+            IOUtils.closeQuietly(raf);
+            if (!file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+
+    private void logAllocationFailure(Throwable e) {
+        if (!this.allocationFailureLogged) {
+            this.allocationFailureLogged = true;
+            DongTaiLog.warn("original class store can not map temporary file, classes transformed later "
+                    + "may not be restored, reason: {}", e.getMessage());
+        }
+    }
+
+    private long computeUsedBytes() {
+        long used = 0;
+        for (Map<String, ByteBuffer> classes : this.store.values()) {
+            for (ByteBuffer buffer : classes.values()) {
+                used += buffer.capacity();
+            }
+        }
+        return used;
+    }
+}
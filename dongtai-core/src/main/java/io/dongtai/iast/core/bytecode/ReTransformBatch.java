@@ -0,0 +1,69 @@
+package io.dongtai.iast.core.bytecode;
+
+import io.dongtai.log.DongTaiLog;
+
+import java.lang.instrument.Instrumentation;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按批重转换类，单批失败时逐个重试
+ * <p>
+ * retransformClasses 对一批类是全有或全无的：失败时批内已经过 transform 回调的类也不会被替换，逐个重试时会再次回调。
+ * 因此重转换期间 transform 产生的记录(原始字节码、转换计数)先暂存在当前线程，调用成功后才生效
+ */
+class ReTransformBatch {
+    private static final ThreadLocal<List<Runnable>> PENDING = new ThreadLocal<List<Runnable>>();
+
+    /**
+     * @return 当前线程是否正在执行 retransformClasses
+     */
+    static boolean isInBatch() {
+        return PENDING.get() != null;
+    }
+
+    /**
+     * 在 retransformClasses 成功后执行；当前线程不在重转换中时立即执行
+     */
+    static void defer(Runnable action) {
+        List<Runnable> pending = PENDING.get();
+        if (pending == null) {
+            action.run();
+        } else {
+            pending.add(action);
+        }
+    }
+
+    static void reTransform(Instrumentation inst, Class<?>[] batch) {
+        try {
+            retransform(inst, batch);
+            return;
+        } catch (Throwable e) {
+            DongTaiLog.debug("reTransform batch of {} classes failed, retry one by one, reason: {}",
+                    batch.length, e.getMessage());
+        }
+
+        for (Class<?> clazz : batch) {
+            try {
+                retransform(inst, clazz);
+            } catch (InternalError ignored) {
+            } catch (Exception e) {
+                DongTaiLog.error("transform class failure, class: {}, reason: {}", clazz.getCanonicalName(), e.getMessage());
+                DongTaiLog.error(e);
+            }
+        }
+    }
+
+    private static void retransform(Instrumentation inst, Class<?>... classes) throws Exception {
+        List<Runnable> pending = new ArrayList<Runnable>();
+        PENDING.set(pending);
+        try {
+            inst.retransformClasses(classes);
+        } finally {
+            PENDING.remove();
+        }
+        for (Runnable action : pending) {
+            action.run();
+        }
+    }
+}
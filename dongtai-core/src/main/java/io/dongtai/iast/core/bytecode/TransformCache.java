@@ -0,0 +1,242 @@
+package io.dongtai.iast.core.bytecode;
+
+import io.dongtai.log.DongTaiLog;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * 增强后字节码的磁盘缓存，应用及策略未变化时，重启后直接使用上次的增强结果，跳过 ASM 重写与帧计算
+ * <p>
+ * 每个 (agent 版本, 策略指纹) 对应一个只追加写入的数据文件，启动时以只读方式映射并建立索引；
+ * 条目以原始字节码、类族及是否由启动类加载器加载计算的 SHA-256 标识。
+ * 数据文件被其他进程占用时只读取不写入
+ */
+public class TransformCache {
+    /**
+     * 命中缓存，但该类无需增强
+     */
+    public static final byte[] UNCHANGED = new byte[0];
+
+    private static final String FILE_SUFFIX = ".tcache";
+    private static final int KEY_LENGTH = 32;
+    /**
+     * 条目头: key(32) + 长度(4, -1 表示无需增强) + CRC32(4)
+     */
+    private static final int HEADER_LENGTH = KEY_LENGTH + 8;
+    private static final long MAX_FILE_SIZE = 256L * 1024 * 1024;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final FileLock lock;
+    private final MappedByteBuffer mapped;
+    private final Map<ByteBuffer, Entry> index = new ConcurrentHashMap<ByteBuffer, Entry>();
+    private long writePosition;
+    private boolean writable;
+
+    private TransformCache(File dataFile) throws IOException {
+        this.file = new RandomAccessFile(dataFile, "rw");
+        this.channel = this.file.getChannel();
+        FileLock fileLock = null;
+        try {
+            fileLock = this.channel.tryLock();
+        } catch (OverlappingFileLockException ignore) {
+        }
+        this.lock = fileLock;
+        this.mapped = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(this.channel.size(), MAX_FILE_SIZE));
+        this.writePosition = loadIndex();
+        this.writable = this.lock != null;
+        if (this.writable && this.writePosition < this.channel.size()) {
+            // 丢弃上次异常退出时写了一半的条目
+            this.channel.truncate(this.writePosition);
+        }
+    }
+
+    /**
+     * 打开缓存目录，未配置目录或策略指纹时返回 null，表示不启用缓存
+     */
+    public static TransformCache open(String dir, String agentVersion, String policyFingerprint) {
+        if (dir == null || dir.isEmpty() || policyFingerprint == null) {
+            return null;
+        }
+        File cacheDir = new File(dir);
+        if (!cacheDir.isDirectory() && !cacheDir.mkdirs()) {
+            DongTaiLog.warn("create transform cache dir {} failed", dir);
+            return null;
+        }
+        String name = (agentVersion + "-" + policyFingerprint).replaceAll("[^A-Za-z0-9._-]", "_") + FILE_SUFFIX;
+        try {
+            TransformCache cache = new TransformCache(new File(cacheDir, name));
+            DongTaiLog.debug("transform cache {} loaded, entries: {}, writable: {}", name, cache.size(),
+                    cache.writable);
+            return cache;
+        } catch (IOException e) {
+            DongTaiLog.warn("open transform cache in {} failed: {}", dir, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 计算缓存条目的 key，类族中存在并发修改时返回 null，本次不使用缓存
+     */
+    public static byte[] key(byte[] classBytes, boolean isBootstrapClassLoader, Set<String> ancestors) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(classBytes);
+            digest.update((byte) (isBootstrapClassLoader ? 1 : 0));
+            if (ancestors != null) {
+                for (String ancestor : new TreeSet<String>(ancestors)) {
+                    digest.update(ancestor.getBytes(UTF_8));
+                    digest.update((byte) 0);
+                }
+            }
+            return digest.digest();
+        } catch (ConcurrentModificationException e) {
+            return null;
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 查询缓存
+     *
+     * @return 未命中返回 null；命中但无需增强返回 {@link #UNCHANGED}；否则返回增强后的字节码
+     */
+    public byte[] get(byte[] key) {
+        Entry entry = this.index.get(ByteBuffer.wrap(key));
+        if (entry == null) {
+            return null;
+        }
+        if (entry.length < 0) {
+            return UNCHANGED;
+        }
+
+        byte[] data = new byte[entry.length];
+        try {
+            if (entry.offset + entry.length <= this.mapped.limit()) {
+                ByteBuffer buffer = this.mapped.duplicate();
+                buffer.position((int) entry.offset);
+                buffer.get(data);
+            } else {
+                ByteBuffer buffer = ByteBuffer.wrap(data);
+                while (buffer.hasRemaining()) {
+                    if (this.channel.read(buffer, entry.offset + buffer.position()) < 0) {
+                        return null;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            return null;
+        }
+
+        if (crc(data) != entry.crc) {
+            DongTaiLog.debug("transform cache entry corrupted, ignore it");
+            this.index.remove(ByteBuffer.wrap(key));
+            return null;
+        }
+        return data;
+    }
+
+    /**
+     * 写入缓存，data 为 null 表示该类无需增强
+     */
+    public void put(byte[] key, byte[] data) {
+        if (key == null || !this.writable) {
+            return;
+        }
+        ByteBuffer indexKey = ByteBuffer.wrap(key);
+        int length = data == null ? -1 : data.length;
+        int payloadLength = Math.max(length, 0);
+        int crc = data == null ? 0 : crc(data);
+
+        synchronized (this) {
+            if (!this.writable || this.index.containsKey(indexKey)
+                    || this.writePosition + HEADER_LENGTH + payloadLength > MAX_FILE_SIZE) {
+                return;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + payloadLength);
+            buffer.put(key).putInt(length).putInt(crc);
+            if (data != null) {
+                buffer.put(data);
+            }
+            buffer.flip();
+            try {
+                long position = this.writePosition;
+                while (buffer.hasRemaining()) {
+                    position += this.channel.write(buffer, position);
+                }
+                this.index.put(indexKey, new Entry(this.writePosition + HEADER_LENGTH, length, crc));
+                this.writePosition = position;
+            } catch (IOException e) {
+                DongTaiLog.warn("write transform cache failed, disable it: {}", e.getMessage());
+                this.writable = false;
+            }
+        }
+    }
+
+    public int size() {
+        return this.index.size();
+    }
+
+    public synchronized void close() {
+        this.writable = false;
+        try {
+            if (this.lock != null) {
+                this.lock.release();
+            }
+            this.file.close();
+        } catch (IOException e) {
+            DongTaiLog.debug("close transform cache failed: {}", e.getMessage());
+        }
+    }
+
+    private long loadIndex() {
+        ByteBuffer buffer = this.mapped.duplicate();
+        int position = 0;
+        while (buffer.limit() - position >= HEADER_LENGTH) {
+            buffer.position(position);
+            byte[] key = new byte[KEY_LENGTH];
+            buffer.get(key);
+            int length = buffer.getInt();
+            int crc = buffer.getInt();
+            if (length < -1 || buffer.remaining() < Math.max(length, 0)) {
+                break;
+            }
+            this.index.put(ByteBuffer.wrap(key), new Entry(position + HEADER_LENGTH, length, crc));
+            position += HEADER_LENGTH + Math.max(length, 0);
+        }
+        return position;
+    }
+
+    private static int crc(byte[] data) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(data, 0, data.length);
+        return (int) crc32.getValue();
+    }
+
+    private static class Entry {
+        private final long offset;
+        private final int length;
+        private final int crc;
+
+        private Entry(long offset, int length, int crc) {
+            this.offset = offset;
+            this.length = length;
+            this.crc = crc;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package io.dongtai.iast.core.bytecode.enhance;
+
+import com.google.common.collect.MapMaker;
+import org.apache.commons.io.IOUtils;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 按类加载器缓存的类继承信息(父类、接口、访问标志)，供计算栈帧时的公共父类查找及类族扫描共用
+ * <p>
+ * 优先使用 transform 时已解析过的字节码，未命中时才从类加载器读取 .class 资源。条目记在定义该类的加载器下，
+ * 同一父加载器下的多个应用共用一份；找不到的类只在发起查找的加载器下缓存一段时间，过期后重新查找。
+ * 每个类加载器的条目数有上限，超过时清空重建。类加载器以弱引用持有，查询不加锁，线程安全
+ */
+public class ClassHierarchyCache {
+    private static final String BASE_CLASS = "java/lang/Object";
+
+    /**
+     * 找不到的类的缓存时间，期间可能有新的 jar 被加入类路径
+     */
+    private static final long MISSING_RETRY_MILLIS = 60 * 1000L;
+
+    /**
+     * 每个类加载器最多缓存的类数量
+     */
+    private static final int MAX_CLASSES_PER_LOADER = 32768;
+
+    private static final ClassHierarchyCache INSTANCE =
+            new ClassHierarchyCache(MISSING_RETRY_MILLIS, MAX_CLASSES_PER_LOADER);
+
+    /**
+     * 按标识比较的弱引用 key，启动类加载器的条目单独存放
+     */
+    private final ConcurrentMap<ClassLoader, Map<String, ClassInfo>> loaders = new MapMaker().weakKeys().makeMap();
+    private final Map<String, ClassInfo> bootstrapClasses = new ConcurrentHashMap<String, ClassInfo>();
+    private final long missingRetryMillis;
+    private final int maxClassesPerLoader;
+
+    ClassHierarchyCache(long missingRetryMillis, int maxClassesPerLoader) {
+        this.missingRetryMillis = missingRetryMillis;
+        this.maxClassesPerLoader = maxClassesPerLoader;
+    }
+
+    public static ClassHierarchyCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 记录 transform 中已解析的类
+     *
+     * @param loader       定义该类的类加载器，null 为启动类加载器
+     * @param internalName 内部类名，如 java/lang/String
+     */
+    public void put(ClassLoader loader, String internalName, String superName, String[] interfaces, int access) {
+        cache(loader, internalName, new ClassInfo(superName, interfaces, access));
+    }
+
+    /**
+     * 查询类的继承信息
+     * <p>
+     * 先沿父加载器查找已缓存的条目；未命中时按双亲委派从最上层的父加载器开始读取 .class 资源，
+     * 第一个找到该类的加载器视为定义加载器
+     *
+     * @param loader       用于查找类资源的类加载器，null 时使用系统类加载器
+     * @param internalName 内部类名
+     * @return 找不到类时返回 null
+     */
+    public ClassInfo get(ClassLoader loader, String internalName) {
+        ClassLoader current = loader;
+        while (true) {
+            Map<String, ClassInfo> classes = peekClasses(current);
+            ClassInfo info = classes == null ? null : classes.get(internalName);
+            if (info != null) {
+                if (!(info instanceof Missing)) {
+                    return info;
+                }
+                // 父加载器找不到的类仍可能由当前加载器定义，只认发起查找的加载器下的记录
+                if (current == loader && ((Missing) info).expireAt > System.currentTimeMillis()) {
+                    return null;
+                }
+            }
+            if (current == null) {
+                break;
+            }
+            current = current.getParent();
+        }
+
+        if (loader == null) {
+            ClassInfo info = read(null, internalName);
+            cache(null, internalName, info == null ? missing() : info);
+            return info;
+        }
+        ClassInfo info = readFromTop(loader, internalName);
+        if (info == null) {
+            cache(loader, internalName, missing());
+        }
+        return info;
+    }
+
+    /**
+     * 按双亲委派从最上层的父加载器开始读取 .class 资源，启动类加载器由其下的第一个加载器代为读取
+     */
+    private ClassInfo readFromTop(ClassLoader candidate, String internalName) {
+        ClassLoader parent = candidate.getParent();
+        if (parent != null) {
+            ClassInfo info = readFromTop(parent, internalName);
+            if (info != null) {
+                return info;
+            }
+        }
+        ClassInfo info = read(candidate, internalName);
+        if (info != null) {
+            cache(candidate, internalName, info);
+        }
+        return info;
+    }
+
+    /**
+     * 与 {@code org.objectweb.asm.ClassWriter#getCommonSuperClass(String, String)} 语义相同，找不到类时返回 java/lang/Object
+     */
+    public String getCommonSuperClass(String type1, String type2, ClassLoader loader) {
+        if (type1.equals(type2)) {
+            return type1;
+        }
+        ClassInfo info1 = get(loader, type1);
+        ClassInfo info2 = get(loader, type2);
+        if (info1 == null || info2 == null) {
+            return BASE_CLASS;
+        }
+        if (isSubtype(type2, type1, loader)) {
+            return type1;
+        }
+        if (isSubtype(type1, type2, loader)) {
+            return type2;
+        }
+        if (info1.isInterface() || info2.isInterface()) {
+            return BASE_CLASS;
+        }
+
+        String superName = info1.getSuperName();
+        while (superName != null) {
+            if (isSubtype(type2, superName, loader)) {
+                return superName;
+            }
+            ClassInfo superInfo = get(loader, superName);
+            superName = superInfo == null ? null : superInfo.getSuperName();
+        }
+        return BASE_CLASS;
+    }
+
+    /**
+     * type 是否为 ancestor 本身或其子类/实现类
+     */
+    private boolean isSubtype(String type, String ancestor, ClassLoader loader) {
+        Set<String> visited = new HashSet<String>();
+        Deque<String> queue = new ArrayDeque<String>();
+        queue.add(type);
+        while (!queue.isEmpty()) {
+            String current = queue.poll();
+            if (current.equals(ancestor)) {
+                return true;
+            }
+            if (!visited.add(current)) {
+                continue;
+            }
+            ClassInfo info = get(loader, current);
+            if (info == null) {
+                continue;
+            }
+            if (info.getSuperName() != null) {
+                queue.add(info.getSuperName());
+            }
+            Collections.addAll(queue, info.interfaces);
+        }
+        return false;
+    }
+
+    /**
+     * 当前缓存的条目数，仅用于测试
+     */
+    int size(ClassLoader loader) {
+        Map<String, ClassInfo> classes = peekClasses(loader);
+        return classes == null ? 0 : classes.size();
+    }
+
+    private Missing missing() {
+        return new Missing(System.currentTimeMillis() + this.missingRetryMillis);
+    }
+
+    private void cache(ClassLoader loader, String internalName, ClassInfo info) {
+        Map<String, ClassInfo> classes = getClasses(loader);
+        if (classes.size() >= this.maxClassesPerLoader && !classes.containsKey(internalName)) {
+            classes.clear();
+        }
+        classes.put(internalName, info);
+    }
+
+    private Map<String, ClassInfo> peekClasses(ClassLoader loader) {
+        return loader == null ? this.bootstrapClasses : this.loaders.get(loader);
+    }
+
+    private Map<String, ClassInfo> getClasses(ClassLoader loader) {
+        if (loader == null) {
+            return this.bootstrapClasses;
+        }
+        Map<String, ClassInfo> classes = this.loaders.get(loader);
+        if (classes == null) {
+            Map<String, ClassInfo> created = new ConcurrentHashMap<String, ClassInfo>();
+            classes = this.loaders.putIfAbsent(loader, created);
+            if (classes == null) {
+                classes = created;
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * @return 找不到类时返回 null
+     */
+    private static ClassInfo read(ClassLoader loader, String internalName) {
+        //loader 为null，说明是BootStrapClassLoader，不能显式引用，故使用系统类加载器间接引用
+        if (null == loader) {
+            loader = ClassLoader.getSystemClassLoader();
+        }
+        if (null == loader) {
+            return null;
+        }
+        InputStream inputStream = null;
+        try {
+            inputStream = loader.getResourceAsStream(internalName + ".class");
+            if (inputStream == null) {
+                return null;
+            }
+            ClassReader cr = new ClassReader(inputStream);
+            return new ClassInfo(cr.getSuperName(), cr.getInterfaces(), cr.getAccess());
+        } catch (Throwable e) {
+            return null;
+        } finally {
+            IOUtils.closeQuietly(inputStream);
+        }
+    }
+
+    public static class ClassInfo {
+        private final String superName;
+        private final String[] interfaces;
+        private final int access;
+
+        private ClassInfo(String superName, String[] interfaces, int access) {
+            this.superName = superName;
+            this.interfaces = interfaces == null ? new String[0] : interfaces;
+            this.access = access;
+        }
+
+        /**
+         * @return 内部类名，java/lang/Object 及接口的父类为 java/lang/Object，java/lang/Object 本身为 null
+         */
+        public String getSuperName() {
+            return superName;
+        }
+
+        public String[] getInterfaces() {
+            return interfaces.clone();
+        }
+
+        public int getAccess() {
+            return access;
+        }
+
+        public boolean isInterface() {
+            return (access & Opcodes.ACC_INTERFACE) != 0;
+        }
+    }
+
+    /**
+     * 类加载器中找不到该类，过期后重新查找
+     */
+    private static class Missing extends ClassInfo {
+        private final long expireAt;
+
+        private Missing(long expireAt) {
+            super(null, null, 0);
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -1,30 +1,33 @@
 package io.dongtai.iast.core.bytecode.enhance;
 
-import io.dongtai.log.DongTaiLog;
-import org.objectweb.asm.ClassReader;
+import com.google.common.collect.MapMaker;
 
-import java.io.InputStream;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * 查询给定类的类族
+ * <p>
+ * 类族按 (类加载器, 类名) 存储，类加载器以弱引用持有；类族计算完成后不再修改，读写均无锁。
+ * 解析父类/接口时依次查找当前类加载器及其父加载器中已有的类族，找不到时通过 {@link ClassHierarchyCache} 扫描
  *
  * @author dongzhiyong@huoxian.cn
  */
 public class IastClassDiagram {
 
-    private final Map<String, Set<String>> diagrams;
     private static final Map<String, List<String>> DEFAULT_INTERFACE_LIST_MAP;
     private static final String BASE_CLASS = "java/lang/Object";
 
-    public synchronized void setLoader(ClassLoader loader) {
-        this.loader = loader;
-    }
-
-    private ClassLoader loader;
     private static IastClassDiagram instance;
 
+    /**
+     * 启动类加载器加载的类
+     */
+    private final ConcurrentMap<String, Set<String>> bootstrapDiagrams = new ConcurrentHashMap<String, Set<String>>();
+    private final ConcurrentMap<ClassLoader, ConcurrentMap<String, Set<String>>> diagrams =
+            new MapMaker().weakKeys().makeMap();
+
     public static IastClassDiagram getInstance() {
         if (instance == null) {
             instance = new IastClassDiagram();
@@ -32,142 +35,171 @@ public class IastClassDiagram {
         return instance;
     }
 
-    public Set<String> getDiagram(String className) {
-        return diagrams.get(className);
+    IastClassDiagram() {
     }
 
-    public void setDiagram(String className, Set<String> diagram) {
-        diagrams.put(className, diagram);
+    /**
+     * @param loader    定义该类的类加载器，null 为启动类加载器
+     * @param className 类名，如 java.lang.String
+     * @return 不可修改的类族，尚未计算时返回 null
+     */
+    public Set<String> getDiagram(ClassLoader loader, String className) {
+        Map<String, Set<String>> namespace = loader == null ? this.bootstrapDiagrams : this.diagrams.get(loader);
+        return namespace == null ? null : namespace.get(className);
     }
 
-    private IastClassDiagram() {
-        this.diagrams = new ConcurrentHashMap<String, Set<String>>();
+    /**
+     * 保存已知的类族，已存在时保留原有类族
+     *
+     * @return 最终保存的不可修改类族
+     */
+    public Set<String> setDiagram(ClassLoader loader, String className, Set<String> diagram) {
+        Set<String> immutable = Collections.unmodifiableSet(new HashSet<String>(diagram));
+        Set<String> previous = namespace(loader).putIfAbsent(className, immutable);
+        return previous == null ? immutable : previous;
     }
 
-    public synchronized void saveAncestors(String className, String superName, String[] interfaces) {
-        Set<String> ancestorSet = this.diagrams.get(className);
-        ancestorSet = ancestorSet == null ? new HashSet<String>() : ancestorSet;
+    /**
+     * 获取当前类的类族，不存在时计算并保存
+     *
+     * @param loader         定义当前类的类加载器，null 为启动类加载器
+     * @param className      当前类（待检查的类），如 java.lang.String
+     * @param superClassName 当前类继承的父类，内部类名
+     * @param interfaces     当前类实现的接口列表，内部类名
+     * @return 不可修改的类族
+     */
+    public Set<String> getAncestors(ClassLoader loader, String className, String superClassName, String[] interfaces) {
+        Set<String> diagram = getDiagram(loader, className);
+        if (diagram != null) {
+            return diagram;
+        }
 
-        ancestorSet.add(className);
-        if (!BASE_CLASS.equals(superName)) {
-            ancestorSet.add(superName.replace("/", "."));
+        Set<String> ancestors = new HashSet<String>();
+        ancestors.add(className);
+        boolean resolved = true;
+        if (!isNullOrEmpty(superClassName) && !BASE_CLASS.equals(superClassName)) {
+            resolved = addClassToAncestor(loader, superClassName, ancestors);
         }
-        for (String interfaceClazzName : interfaces) {
-            ancestorSet.add(interfaceClazzName.replace("/", "."));
+        if (interfaces != null) {
+            for (String anInterface : interfaces) {
+                resolved &= addClassToAncestor(loader, anInterface, ancestors);
+            }
         }
-
-        this.diagrams.put(className, ancestorSet);
+        addDefaultInterfaces(ancestors);
+        // 祖先未能完整解析时不缓存，避免残缺的类族常驻并掩盖 ClassHierarchyCache 的未命中过期重试
+        if (!resolved) {
+            return Collections.unmodifiableSet(ancestors);
+        }
+        return setDiagram(loader, className, ancestors);
     }
 
     /**
-     * 获取当前类的类族
+     * 将父类/接口及其类族加入 ancestors
      *
-     * @param className      当前类（待检查的类）
-     * @param superClassName 当前类继承的父类
-     * @param interfaces     当前类实现的接口列表
-     * @return 当前类的类族
+     * @param className 内部类名，如 java/lang/Object
+     * @param ancestors 类族，类名形如 java.lang.Object
+     * @return 该类的继承链是否完整解析
      */
-    public synchronized Set<String> getAncestors(String className, String superClassName, String[] interfaces) {
-        Set<String> ancestors = this.diagrams.get(className);
-
-        if (!isNullOrEmpty(superClassName) && !BASE_CLASS.equals(superClassName)) {
-            addClassToAncestor(superClassName, ancestors);
-        }
-
-        List<String> interfaceList = DEFAULT_INTERFACE_LIST_MAP.get(className);
-        if (interfaceList != null) {
-            ancestors.addAll(interfaceList);
+    private boolean addClassToAncestor(ClassLoader loader, String className, Set<String> ancestors) {
+        String javaClassName = className.replace("/", ".");
+        if (!ancestors.add(javaClassName)) {
+            return true;
         }
-
-        for (String anInterface : interfaces) {
-            addClassToAncestor(anInterface, ancestors);
+        Set<String> family = findVisibleDiagram(loader, javaClassName);
+        if (family != null) {
+            ancestors.addAll(family);
+            return true;
         }
-
-        return ancestors;
-
+        return scanJarForAncestor(loader, className, ancestors);
     }
 
     /**
-     * @param className java/lang/Object
-     * @param ancestors dirgrams, java.lang.Object Set
+     * 从当前类加载器开始，沿父加载器查找已计算的类族
      */
-    private void addClassToAncestor(String className, Set<String> ancestors) {
-        Set<String> set = this.diagrams.get(className.replace("/", "."));
-        if (null != set) {
-            for (String subClassName : set) {
-                if (!ancestors.contains(subClassName)) {
-                    ancestors.add(subClassName);
-                    addClassToAncestor(subClassName.replace(".", "/"), ancestors);
-                }
-            }
-        } else {
-            Set<String> tempClassFamily = new HashSet<String>();
-            scanJarForAncestor(className, tempClassFamily);
-            if (!tempClassFamily.isEmpty()) {
-                for (String tempClass : tempClassFamily) {
-                    ancestors.add(tempClass);
-                    List<String> tempDefaultMap = DEFAULT_INTERFACE_LIST_MAP.get(tempClass);
-                    if (tempDefaultMap != null) {
-                        ancestors.addAll(tempDefaultMap);
-                    }
-                    Set<String> tempClassMap = diagrams.get(tempClass);
-                    if (tempClassMap != null) {
-                        ancestors.addAll(tempClassMap);
-                    }
-                }
-                this.diagrams.put(className.replace("/", "."), tempClassFamily);
-            }
-        }
-        List<String> list = DEFAULT_INTERFACE_LIST_MAP.get(className);
-        if (null != list) {
-            for (String interfaceName : list) {
-                if (!ancestors.contains(className)) {
-                    ancestors.add(interfaceName);
-                    addClassToAncestor(interfaceName, ancestors);
-                }
+    private Set<String> findVisibleDiagram(ClassLoader loader, String className) {
+        for (ClassLoader current = loader; current != null; current = current.getParent()) {
+            Set<String> diagram = getDiagram(current, className);
+            if (diagram != null) {
+                return diagram;
             }
         }
+        return this.bootstrapDiagrams.get(className);
     }
 
     /**
-     * 从classloader中查找父类，将当前类的父类收集足够完整，避免丢失hook点，该方法未做持续查找，缺少深度
+     * 从classloader中查找父类，将当前类的父类收集足够完整，避免丢失hook点
+     * <p>
+     * 继承信息来自 {@link ClassHierarchyCache}，已解析过的类不再读取 .class 资源；遇到已计算类族的祖先时直接合并
      *
-     * @param className 当前类名
-     * @param ancestors 当前类的祖先 类/接口 集合
+     * @param loader    当前类的类加载器
+     * @param className 内部类名
+     * @param target    扫描结果(含自身)合并到的类族
+     * @return 继承链是否完整解析；仅完整时才保存到当前类加载器的命名空间中，否则留待下次重新扫描
      */
-    private void scanJarForAncestor(String className, Set<String> ancestors) {
-        if (null == this.loader) {
-            this.loader = this.getClass().getClassLoader();
-        }
-        if (null == this.loader) {
-            return;
-        }
-
+    private boolean scanJarForAncestor(ClassLoader loader, String className, Set<String> target) {
+        String javaClassName = className.replace("/", ".");
+        Set<String> ancestors = new HashSet<String>();
+        ancestors.add(javaClassName);
         Queue<String> queue = new LinkedList<String>();
         queue.offer(className);
+        boolean resolved = true;
 
         while (!queue.isEmpty()) {
-            String currentClass = queue.poll();
-            try {
-                InputStream inputStream = this.loader.getResourceAsStream(currentClass + ".class");
-                if (inputStream != null) {
-                    ClassReader cr = new ClassReader(inputStream);
-                    inputStream.close();
-                    String[] interfaces = cr.getInterfaces();
-                    String superclass = cr.getSuperName();
-                    if (!(BASE_CLASS.equals(superclass) || null == superclass)) {
-                        ancestors.add(superclass.replace("/", "."));
-                        queue.offer(superclass);
-                    }
-                    for (String tempInterface : interfaces) {
-                        ancestors.add(tempInterface.replace("/", "."));
-                        queue.offer(tempInterface);
-                    }
+            ClassHierarchyCache.ClassInfo classInfo = ClassHierarchyCache.getInstance().get(loader, queue.poll());
+            if (classInfo == null) {
+                resolved = false;
+                continue;
+            }
+            List<String> parents = new ArrayList<String>(Arrays.asList(classInfo.getInterfaces()));
+            String superclass = classInfo.getSuperName();
+            if (!(BASE_CLASS.equals(superclass) || null == superclass)) {
+                parents.add(superclass);
+            }
+            for (String parent : parents) {
+                String javaParentName = parent.replace("/", ".");
+                if (!ancestors.add(javaParentName)) {
+                    continue;
                 }
-            } catch (Exception e) {
-                DongTaiLog.error(e);
+                Set<String> family = findVisibleDiagram(loader, javaParentName);
+                if (family != null) {
+                    ancestors.addAll(family);
+                } else {
+                    queue.offer(parent);
+                }
+            }
+        }
+        addDefaultInterfaces(ancestors);
+        if (resolved) {
+            setDiagram(loader, javaClassName, ancestors);
+        }
+        target.addAll(ancestors);
+        return resolved;
+    }
+
+    private static void addDefaultInterfaces(Set<String> ancestors) {
+        List<String> defaults = new ArrayList<String>();
+        for (String ancestor : ancestors) {
+            List<String> interfaceList = DEFAULT_INTERFACE_LIST_MAP.get(ancestor);
+            if (interfaceList != null) {
+                defaults.addAll(interfaceList);
+            }
+        }
+        ancestors.addAll(defaults);
+    }
+
+    private ConcurrentMap<String, Set<String>> namespace(ClassLoader loader) {
+        if (loader == null) {
+            return this.bootstrapDiagrams;
+        }
+        ConcurrentMap<String, Set<String>> namespace = this.diagrams.get(loader);
+        if (namespace == null) {
+            ConcurrentMap<String, Set<String>> created = new ConcurrentHashMap<String, Set<String>>();
+            namespace = this.diagrams.putIfAbsent(loader, created);
+            if (namespace == null) {
+                namespace = created;
             }
         }
+        return namespace;
     }
 
     public static boolean isNullOrEmpty(String className) {
@@ -175,10 +207,10 @@ public class IastClassDiagram {
     }
 
     /**
-     * todo 利用类名查找实现的接口列表、继承的父类
+     * 查询已加载类的类族，用于上报污点调用图
      */
-    public static Set<String> getFamilyFromClass(String className) {
-        return instance == null ? null : instance.diagrams.get(className);
+    public static Set<String> getFamilyFromClass(Class<?> clazz) {
+        return instance == null ? null : instance.getDiagram(clazz.getClassLoader(), clazz.getName());
     }
 
     static {
@@ -127,6 +127,11 @@ public interface AsmMethods {
             SpyDispatcher.class,
             "isFirstLevelSink"
     );
+    Method SPY$isCollectAllowed = InnerHelper.getAsmMethod(
+            SpyDispatcher.class,
+            "isCollectAllowed",
+            boolean.class
+    );
     Method SPY$collectMethodPool = InnerHelper.getAsmMethod(
             SpyDispatcher.class,
             "collectMethodPool",
@@ -156,6 +161,20 @@ public interface AsmMethods {
             boolean.class
     );
 
+    Method SPY$collectMethodById = InnerHelper.getAsmMethod(
+            SpyDispatcher.class,
+            "collectMethod",
+            Object.class,
+            Object[].class,
+            Object.class,
+            int.class,
+            String.class,
+            String.class,
+            String.class,
+            String.class,
+            boolean.class
+    );
+
     Method SPY$clientInterceptor = InnerHelper.getAsmMethod(
             SpyDispatcher.class,
             "clientInterceptor",
@@ -125,6 +125,9 @@ public abstract class AbstractAdviceAdapter extends AdviceAdapter implements Asm
             final PolicyNode policyNode,
             final boolean captureRet
     ) {
+        Label skipLabel = new Label();
+        isCollectAllowed(false, skipLabel);
+
         newLocal(ASM_TYPE_OBJECT);
         if (captureRet && !isThrow(opcode)) {
             loadReturn(opcode);
@@ -136,14 +139,24 @@ public abstract class AbstractAdviceAdapter extends AdviceAdapter implements Asm
         loadThisOrPushNullIfIsStatic();
         loadArgArray();
         loadLocal(this.nextLocal - 1);
-        push(policyNode.getMethodMatcher().toString());
+        if (policyNode.getId() >= 0) {
+            push(policyNode.getId());
+        } else {
+            push(policyNode.getMethodMatcher().toString());
+        }
         push(this.context.getClassName());
         push(this.context.getMatchedClassName());
         push(this.name);
         push(this.signature);
         push(Modifier.isStatic(this.access));
-        invokeInterface(ASM_TYPE_SPY_DISPATCHER, SPY$collectMethod);
+        if (policyNode.getId() >= 0) {
+            invokeInterface(ASM_TYPE_SPY_DISPATCHER, SPY$collectMethodById);
+        } else {
+            invokeInterface(ASM_TYPE_SPY_DISPATCHER, SPY$collectMethod);
+        }
         pop();
+
+        mark(skipLabel);
     }
 
     public void captureMethodState(
@@ -151,6 +164,9 @@ public abstract class AbstractAdviceAdapter extends AdviceAdapter implements Asm
             final int hookValue,
             final boolean captureRet
     ) {
+        Label skipLabel = new Label();
+        isCollectAllowed(true, skipLabel);
+
         newLocal(ASM_TYPE_OBJECT);
         if (captureRet && !isThrow(opcode)) {
             loadReturn(opcode);
@@ -171,6 +187,21 @@ public abstract class AbstractAdviceAdapter extends AdviceAdapter implements Asm
         push(hookValue);
         invokeInterface(ASM_TYPE_SPY_DISPATCHER, SPY$collectMethodPool);
         pop();
+
+        mark(skipLabel);
+    }
+
+    /**
+     * 先调用不产生对象分配的检查，未通过时跳过参数数组构造与返回值装箱
+     *
+     * @param isEnterEntry 是否为 http/rpc 入口方法
+     * @param skipLabel    检查未通过时跳转的位置
+     */
+    protected void isCollectAllowed(final boolean isEnterEntry, final Label skipLabel) {
+        invokeStatic(ASM_TYPE_SPY_HANDLER, SPY_HANDLER$getDispatcher);
+        push(isEnterEntry);
+        invokeInterface(ASM_TYPE_SPY_DISPATCHER, SPY$isCollectAllowed);
+        visitJumpInsn(IFEQ, skipLabel);
     }
 
     /**
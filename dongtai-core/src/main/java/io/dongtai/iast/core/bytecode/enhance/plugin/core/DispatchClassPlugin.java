@@ -19,16 +19,13 @@ import java.util.*;
  * @author dongzhiyong@huoxian.cn
  */
 public class DispatchClassPlugin implements DispatchPlugin {
-    private Set<String> ancestors;
-    private String className;
-
     public DispatchClassPlugin() {
     }
 
     @Override
     public ClassVisitor dispatch(ClassVisitor classVisitor, ClassContext classContext, Policy policy) {
-        ancestors = classContext.getAncestors();
-        className = classContext.getClassName();
+        Set<String> ancestors = classContext.getAncestors();
+        String className = classContext.getClassName();
         String matchedClassName = policy.getMatchedClass(className, ancestors);
 
         if (null == matchedClassName) {
@@ -95,34 +92,7 @@ public class DispatchClassPlugin implements DispatchPlugin {
          */
         private MethodVisitor lazyAop(MethodVisitor mv, int access, String name, String descriptor, String signature,
                                       MethodContext methodContext) {
-            Set<PolicyNode> matchedNodes = new HashSet<PolicyNode>();
-
-            List<SourceNode> sourceNodes = this.policy.getSources();
-            if (sourceNodes != null && sourceNodes.size() != 0) {
-                for (SourceNode sourceNode : sourceNodes) {
-                    if (sourceNode.getMethodMatcher().match(methodContext)) {
-                        matchedNodes.add(sourceNode);
-                    }
-                }
-            }
-
-            List<PropagatorNode> propagatorNodes = this.policy.getPropagators();
-            if (sourceNodes != null && sourceNodes.size() != 0) {
-                for (PropagatorNode propagatorNode : propagatorNodes) {
-                    if (propagatorNode.getMethodMatcher().match(methodContext)) {
-                        matchedNodes.add(propagatorNode);
-                    }
-                }
-            }
-
-            List<SinkNode> sinkNodes = this.policy.getSinks();
-            if (sourceNodes != null && sourceNodes.size() != 0) {
-                for (SinkNode sinkNode : sinkNodes) {
-                    if (sinkNode.getMethodMatcher().match(methodContext)) {
-                        matchedNodes.add(sinkNode);
-                    }
-                }
-            }
+            Set<PolicyNode> matchedNodes = this.policy.getMatchedNodes(methodContext);
 
             if (matchedNodes.size() > 0) {
                 mv = new MethodAdviceAdapter(mv, access, name, descriptor, signature,
@@ -5,7 +5,7 @@ import io.dongtai.iast.core.bytecode.enhance.plugin.fallback.report.SecondFallba
 import io.dongtai.iast.core.bytecode.enhance.plugin.fallback.report.body.SecondFallbackReportBody;
 import io.dongtai.iast.core.utils.StopwatchUtils;
 import io.dongtai.iast.core.utils.config.RemoteConfigUtils;
-import io.dongtai.iast.core.utils.threadlocal.BooleanThreadLocal;
+import io.dongtai.iast.core.utils.threadlocal.RequestState;
 import io.dongtai.log.DongTaiLog;
 import lombok.Getter;
 import lombok.Setter;
@@ -27,11 +27,6 @@ public class FallbackSwitch {
     // 降级开关配置
     // *************************************************************
 
-    /**
-     * 高频hook点降级开关(线程隔离)
-     */
-    private static final BooleanThreadLocal HEAVY_HOOK_FALLBACK = new BooleanThreadLocal(false);
-
     /**
      * 高频流量降级开关
      */
@@ -72,7 +67,8 @@ public class FallbackSwitch {
      * @return boolean 是否发生降级
      */
     public static boolean isRequestFallback() {
-        return HEAVY_HOOK_FALLBACK.get() != null && HEAVY_HOOK_FALLBACK.get();
+        // 高频hook点降级开关(线程隔离)
+        return RequestState.get().isHeavyHookFallback();
     }
 
     /**
@@ -87,11 +83,11 @@ public class FallbackSwitch {
 
 
     public static void setHeavyHookFallback(boolean fallback) {
-        HEAVY_HOOK_FALLBACK.set(fallback);
+        RequestState.get().setHeavyHookFallback(fallback);
     }
 
     public static void clearHeavyHookFallback() {
-        HEAVY_HOOK_FALLBACK.remove();
+        RequestState.get().setHeavyHookFallback(false);
     }
 
     public static void setHeavyTrafficLimitFallback(boolean fallback) {
@@ -1,19 +1,24 @@
 package io.dongtai.iast.core.bytecode.sca;
 
+import com.google.common.collect.MapMaker;
 import io.dongtai.iast.common.constants.ReportKey;
 import io.dongtai.iast.common.constants.ReportType;
 import io.dongtai.iast.core.EngineManager;
 import io.dongtai.iast.core.service.ThreadPools;
+import io.dongtai.iast.core.utils.PropertyUtils;
 import io.dongtai.log.DongTaiLog;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
-import java.net.JarURLConnection;
 import java.net.URL;
-import java.util.Enumeration;
-import java.util.HashSet;
+import java.security.CodeSource;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
@@ -24,9 +29,26 @@ public class ScaScanner {
 
     private static final String ALGORITHM = "SHA-1";
     private static final String JAR = ".jar";
-    private static volatile HashSet<String> scannedClassSet = new HashSet<String>();
-    private static volatile HashSet<String> scaSet = new HashSet<String>();
-    private static volatile Boolean isClassPath = false;
+    /**
+     * 已处理的 CodeSource，按对象标识比较，弱引用持有
+     */
+    private static final ConcurrentMap<CodeSource, Boolean> SCANNED_CODE_SOURCES = new MapMaker().weakKeys().makeMap();
+    /**
+     * 已提交扫描的 jar 或 lib 目录
+     */
+    private static final Set<String> SCANNED_PACKAGES =
+            Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private static final AtomicBoolean CLASS_PATH_SCANNED = new AtomicBoolean();
+
+    /**
+     * 单次 SCA_BATCH 上报的最大组件数
+     */
+    private static final int MAX_PACKAGES_PER_REPORT = 200;
+    private static final String SIGNATURE_INDEX_FILE = "sca-signature.idx";
+    private static final ScaSignatureIndex SIGNATURE_INDEX = ScaSignatureIndex.load(
+            PropertyUtils.getTmpDir() == null ? null : new File(PropertyUtils.getTmpDir(), SIGNATURE_INDEX_FILE));
+    private static final Queue<JSONObject> PENDING_PACKAGES = new ConcurrentLinkedQueue<JSONObject>();
+    private static final AtomicInteger RUNNING_TASKS = new AtomicInteger();
 
     private static boolean isJarLibs(String packageFile) {
         return packageFile.startsWith("file:") && packageFile.endsWith(".jar!/") && packageFile.contains("BOOT-INF");
@@ -36,93 +58,161 @@ public class ScaScanner {
         return packageFile.endsWith(".jar") && packageFile.contains("WEB-INF");
     }
 
-    private static boolean isLocalMavenRepo(String packageFile) {
-        return packageFile.endsWith(".jar") && packageFile.contains("repository");
+    /**
+     * 按 CodeSource 去重，同一 CodeSource 加载的类只在第一次时解析路径
+     *
+     * @param codeSource 类的来源
+     * @return 首次遇到该 CodeSource 时返回 true
+     */
+    public static boolean scanForSCA(CodeSource codeSource) {
+        if (SCANNED_CODE_SOURCES.putIfAbsent(codeSource, Boolean.TRUE) != null) {
+            return false;
+        }
+        URL location = codeSource.getLocation();
+        if (location != null && !location.getFile().isEmpty()) {
+            scanForSCA(location.getFile());
+        }
+        return true;
     }
 
     /**
-     * @param packageFile
-     * @param internalClassName
+     * @param packageFile 类所在的 jar 或目录
      */
-    public static void scanForSCA(String packageFile, String internalClassName) {
-        File jarPackageFile = new File(packageFile);
-        String packagePath = jarPackageFile.getParent();
+    static void scanForSCA(String packageFile) {
         if (isJarLibs(packageFile)) {
             packageFile = packageFile.replace("file:", "");
             packageFile = packageFile.substring(0, packageFile.indexOf("!/"));
-            if (!scannedClassSet.contains(packageFile)) {
-                scannedClassSet.add(packageFile);
-                ThreadPools.execute(new ScaScanThread(packageFile, 2));
+            if (SCANNED_PACKAGES.add(packageFile)) {
+                submit(new ScaScanThread(packageFile, 2));
+            }
+        } else if (isWarLibs(packageFile)) {
+            String packagePath = new File(packageFile).getParent();
+            if (SCANNED_PACKAGES.add(packagePath)) {
+                submit(new ScaScanThread(packagePath, 1));
             }
-        } else if (isWarLibs(packageFile) && !scannedClassSet.contains(packagePath)) {
-            scannedClassSet.add(packagePath);
-            ThreadPools.execute(new ScaScanThread(packagePath, 1));
-        } else if (!scannedClassSet.contains(packageFile) && isLocalMavenRepo(packageFile)) {
-            scannedClassSet.add(packageFile);
-            ThreadPools.execute(new ScaScanThread(packageFile, 3));
-        } else if (packageFile.endsWith(".jar") && !scaSet.contains(packageFile)) {
-            scaSet.add(packageFile);
-            ThreadPools.execute(new ScaScanThread(packageFile, 3));
-        } else if (!scaSet.contains(packageFile) && isLocalMavenRepo(packageFile)) {
-            scaSet.add(packageFile);
-        }
-        if (!isClassPath) {
-            isClassPath = true;
-            ThreadPools.execute(new ScaScanThread(System.getProperty("java.class.path"), 4));
+        } else if (packageFile.endsWith(JAR) && SCANNED_PACKAGES.add(packageFile)) {
+            submit(new ScaScanThread(packageFile, 3));
+        }
+        if (CLASS_PATH_SCANNED.compareAndSet(false, true)) {
+            submit(new ScaScanThread(System.getProperty("java.class.path"), 4));
         }
     }
 
     /**
-     * Asynchronous analysis of third-party dependent components
+     * 提交扫描任务，所有任务完成时把期间收集到的组件合并上报
      */
-    private static class ScaScanThread extends Thread {
+    private static void submit(final Runnable task) {
+        RUNNING_TASKS.incrementAndGet();
+        try {
+            ThreadPools.executeScaScan(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        task.run();
+                    } catch (Throwable e) {
+                        DongTaiLog.debug("sca scan failed: {}", e.getMessage());
+                    } finally {
+                        if (RUNNING_TASKS.decrementAndGet() == 0) {
+                            flush();
+                        }
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            RUNNING_TASKS.decrementAndGet();
+            DongTaiLog.debug("sca scan rejected: {}", e.getMessage());
+        }
+    }
 
+    private static void collect(String packagePath, String packageName, String signature) {
+        if (signature == null) {
+            return;
+        }
+        JSONObject packageObj = new JSONObject();
+        packageObj.put(ScaReport.KEY_SCA_PACKAGE_PATH, packagePath);
+        packageObj.put(ScaReport.KEY_SCA_PACKAGE_NAME, packageName);
+        packageObj.put(ScaReport.KEY_SCA_PACKAGE_SIGNATURE, signature);
+        packageObj.put(ScaReport.KEY_SCA_PACKAGE_ALGORITHM, ScaScanner.ALGORITHM);
+        PENDING_PACKAGES.offer(packageObj);
+    }
+
+    /**
+     * 将已收集的组件按批上报，并保存签名索引
+     */
+    static void flush() {
+        JSONArray packages = new JSONArray();
+        JSONObject packageObj;
+        while ((packageObj = PENDING_PACKAGES.poll()) != null) {
+            packages.put(packageObj);
+            if (packages.length() >= MAX_PACKAGES_PER_REPORT) {
+                sendBatchReport(packages);
+                packages = new JSONArray();
+            }
+        }
+        if (packages.length() > 0) {
+            sendBatchReport(packages);
+        }
+        SIGNATURE_INDEX.save();
+    }
+
+    private static void sendBatchReport(JSONArray packages) {
+        JSONObject scaReport = new JSONObject();
+        scaReport.put(ReportKey.TYPE, ReportType.SCA_BATCH);
+        JSONObject detail = new JSONObject();
+        detail.put(ReportKey.AGENT_ID, EngineManager.getAgentId());
+        detail.put(ScaReport.KEY_SCA_PACKAGES, packages);
+        scaReport.put(ReportKey.DETAIL, detail);
+        ScaReport.sendReport(scaReport.toString());
+    }
+
+    /**
+     * 计算 jar 文件签名，大小及修改时间未变化时直接使用索引中的签名
+     */
+    private static String getSignature(File file) {
+        String path = file.getAbsolutePath();
+        long size = file.length();
+        long lastModified = file.lastModified();
+        String signature = SIGNATURE_INDEX.get(path, size, lastModified);
+        if (signature == null) {
+            signature = SignatureAlgorithm.getSignature(file, ALGORITHM);
+            SIGNATURE_INDEX.put(path, size, lastModified, signature);
+        }
+        return signature;
+    }
+
+    /**
+     * 计算单个 jar 的签名
+     */
+    private static class JarScanTask implements Runnable {
+        private final File file;
         private final String packagePath;
-        private final int scaType;
-        private final JSONObject scaReport;
-        private final JSONArray packages;
 
-        /**
-         * Allocates a new {@code Thread} object. This constructor has the same effect as  {@code (null, null, gname)},
-         * where {@code gname} is a newly generated name. Automatically generated names are of the form {@code
-         * "Thread-"+}<i>n</i>, where <i>n</i> is an integer.
-         */
-        public ScaScanThread(String packagePath, int scaType) {
+        private JarScanTask(File file, String packagePath) {
+            this.file = file;
             this.packagePath = packagePath;
-            this.scaType = scaType;
-            this.scaReport = new JSONObject();
-            this.packages = new JSONArray();
-            scaReport.put(ReportKey.TYPE, ReportType.SCA_BATCH);
-            JSONObject detail = new JSONObject();
-            detail.put(ReportKey.AGENT_ID, EngineManager.getAgentId());
-            detail.put(ScaReport.KEY_SCA_PACKAGES, packages);
-            scaReport.put(ReportKey.DETAIL, detail);
-        }
-
-        public void scan(File file) {
-            String filePath = file.getPath();
-            if (filePath.endsWith(JAR)) {
-                if (file.exists()) {
-                    String packageName = file.getName();
-                    String signature = SignatureAlgorithm.getSignature(file, ScaScanner.ALGORITHM);
-                    if (null != signature) {
-                        JSONObject packageObj = new JSONObject();
-                        packageObj.put(ScaReport.KEY_SCA_PACKAGE_PATH, packagePath);
-                        packageObj.put(ScaReport.KEY_SCA_PACKAGE_NAME, packageName);
-                        packageObj.put(ScaReport.KEY_SCA_PACKAGE_SIGNATURE, signature);
-                        packageObj.put(ScaReport.KEY_SCA_PACKAGE_ALGORITHM, ScaScanner.ALGORITHM);
-                        packages.put(packageObj);
-                    }
-                }
+        }
+
+        @Override
+        public void run() {
+            if (this.file.getPath().endsWith(JAR) && this.file.exists()) {
+                collect(this.packagePath, this.file.getName(), getSignature(this.file));
             }
         }
+    }
+
+    /**
+     * Asynchronous analysis of third-party dependent components
+     * <p>
+     * 负责找出待计算签名的 jar，每个 jar 作为独立任务在扫描线程池中并行计算
+     */
+    private static class ScaScanThread implements Runnable {
 
-        public InputStream getJarInputStream(String filePath, String name) throws Exception {
-            URL url = new URL("jar:file:" + filePath + "!/" + name);
-            JarURLConnection jarConnection = (JarURLConnection) url
-                    .openConnection();
+        private final String packagePath;
+        private final int scaType;
 
-            return jarConnection.getInputStream();
+        public ScaScanThread(String packagePath, int scaType) {
+            this.packagePath = packagePath;
+            this.scaType = scaType;
         }
 
         public void scanClassPath(String packagesPath) {
@@ -135,14 +225,7 @@ public class ScaScanner {
             }
             for (String packagePath : packages) {
                 if (packagePath.endsWith(JAR)) {
-                    File file = new File(packagePath);
-                    JSONObject packageObj = new JSONObject();
-                    packageObj.put(ScaReport.KEY_SCA_PACKAGE_PATH, packagePath);
-                    packageObj.put(ScaReport.KEY_SCA_PACKAGE_NAME, file.getName());
-                    packageObj.put(ScaReport.KEY_SCA_PACKAGE_SIGNATURE,
-                            SignatureAlgorithm.getSignature(file, ScaScanner.ALGORITHM));
-                    packageObj.put(ScaReport.KEY_SCA_PACKAGE_ALGORITHM, ScaScanner.ALGORITHM);
-                    this.packages.put(packageObj);
+                    submit(new JarScanTask(new File(packagePath), packagePath));
                 }
             }
         }
@@ -151,71 +234,68 @@ public class ScaScanner {
             File packagePathFile = new File(packagePath);
             File[] packagePathFiles = packagePathFile.listFiles();
             for (File tempPackagePathFile : packagePathFiles != null ? packagePathFiles : new File[0]) {
-                scan(tempPackagePathFile);
+                submit(new JarScanTask(tempPackagePathFile, packagePath));
             }
         }
 
-
+        /**
+         * 扫描 fat jar 中内嵌的 jar，外层 jar 未变化时内嵌 jar 使用索引中的签名
+         */
         private void scanJarLib(String packagePath) {
+            JarFile file = null;
             try {
-                JarFile file = new JarFile(packagePath);
+                File jar = new File(packagePath);
+                long lastModified = jar.lastModified();
+                file = new JarFile(jar);
                 Enumeration<JarEntry> entries = file.entries();
-                String entryName;
                 while (entries.hasMoreElements()) {
                     JarEntry entry = entries.nextElement();
-                    entryName = entry.getName();
-                    if (entryName.endsWith(".jar")) {
-                        InputStream is = getJarInputStream(packagePath, entryName);
-                        String signature = SignatureAlgorithm.getSignature(is, ScaScanner.ALGORITHM);
-                        String packageName = entry.getName();
-                        if (signature == null) {
-                            continue;
+                    String entryName = entry.getName();
+                    if (!entryName.endsWith(JAR)) {
+                        continue;
+                    }
+                    String entryPath = "jar:file:" + packagePath + "!/" + entryName;
+                    String signature = SIGNATURE_INDEX.get(entryPath, entry.getSize(), lastModified);
+                    if (signature == null) {
+                        InputStream is = file.getInputStream(entry);
+                        try {
+                            signature = SignatureAlgorithm.getSignature(is, ScaScanner.ALGORITHM);
+                        } finally {
+                            is.close();
                         }
-                        JSONObject packageObj = new JSONObject();
-                        packageObj.put(ScaReport.KEY_SCA_PACKAGE_PATH, "jar:file:" + packagePath + "!/" + entryName);
-                        packageObj.put(ScaReport.KEY_SCA_PACKAGE_NAME, packageName);
-                        packageObj.put(ScaReport.KEY_SCA_PACKAGE_SIGNATURE, signature);
-                        packageObj.put(ScaReport.KEY_SCA_PACKAGE_ALGORITHM, ScaScanner.ALGORITHM);
-                        packages.put(packageObj);
+                        SIGNATURE_INDEX.put(entryPath, entry.getSize(), lastModified, signature);
                     }
+                    collect(entryPath, entryName, signature);
                 }
             } catch (Exception e) {
                 DongTaiLog.error(e.getMessage());
+            } finally {
+                if (file != null) {
+                    try {
+                        file.close();
+                    } catch (IOException ignore) {
+                    }
+                }
             }
         }
 
-        /**
-         * If this thread was constructed using a separate
-         * <code>Runnable</code> run object, then that
-         * <code>Runnable</code> object's <code>run</code> method is called;
-         * otherwise, this method does nothing and returns.
-         * <p>
-         * Subclasses of <code>Thread</code> should override this method.
-         *
-         * @see #start()
-         * @see #stop()
-         */
         @Override
         public void run() {
-            try {
-                switch (scaType) {
-                    case 1:
-                        scanWarLib(packagePath);
-                        break;
-                    case 2:
-                        scanJarLib(packagePath);
-                        break;
-                    case 3:
-                        scan(new File(packagePath));
-                        break;
-                    case 4:
-                        scanClassPath(packagePath);
-                        break;
-                    default:
-                        break;
-                }
-                ScaReport.sendReport(this.scaReport.toString());
-            } catch (Exception ignore) {
+            switch (scaType) {
+                case 1:
+                    scanWarLib(packagePath);
+                    break;
+                case 2:
+                    scanJarLib(packagePath);
+                    break;
+                case 3:
+                    new JarScanTask(new File(packagePath), packagePath).run();
+                    break;
+                case 4:
+                    scanClassPath(packagePath);
+                    break;
+                default:
+                    break;
             }
         }
     }
@@ -0,0 +1,124 @@
+package io.dongtai.iast.core.bytecode.sca;
+
+import io.dongtai.log.DongTaiLog;
+import org.apache.commons.io.IOUtils;
+
+import java.io.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 第三方组件签名索引，按 (路径, 大小, 修改时间) 记录已计算的签名，重启后未变化的 jar 不再重新计算
+ * <p>
+ * 索引文件每行一条记录："大小\t修改时间\t签名\t路径"，保存时先写临时文件再替换。未指定文件时仅在内存中缓存
+ */
+public class ScaSignatureIndex {
+    private static final String SEPARATOR = "\t";
+
+    private final File file;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+    private volatile boolean dirty;
+
+    private ScaSignatureIndex(File file) {
+        this.file = file;
+    }
+
+    /**
+     * @param file 索引文件，为 null 时不持久化
+     */
+    public static ScaSignatureIndex load(File file) {
+        ScaSignatureIndex index = new ScaSignatureIndex(file);
+        if (file == null || !file.isFile()) {
+            return index;
+        }
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(SEPARATOR, 4);
+                if (parts.length != 4) {
+                    continue;
+                }
+                try {
+                    index.entries.put(parts[3],
+                            new Entry(Long.parseLong(parts[0]), Long.parseLong(parts[1]), parts[2]));
+                } catch (NumberFormatException ignore) {
+                }
+            }
+        } catch (IOException e) {
+            DongTaiLog.debug("load sca signature index failed: {}", e.getMessage());
+        } finally {
+            IOUtils.closeQuietly(reader);
+        }
+        return index;
+    }
+
+    /**
+     * @return 路径、大小及修改时间都一致时返回已记录的签名，否则返回 null
+     */
+    public String get(String path, long size, long lastModified) {
+        Entry entry = this.entries.get(path);
+        if (entry == null || entry.size != size || entry.lastModified != lastModified) {
+            return null;
+        }
+        return entry.signature;
+    }
+
+    public void put(String path, long size, long lastModified, String signature) {
+        if (path == null || signature == null || path.contains("\n") || path.contains("\r")) {
+            return;
+        }
+        this.entries.put(path, new Entry(size, lastModified, signature));
+        this.dirty = true;
+    }
+
+    public int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * 有新增记录时写回索引文件
+     */
+    public synchronized void save() {
+        if (this.file == null || !this.dirty) {
+            return;
+        }
+        this.dirty = false;
+        File parent = this.file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            return;
+        }
+        File tmp = new File(this.file.getPath() + ".tmp");
+        Writer writer = null;
+        try {
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmp), "UTF-8"));
+            for (Map.Entry<String, Entry> item : this.entries.entrySet()) {
+                Entry entry = item.getValue();
+                writer.write(entry.size + SEPARATOR + entry.lastModified + SEPARATOR + entry.signature + SEPARATOR
+                        + item.getKey() + "\n");
+            }
+            writer.close();
+            writer = null;
+            if (!tmp.renameTo(this.file) && (!this.file.delete() || !tmp.renameTo(this.file))) {
+                DongTaiLog.debug("replace sca signature index {} failed", this.file);
+            }
+        } catch (IOException e) {
+            DongTaiLog.debug("save sca signature index failed: {}", e.getMessage());
+        } finally {
+            IOUtils.closeQuietly(writer);
+        }
+    }
+
+    private static class Entry {
+        private final long size;
+        private final long lastModified;
+        private final String signature;
+
+        private Entry(long size, long lastModified, String signature) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.signature = signature;
+        }
+    }
+}
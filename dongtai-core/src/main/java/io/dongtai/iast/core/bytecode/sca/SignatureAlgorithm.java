@@ -4,6 +4,8 @@ import io.dongtai.log.DongTaiLog;
 
 import java.io.*;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
@@ -13,12 +15,16 @@ import java.security.NoSuchAlgorithmException;
  * @author dongzhiyong@huoxian.cn
  */
 public class SignatureAlgorithm {
+    /**
+     * 读取缓冲区大小，jar 文件通常为几百 KB 到几十 MB，较大的缓冲区可减少系统调用次数
+     */
+    private static final int BUFFER_SIZE = 256 * 1024;
 
     public static String getSignature(InputStream is, String algorithm) {
         String signature = null;
         try {
             MessageDigest digest = MessageDigest.getInstance(algorithm);
-            byte[] buffer = new byte[1024];
+            byte[] buffer = new byte[BUFFER_SIZE];
 
             int len = 0;
             while ((len = is.read(buffer)) > 0) {
@@ -43,7 +49,18 @@ public class SignatureAlgorithm {
         FileInputStream in = null;
         try {
             in = new FileInputStream(file);
-            signature = getSignature(in, algorithm);
+            FileChannel channel = in.getChannel();
+            MessageDigest digest = MessageDigest.getInstance(algorithm);
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+            BigInteger bigInteger = new BigInteger(1, digest.digest());
+            signature = String.format("%040x", bigInteger);
+        } catch (NoSuchAlgorithmException e) {
+            DongTaiLog.error("calc jar signature error[NoSuchAlgorithmException], msg: %s{}", e);
         } catch (IOException e) {
             DongTaiLog.error("calc jar signature error[IOException], msg: %s{}", e);
         } finally {
@@ -1,23 +1,19 @@
 package io.dongtai.iast.core.handler.context;
 
 import io.dongtai.iast.core.EngineManager;
+import io.dongtai.iast.core.utils.threadlocal.RequestState;
 
 /**
  * @author owefsad
  */
 public class ContextManager {
 
-    private static ThreadLocal<TracingContext> CONTEXT = new ThreadLocal<TracingContext>();
-
-    public static ThreadLocal<TracingContext> getCONTEXT() {
-        return CONTEXT;
-    }
-
     private static TracingContext getOrCreate() {
-        TracingContext context = CONTEXT.get();
+        RequestState state = RequestState.get();
+        TracingContext context = state.getTracingContext();
         if (context == null) {
             context = new TracingContext();
-            CONTEXT.set(context);
+            state.setTracingContext(context);
         }
         return context;
     }
@@ -35,7 +31,7 @@ public class ContextManager {
     }
 
     public static String getSegmentId() {
-        TracingContext context = CONTEXT.get();
+        TracingContext context = RequestState.get().getTracingContext();
         if (context != null) {
             return context.createSegmentId();
         }
@@ -11,6 +11,7 @@ import io.dongtai.iast.core.handler.hookpoint.framework.grpc.GrpcHandler;
 import io.dongtai.iast.core.handler.hookpoint.graphy.GraphBuilder;
 import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
 import io.dongtai.iast.core.handler.hookpoint.models.policy.*;
+import io.dongtai.iast.core.utils.threadlocal.RequestState;
 import io.dongtai.log.DongTaiLog;
 
 import java.lang.dongtai.SpyDispatcher;
@@ -23,6 +24,8 @@ public class SpyDispatcherImpl implements SpyDispatcher {
 
     public static final AtomicInteger INVOKE_ID_SEQUENCER = new AtomicInteger(1);
 
+    private volatile PolicyManager policyManager;
+
     /**
      * mark for enter Http Entry Point
      *
@@ -380,12 +383,27 @@ public class SpyDispatcherImpl implements SpyDispatcher {
 
     @Override
     public boolean isReplayRequest() {
-        return EngineManager.ENTER_REPLAY_ENTRYPOINT.get();
+        return RequestState.get().isReplayEntry();
     }
 
     @Override
     public boolean isNotReplayRequest() {
-        return !EngineManager.ENTER_REPLAY_ENTRYPOINT.get();
+        return !RequestState.get().isReplayEntry();
+    }
+
+    @Override
+    public boolean isCollectAllowed(boolean isEnterEntry) {
+        try {
+            if (!isEnterEntry) {
+                if (!EngineManager.isEngineRunning() || !ScopeManager.SCOPE_TRACKER.inEnterEntry()
+                        || ScopeManager.SCOPE_TRACKER.inAgent()) {
+                    return false;
+                }
+            }
+            return !EngineManager.isHookPointFallback();
+        } catch (Throwable ignore) {
+            return false;
+        }
     }
 
     /**
@@ -428,35 +446,64 @@ public class SpyDispatcherImpl implements SpyDispatcher {
         }
     }
 
+    /**
+     * 策略节点未分配编号时织入的调用，按 methodMatcher 查找策略节点
+     */
     @Override
     public boolean collectMethod(Object instance, Object[] parameters, Object retObject, String methodMatcher,
                                  String className, String matchedClassName, String methodName, String signature,
                                  boolean isStatic) {
+        return collectMethod(instance, parameters, retObject, -1, methodMatcher,
+                className, matchedClassName, methodName, signature, isStatic);
+    }
+
+    @Override
+    public boolean collectMethod(Object instance, Object[] parameters, Object retObject, int policyNodeId,
+                                 String className, String matchedClassName, String methodName, String signature,
+                                 boolean isStatic) {
+        return collectMethod(instance, parameters, retObject, policyNodeId, null,
+                className, matchedClassName, methodName, signature, isStatic);
+    }
+
+    /**
+     * @param methodMatcher 不为 null 时按 methodMatcher 查找策略节点，否则按 policyNodeId 查找
+     */
+    private boolean collectMethod(Object instance, Object[] parameters, Object retObject, int policyNodeId,
+                                  String methodMatcher, String className, String matchedClassName, String methodName,
+                                  String signature, boolean isStatic) {
         try {
             ScopeManager.SCOPE_TRACKER.getPolicyScope().enterAgent();
-            PolicyNode policyNode = getPolicyNode(methodMatcher);
-            if (policyNode == null) {
+            Policy policy = getPolicy();
+            if (policy == null) {
                 return false;
             }
-
-            if (!isCollectAllowed(className, methodName, signature, policyNode.getType().getType(), false)) {
+            PolicyNode policyNode = methodMatcher == null
+                    ? policy.getPolicyNode(policyNodeId) : policy.getPolicyNode(methodMatcher);
+            if (policyNode == null
+                    || !isCollectAllowed(className, methodName, signature, policyNode.getType().getType(), false)) {
                 return false;
             }
 
-            MethodEvent event = new MethodEvent(0, -1, className, matchedClassName, methodName,
-                    signature, signature, instance, parameters, retObject, "", isStatic, null);
-
             if ((policyNode instanceof SourceNode) && PolicyNodeType.SOURCE.equals(policyNode.getType())) {
+                MethodEvent event = new MethodEvent(0, -1, className, matchedClassName, methodName,
+                        signature, signature, instance, parameters, retObject, "", isStatic, null);
                 SourceImpl.solveSource(event, (SourceNode) policyNode, INVOKE_ID_SEQUENCER);
                 return true;
             } else if ((policyNode instanceof PropagatorNode) && PolicyNodeType.PROPAGATOR.equals(policyNode.getType())) {
-                PropagatorImpl.solvePropagator(event, (PropagatorNode) policyNode, INVOKE_ID_SEQUENCER);
+                // 传播事件大多因参数未命中污点而被丢弃，从线程内事件池获取并在丢弃时回收
+                RequestState requestState = RequestState.get();
+                MethodEvent event = requestState.obtainMethodEvent(className, matchedClassName, methodName,
+                        signature, instance, parameters, retObject, isStatic);
+                if (!PropagatorImpl.solvePropagator(event, (PropagatorNode) policyNode, INVOKE_ID_SEQUENCER)) {
+                    requestState.recycleMethodEvent(event);
+                }
                 return true;
             } else if ((policyNode instanceof SinkNode) && PolicyNodeType.SINK.equals(policyNode.getType())) {
+                MethodEvent event = new MethodEvent(0, -1, className, matchedClassName, methodName,
+                        signature, signature, instance, parameters, retObject, "", isStatic, null);
                 SinkImpl.solveSink(event, (SinkNode) policyNode);
                 return true;
             }
-
             return false;
         } catch (Throwable e) {
             DongTaiLog.error("collect method failed", e);
@@ -488,17 +535,18 @@ public class SpyDispatcherImpl implements SpyDispatcher {
         return true;
     }
 
-    private PolicyNode getPolicyNode(String methodMatcher) {
-        AgentEngine agentEngine = AgentEngine.getInstance();
-        PolicyManager policyManager = agentEngine.getPolicyManager();
+    /**
+     * PolicyManager 在引擎安装后不再变化，缓存其引用；策略每次从 PolicyManager 读取，重新加载后即可生效
+     */
+    private Policy getPolicy() {
+        PolicyManager policyManager = this.policyManager;
         if (policyManager == null) {
-            return null;
-        }
-        Policy policy = policyManager.getPolicy();
-        if (policy == null) {
-            return null;
+            policyManager = AgentEngine.getInstance().getPolicyManager();
+            if (policyManager == null) {
+                return null;
+            }
+            this.policyManager = policyManager;
         }
-
-        return policy.getPolicyNode(methodMatcher);
+        return policyManager.getPolicy();
     }
 }
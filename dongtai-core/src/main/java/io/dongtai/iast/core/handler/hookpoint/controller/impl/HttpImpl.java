@@ -6,6 +6,7 @@ import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
 import io.dongtai.iast.core.utils.HttpClientUtils;
 import io.dongtai.iast.core.utils.PropertyUtils;
 import io.dongtai.iast.core.utils.matcher.ConfigMatcher;
+import io.dongtai.iast.core.utils.threadlocal.RequestState;
 import io.dongtai.log.DongTaiLog;
 
 import java.io.File;
@@ -51,10 +52,8 @@ public class HttpImpl {
                 if (CLASS_OF_SERVLET_PROXY == null) {
                     return;
                 }
-                cloneRequestMethod = CLASS_OF_SERVLET_PROXY
-                        .getDeclaredMethod("cloneRequest", Object.class, boolean.class);
-                cloneResponseMethod = CLASS_OF_SERVLET_PROXY
-                        .getDeclaredMethod("cloneResponse", Object.class, boolean.class);
+                cloneRequestMethod = getCloneMethod("cloneRequest");
+                cloneResponseMethod = getCloneMethod("cloneResponse");
             }
         } catch (MalformedURLException e) {
             DongTaiLog.error("HttpImpl createClassLoader failed", e);
@@ -69,14 +68,24 @@ public class HttpImpl {
                 if (CLASS_OF_SERVLET_PROXY == null) {
                     return;
                 }
-                cloneResponseMethod = CLASS_OF_SERVLET_PROXY
-                        .getDeclaredMethod("cloneResponse", Object.class, boolean.class);
+                cloneResponseMethod = getCloneMethod("cloneResponse");
             } catch (NoSuchMethodException e) {
                 DongTaiLog.error(e);
             }
         }
     }
 
+    /**
+     * 优先使用可限制请求体/响应体缓存长度的方法，兼容旧版本的 dongtai-api
+     */
+    private static Method getCloneMethod(String name) throws NoSuchMethodException {
+        try {
+            return CLASS_OF_SERVLET_PROXY.getDeclaredMethod(name, Object.class, boolean.class, int.class);
+        } catch (NoSuchMethodException e) {
+            return CLASS_OF_SERVLET_PROXY.getDeclaredMethod(name, Object.class, boolean.class);
+        }
+    }
+
     /**
      * @param req       request object
      * @param isJakarta Is it a jakarta api request object
@@ -90,6 +99,10 @@ public class HttpImpl {
             if (cloneRequestMethod == null) {
                 createClassLoader(req);
             }
+            if (cloneRequestMethod.getParameterTypes().length == 3) {
+                return cloneRequestMethod.invoke(null, req, isJakarta,
+                        PropertyUtils.getInstance().getRequestBodyMaxSize());
+            }
             return cloneRequestMethod.invoke(null, req, isJakarta);
         } catch (IllegalAccessException e) {
             return req;
@@ -118,6 +131,10 @@ public class HttpImpl {
             if (cloneResponseMethod == null) {
                 loadCloneResponseMethod();
             }
+            if (cloneResponseMethod.getParameterTypes().length == 3) {
+                return cloneResponseMethod.invoke(null, response, isJakarta,
+                        PropertyUtils.getInstance().getResponseLength());
+            }
             return cloneResponseMethod.invoke(null, response, isJakarta);
         } catch (IllegalAccessException e) {
             return response;
@@ -173,7 +190,7 @@ public class HttpImpl {
         REQUEST_META.set(getRequestMeta(event.argumentArray[0]));
         Boolean isReplay = (Boolean) REQUEST_META.get().get("replay-request");
         if (isReplay){
-            EngineManager.ENTER_REPLAY_ENTRYPOINT.enterEntry();
+            RequestState.get().enterReplayEntry();
         }
         // todo Consider increasing the capture of html request responses
         if (ConfigMatcher.getInstance().disableExtension((String) REQUEST_META.get().get("requestURI"))) {
@@ -7,6 +7,7 @@ import io.dongtai.iast.core.handler.hookpoint.models.policy.TaintPosition;
 import io.dongtai.iast.core.handler.hookpoint.vulscan.taintrange.*;
 import io.dongtai.iast.core.utils.StackUtils;
 import io.dongtai.iast.core.utils.TaintPoolUtils;
+import io.dongtai.iast.core.utils.collection.IntArraySet;
 
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -31,38 +32,42 @@ public class PropagatorImpl {
             "java.net.URL.<init>(java.lang.String,java.lang.String,int,java.lang.String,java.net.URLStreamHandler)"
     ));
 
-    public static void solvePropagator(MethodEvent event, PropagatorNode propagatorNode, AtomicInteger invokeIdSequencer) {
+    /**
+     * 处理传播节点
+     *
+     * @return 事件是否加入污点方法池；未加入的事件不再被引用，可由调用方回收复用
+     */
+    public static boolean solvePropagator(MethodEvent event, PropagatorNode propagatorNode, AtomicInteger invokeIdSequencer) {
         if (EngineManager.TAINT_HASH_CODES.isEmpty()) {
-            return;
+            return false;
         }
-        auxiliaryPropagator(event, propagatorNode, invokeIdSequencer);
-
+        return auxiliaryPropagator(event, propagatorNode, invokeIdSequencer);
     }
 
-    private static void addPropagator(PropagatorNode propagatorNode, MethodEvent event, AtomicInteger invokeIdSequencer) {
+    private static boolean addPropagator(PropagatorNode propagatorNode, MethodEvent event, AtomicInteger invokeIdSequencer) {
         // skip same source and target
         Set<TaintPosition> sources = propagatorNode.getSources();
         Set<TaintPosition> targets = propagatorNode.getTargets();
 
-        if (event.getSourceHashes().size() == event.getTargetHashes().size()
-                && event.getSourceHashes().equals(event.getTargetHashes())
+        if (IntArraySet.sameElements(event.getSourceHashes(), event.getTargetHashes())
                 && !(sources.size() == 1 && TaintPosition.hasObject(sources)
                 && targets.size() == 1 && TaintPosition.hasObject(targets))
         ) {
-            return;
+            return false;
         }
 
         event.source = false;
-        event.setCallStacks(StackUtils.createCallStack(6));
+        event.setCallStack(StackUtils.getHookCallSite());
         int invokeId = invokeIdSequencer.getAndIncrement();
         event.setInvokeId(invokeId);
         EngineManager.TRACK_MAP.get().put(invokeId, event);
+        return true;
     }
 
-    private static void auxiliaryPropagator(MethodEvent event, PropagatorNode propagatorNode, AtomicInteger invokeIdSequencer) {
+    private static boolean auxiliaryPropagator(MethodEvent event, PropagatorNode propagatorNode, AtomicInteger invokeIdSequencer) {
         Set<TaintPosition> sources = propagatorNode.getSources();
         if (sources.isEmpty() || propagatorNode.getTargets().isEmpty()) {
-            return;
+            return false;
         }
 
         List<Object> inValues = new ArrayList<Object>();
@@ -97,8 +102,9 @@ public class PropagatorImpl {
         if (!inValues.isEmpty()) {
             event.setInValue(inValues.toArray(), inValueStrings.toString());
             setTarget(propagatorNode, event);
-            addPropagator(propagatorNode, event, invokeIdSequencer);
+            return addPropagator(propagatorNode, event, invokeIdSequencer);
         }
+        return false;
     }
 
     private static void setTarget(PropagatorNode propagatorNode, MethodEvent event) {
@@ -226,7 +232,7 @@ public class PropagatorImpl {
         } else {
             tr = new TaintRanges(new TaintRange(0, TaintRangesBuilder.getLength(tgt)));
         }
-        event.targetRanges.add(new MethodEvent.MethodEventTargetRange(tgtHash, tr));
+        event.addTargetRange(tgtHash, tr);
         EngineManager.TAINT_RANGES_POOL.add(tgtHash, tr);
     }
 
@@ -13,6 +13,10 @@ import io.dongtai.iast.core.handler.hookpoint.vulscan.normal.*;
  * @author dongzhiyong@huoxian.cn
  */
 public class SinkImpl {
+    private static final CryptoWeakRandomnessVulScan CRYPTO_WEAK_RANDOMNESS_SCANNER = new CryptoWeakRandomnessVulScan();
+    private static final CryptoBadMacVulScan CRYPTO_BAD_MAC_SCANNER = new CryptoBadMacVulScan();
+    private static final CryptoBacCiphersVulScan CRYPTO_BAC_CIPHERS_SCANNER = new CryptoBacCiphersVulScan();
+    private static final CookieFlagsMissingVulScan COOKIE_FLAGS_MISSING_SCANNER = new CookieFlagsMissingVulScan();
 
     /**
      * 处理sink点的事件
@@ -26,13 +30,13 @@ public class SinkImpl {
 
         String vulType = sinkNode.getVulType();
         if (VulnType.CRYPTO_WEEK_RANDOMNESS.equals(vulType)) {
-            new CryptoWeakRandomnessVulScan().scan(event, sinkNode);
+            CRYPTO_WEAK_RANDOMNESS_SCANNER.scan(event, sinkNode);
         } else if (VulnType.CRYPTO_BAD_MAC.equals(vulType)) {
-            new CryptoBadMacVulScan().scan(event, sinkNode);
+            CRYPTO_BAD_MAC_SCANNER.scan(event, sinkNode);
         } else if (VulnType.CRYPTO_BAC_CIPHERS.equals(vulType)) {
-            new CryptoBacCiphersVulScan().scan(event, sinkNode);
+            CRYPTO_BAC_CIPHERS_SCANNER.scan(event, sinkNode);
         } else if (VulnType.COOKIE_FLAGS_MISSING.equals(vulType)) {
-            new CookieFlagsMissingVulScan().scan(event, sinkNode);
+            COOKIE_FLAGS_MISSING_SCANNER.scan(event, sinkNode);
         } else if (!EngineManager.TAINT_HASH_CODES.isEmpty()) {
             new DynamicPropagatorScanner().scan(event, sinkNode);
         }
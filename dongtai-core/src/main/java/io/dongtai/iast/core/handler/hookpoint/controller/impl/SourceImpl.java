@@ -4,14 +4,16 @@ import io.dongtai.iast.core.EngineManager;
 import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
 import io.dongtai.iast.core.handler.hookpoint.models.policy.SourceNode;
 import io.dongtai.iast.core.handler.hookpoint.vulscan.taintrange.*;
+import io.dongtai.iast.core.utils.GetterMethodCache;
+import io.dongtai.iast.core.utils.PropertyUtils;
 import io.dongtai.iast.core.utils.StackUtils;
 import io.dongtai.iast.core.utils.TaintPoolUtils;
 import io.dongtai.log.DongTaiLog;
 
 import java.lang.reflect.Array;
-import java.lang.reflect.Method;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 污点来源处理方法
@@ -27,6 +29,21 @@ public class SourceImpl {
     private static final String METHOD_OF_GETATTRIBUTE = "getAttribute";
     private static final String VALUES_ENUMERATOR = " org.apache.tomcat.util.http.ValuesEnumerator".substring(1);
     private static final String SPRING_OBJECT = " org.springframework.".substring(1);
+    private static final GetterMethodCache.Getter[] NO_GETTERS = new GetterMethodCache.Getter[0];
+    /**
+     * 每个类的可解析 getter，类名检查只在首次解析该类时进行
+     */
+    private static final ClassValue<GetterMethodCache.Getter[]> CUSTOM_MODEL_GETTERS =
+            new ClassValue<GetterMethodCache.Getter[]>() {
+                @Override
+                protected GetterMethodCache.Getter[] computeValue(Class<?> type) {
+                    return isCustomModelClass(type) ? GetterMethodCache.getGetters(type) : NO_GETTERS;
+                }
+            };
+    private static final int DEFAULT_MAX_NODES = 10000;
+    private static final int DEFAULT_MAX_BREADTH = 1000;
+    private static final AtomicLong NODE_LIMIT_HITS = new AtomicLong();
+    private static final AtomicLong BREADTH_LIMIT_HITS = new AtomicLong();
 
     public static void solveSource(MethodEvent event, SourceNode sourceNode, AtomicInteger invokeIdSequencer) {
         if (!TaintPoolUtils.isNotEmpty(event.returnValue)
@@ -36,7 +53,7 @@ public class SourceImpl {
         }
 
         event.source = true;
-        event.setCallStacks(StackUtils.createCallStack(4));
+        event.setCallStack(StackUtils.getHookCallSite());
 
         int invokeId = invokeIdSequencer.getAndIncrement();
         event.setInvokeId(invokeId);
@@ -49,20 +66,36 @@ public class SourceImpl {
     }
 
     private static void trackTarget(MethodEvent event) {
+        trackTarget(event, new TrackContext());
+    }
+
+    static void trackTarget(MethodEvent event, TrackContext context) {
         int length = TaintRangesBuilder.getLength(event.returnValue);
         if (length == 0) {
             return;
         }
 
-        trackObject(event, event.returnValue, 0);
+        trackObject(event, event.returnValue, 0, context);
         // @TODO: hook json serializer for custom model
-        handlerCustomModel(event);
+        handlerCustomModel(event, context);
+        logTruncated(event, context);
     }
 
-    private static void trackObject(MethodEvent event, Object obj, int depth) {
+    private static void logTruncated(MethodEvent event, TrackContext context) {
+        if (context.isNodeLimitHit() || context.isBreadthLimitHit()) {
+            DongTaiLog.debug("source {} tracking truncated, visited {} objects, node limit hit: {}, "
+                            + "breadth limit hit: {}", event.getMethodName(), context.getVisitedCount(),
+                    context.isNodeLimitHit(), context.isBreadthLimitHit());
+        }
+    }
+
+    private static void trackObject(MethodEvent event, Object obj, int depth, TrackContext context) {
         if (depth >= 10 || !TaintPoolUtils.isNotEmpty(obj) || !TaintPoolUtils.isAllowTaintType(obj)) {
             return;
         }
+        if (!context.visit(obj)) {
+            return;
+        }
 
         int hash = System.identityHashCode(obj);
         if (EngineManager.TAINT_HASH_CODES.contains(hash)) {
@@ -71,21 +104,27 @@ public class SourceImpl {
 
         Class<?> cls = obj.getClass();
         if (cls.isArray() && !cls.getComponentType().isPrimitive()) {
-            trackArray(event, obj, depth);
+            context.enterContainer(obj);
+            trackArray(event, obj, depth, context);
         } else if (obj instanceof Iterator) {
-            trackIterator(event, (Iterator<?>) obj, depth);
+            context.enterContainer(obj);
+            trackIterator(event, (Iterator<?>) obj, depth, context);
         } else if (obj instanceof Map) {
-            trackMap(event, (Map<?, ?>) obj, depth);
+            context.enterContainer(obj);
+            trackMap(event, (Map<?, ?>) obj, depth, context);
         } else if (obj instanceof Map.Entry) {
-            trackMapEntry(event, (Map.Entry<?, ?>) obj, depth);
+            context.enterContainer(obj);
+            trackMapEntry(event, (Map.Entry<?, ?>) obj, depth, context);
         } else if (obj instanceof Collection) {
+            context.enterContainer(obj);
             if (obj instanceof List) {
-                trackList(event, (List<?>) obj, depth);
+                trackList(event, (List<?>) obj, depth, context);
             } else {
-                trackIterator(event, ((Collection<?>) obj).iterator(), depth);
+                trackIterator(event, ((Collection<?>) obj).iterator(), depth, context);
             }
         } else if ("java.util.Optional".equals(obj.getClass().getName())) {
-            trackOptional(event, obj, depth);
+            context.enterContainer(obj);
+            trackOptional(event, obj, depth, context);
         } else {
             int len = TaintRangesBuilder.getLength(obj);
             if (len == 0) {
@@ -93,48 +132,56 @@ public class SourceImpl {
             }
 
             TaintRanges tr = new TaintRanges(new TaintRange(0, len));
-            event.targetRanges.add(new MethodEvent.MethodEventTargetRange(hash, tr));
+            event.addTargetRange(hash, tr);
             EngineManager.TAINT_HASH_CODES.add(hash);
             event.addTargetHash(hash);
             EngineManager.TAINT_RANGES_POOL.add(hash, tr);
         }
     }
 
-    private static void trackArray(MethodEvent event, Object arr, int depth) {
+    private static void trackArray(MethodEvent event, Object arr, int depth, TrackContext context) {
         int length = Array.getLength(arr);
-        for (int i = 0; i < length; i++) {
-            trackObject(event, Array.get(arr, i), depth);
+        for (int i = 0; i < length && context.allowElement(i); i++) {
+            trackObject(event, Array.get(arr, i), depth, context);
         }
     }
 
-    private static void trackIterator(MethodEvent event, Iterator<?> it, int depth) {
-        while (it.hasNext()) {
-            trackObject(event, it.next(), depth + 1);
+    private static void trackIterator(MethodEvent event, Iterator<?> it, int depth, TrackContext context) {
+        for (int i = 0; it.hasNext() && context.allowElement(i); i++) {
+            trackObject(event, it.next(), depth + 1, context);
         }
     }
 
-    private static void trackMap(MethodEvent event, Map<?, ?> map, int depth) {
-        for (Object key : map.keySet()) {
-            trackObject(event, key, depth);
-            trackObject(event, map.get(key), depth);
+    private static void trackMap(MethodEvent event, Map<?, ?> map, int depth, TrackContext context) {
+        int i = 0;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (!context.allowElement(i++)) {
+                break;
+            }
+            trackObject(event, entry.getKey(), depth, context);
+            trackObject(event, entry.getValue(), depth, context);
         }
     }
 
-    private static void trackMapEntry(MethodEvent event, Map.Entry<?, ?> entry, int depth) {
-        trackObject(event, entry.getKey(), depth + 1);
-        trackObject(event, entry.getValue(), depth + 1);
+    private static void trackMapEntry(MethodEvent event, Map.Entry<?, ?> entry, int depth, TrackContext context) {
+        trackObject(event, entry.getKey(), depth + 1, context);
+        trackObject(event, entry.getValue(), depth + 1, context);
     }
 
-    private static void trackList(MethodEvent event, List<?> list, int depth) {
+    private static void trackList(MethodEvent event, List<?> list, int depth, TrackContext context) {
+        int i = 0;
         for (Object obj : list) {
-            trackObject(event, obj, depth);
+            if (!context.allowElement(i++)) {
+                break;
+            }
+            trackObject(event, obj, depth, context);
         }
     }
 
-    private static void trackOptional(MethodEvent event, Object obj, int depth) {
+    private static void trackOptional(MethodEvent event, Object obj, int depth, TrackContext context) {
         try {
             Object v = ((Optional<?>) obj).orElse(null);
-            trackObject(event, v, depth);
+            trackObject(event, v, depth, context);
         } catch (Exception e) {
             DongTaiLog.warn("track optional object failed: " + e.getMessage());
         }
@@ -146,14 +193,121 @@ public class SourceImpl {
      * @param event MethodEvent
      */
     public static void handlerCustomModel(MethodEvent event) {
+        TrackContext context = new TrackContext();
+        handlerCustomModel(event, context);
+        logTruncated(event, context);
+    }
+
+    private static void handlerCustomModel(MethodEvent event, TrackContext context) {
         if (!event.getMethodName().equals("getSession")) {
-            Set<Object> modelValues = parseCustomModel(event.returnValue);
+            Set<Object> modelValues = parseCustomModel(event.returnValue, context);
             for (Object modelValue : modelValues) {
-                trackObject(event, modelValue, 0);
+                trackObject(event, modelValue, 0, context);
             }
         }
     }
 
+    /**
+     * @return 因遍历对象数达到上限而提前结束的次数，随心跳上报
+     */
+    public static long getNodeLimitHits() {
+        return NODE_LIMIT_HITS.get();
+    }
+
+    /**
+     * @return 因单个数组/集合/Map 元素数达到上限而截断的次数，随心跳上报
+     */
+    public static long getBreadthLimitHits() {
+        return BREADTH_LIMIT_HITS.get();
+    }
+
+    /**
+     * 单次污点来源处理的遍历状态：按对象标识记录已访问的对象，避免环状结构及共享对象重复遍历，
+     * 并限制遍历的对象总数和单个容器的元素数
+     * <p>
+     * 环只能经由容器形成，记录集合在首次进入容器时才创建，来源为单个字符串等常见情况下不分配
+     */
+    static class TrackContext {
+        private Set<Object> visited;
+        private final int maxNodes;
+        private final int maxBreadth;
+        private int visitedCount;
+        private boolean nodeLimitHit;
+        private boolean breadthLimitHit;
+
+        TrackContext() {
+            PropertyUtils cfg = PropertyUtils.getInstance();
+            this.maxNodes = cfg == null ? DEFAULT_MAX_NODES : cfg.getSourceTrackMaxNodes();
+            this.maxBreadth = cfg == null ? DEFAULT_MAX_BREADTH : cfg.getSourceTrackMaxBreadth();
+        }
+
+        TrackContext(int maxNodes, int maxBreadth) {
+            this.maxNodes = maxNodes;
+            this.maxBreadth = maxBreadth;
+        }
+
+        /**
+         * @return 首次访问且未达到对象总数上限时返回 true
+         */
+        boolean visit(Object obj) {
+            if (this.nodeLimitHit) {
+                return false;
+            }
+            if (this.maxNodes >= 0 && this.visitedCount >= this.maxNodes) {
+                this.nodeLimitHit = true;
+                NODE_LIMIT_HITS.incrementAndGet();
+                return false;
+            }
+            if (this.visited != null && !this.visited.add(obj)) {
+                return false;
+            }
+            this.visitedCount++;
+            return true;
+        }
+
+        /**
+         * 记录即将遍历的容器，此前访问的都是非容器对象，不会被再次遍历到
+         */
+        void enterContainer(Object container) {
+            if (this.visited == null) {
+                this.visited = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+            }
+            this.visited.add(container);
+        }
+
+        /**
+         * @param index 元素在容器中的序号
+         * @return 未达到单个容器元素数上限且未达到对象总数上限时返回 true
+         */
+        boolean allowElement(int index) {
+            if (this.nodeLimitHit) {
+                return false;
+            }
+            if (this.maxBreadth >= 0 && index >= this.maxBreadth) {
+                this.breadthLimitHit = true;
+                BREADTH_LIMIT_HITS.incrementAndGet();
+                return false;
+            }
+            return true;
+        }
+
+        int getVisitedCount() {
+            return this.visitedCount;
+        }
+
+        boolean isNodeLimitHit() {
+            return this.nodeLimitHit;
+        }
+
+        boolean isBreadthLimitHit() {
+            return this.breadthLimitHit;
+        }
+
+        boolean isVisitedSetAllocated() {
+            return this.visited != null;
+        }
+    }
+
     /**
      * fixme: 解析自定义对象中的可疑数据，当前只解析第一层，可能导致部分变异数据无法跟踪到，不考虑性能的情况下，可疑逐级遍历
      *
@@ -161,59 +315,77 @@ public class SourceImpl {
      * @return Set<Object>
      */
     public static Set<Object> parseCustomModel(Object model) {
-        try{
-            Set<Object> modelValues = new HashSet<Object>();
-            if (!TaintPoolUtils.isNotEmpty(model)) {
-                return modelValues;
-            }
-            Class<?> sourceClass = model.getClass();
-            if (sourceClass.getClassLoader() == null) {
-                return modelValues;
-            }
-            String className = sourceClass.getName();
-            if (className.startsWith("cn.huoxian.iast.api.") ||
-                    className.startsWith("io.dongtai.api.") ||
-                    className.startsWith(" org.apache.tomcat".substring(1)) ||
-                    className.startsWith(" org.apache.catalina".substring(1)) ||
-                    className.startsWith(" org.apache.shiro.web.servlet".substring(1)) ||
-                    VALUES_ENUMERATOR.equals(className) ||
-                    className.startsWith(SPRING_OBJECT) ||
-                    className.contains("RequestWrapper") ||
-                    className.contains("ResponseWrapper")
-
-            ) {
-                return modelValues;
-            }
-            // getter methods
-            Method[] methods = sourceClass.getMethods();
-            Object itemValue = null;
-            for (Method method : methods) {
-                if (!TaintPoolUtils.isAllowTaintGetterMethod(method)) {
+        return parseCustomModel(model, new TrackContext());
+    }
+
+    /**
+     * 解析自定义对象，与污点跟踪共用遍历状态，对象间的环及遍历规模受 context 限制
+     */
+    static Set<Object> parseCustomModel(Object model, TrackContext context) {
+        Set<Object> modelValues = new HashSet<Object>();
+        if (!TaintPoolUtils.isNotEmpty(model) || CUSTOM_MODEL_GETTERS.get(model.getClass()).length == 0) {
+            return modelValues;
+        }
+        try {
+            // 根对象可能已在污点跟踪中计数，只记录以终止经由 List 回到自身的环
+            context.enterContainer(model);
+            parseCustomModel(model, modelValues, context);
+        } catch (Exception e) {
+            return new HashSet<Object>();
+        }
+        return modelValues;
+    }
+
+    private static void parseCustomModel(Object model, Set<Object> modelValues, TrackContext context) {
+        // getter methods
+        Object itemValue = null;
+        for (GetterMethodCache.Getter getter : CUSTOM_MODEL_GETTERS.get(model.getClass())) {
+            try {
+                itemValue = getter.invoke(model);
+                if (!TaintPoolUtils.isNotEmpty(itemValue)) {
                     continue;
                 }
-
-                try {
-                    itemValue = method.invoke(model);
-                    if (!TaintPoolUtils.isNotEmpty(itemValue)) {
-                        continue;
-                    }
-                    modelValues.add(itemValue);
-                    if (itemValue instanceof List) {
-                        List<?> itemValueList = (List<?>) itemValue;
-                        for (Object listValue : itemValueList) {
-                            modelValues.addAll(parseCustomModel(listValue));
+                modelValues.add(itemValue);
+                if (itemValue instanceof List) {
+                    int i = 0;
+                    for (Object listValue : (List<?>) itemValue) {
+                        if (!context.allowElement(i++)) {
+                            break;
+                        }
+                        // 只记录可继续解析的自定义对象，字符串等元素留给后续的污点跟踪
+                        if (TaintPoolUtils.isNotEmpty(listValue)
+                                && CUSTOM_MODEL_GETTERS.get(listValue.getClass()).length > 0
+                                && context.visit(listValue)) {
+                            context.enterContainer(listValue);
+                            parseCustomModel(listValue, modelValues, context);
                         }
                     }
-                } catch (Exception e) {
-                    DongTaiLog.error(e);
                 }
+            } catch (Exception e) {
+                DongTaiLog.error(e);
             }
-            return modelValues;
-        }catch (Exception e){
-            return new HashSet<Object>();
         }
     }
 
+    /**
+     * 自定义对象中可解析的 getter，启动类加载器加载的类及容器、agent 自身的类不解析
+     */
+    private static boolean isCustomModelClass(Class<?> sourceClass) {
+        if (sourceClass.getClassLoader() == null) {
+            return false;
+        }
+        String className = sourceClass.getName();
+        return !(className.startsWith("cn.huoxian.iast.api.") ||
+                className.startsWith("io.dongtai.api.") ||
+                className.startsWith(" org.apache.tomcat".substring(1)) ||
+                className.startsWith(" org.apache.catalina".substring(1)) ||
+                className.startsWith(" org.apache.shiro.web.servlet".substring(1)) ||
+                VALUES_ENUMERATOR.equals(className) ||
+                className.startsWith(SPRING_OBJECT) ||
+                className.contains("RequestWrapper") ||
+                className.contains("ResponseWrapper"));
+    }
+
     private static boolean allowCall(MethodEvent event) {
         boolean allowed = true;
         if (METHOD_OF_GETATTRIBUTE.equals(event.getMethodName())) {
@@ -68,8 +68,8 @@ public class DubboHandler {
             EngineManager.REQUEST_CONTEXT.set(requestMeta);
         }
 
-        EngineManager.TRACK_MAP.set(new HashMap<Integer, MethodEvent>(1024));
-        EngineManager.TAINT_HASH_CODES.set(new HashSet<Integer>());
+        EngineManager.TRACK_MAP.enable();
+        EngineManager.TAINT_HASH_CODES.enable();
     }
 
     public static void solveDubbo(MethodEvent event, AtomicInteger invokeIdSequencer) {
@@ -95,7 +95,7 @@ public class DubboHandler {
             if (!validArguments.isEmpty()) {
                 Object[] verifiedArguments = validArguments.toArray();
                 event.source = true;
-                event.setCallStacks(StackUtils.createCallStack(5));
+                event.setCallStack(StackUtils.getHookCallSite());
 
                 int invokeId = invokeIdSequencer.getAndIncrement();
                 event.setInvokeId(invokeId);
@@ -211,7 +211,7 @@ public class DubboHandler {
         event.setServiceName("");
         // todo: 获取 traceId
         event.setTraceId(sharedTraceId.get());
-        event.setCallStack(StackUtils.getLatestStack(5));
+        event.setCallStack(StackUtils.getHookCallSite());
         Set<Object> resModelItems = SourceImpl.parseCustomModel(rpcResult);
         Set<Object> resModelSet = new HashSet<Object>();
         for (Object obj : resModelItems) {
@@ -266,7 +266,7 @@ public class DubboHandler {
                 event.setPlugin("DUBBO");
                 event.setServiceName("");
                 event.setProjectPropagatorClose(true);
-                event.setCallStack(StackUtils.getLatestStack(5));
+                event.setCallStack(StackUtils.getHookCallSite());
                 EngineManager.TRACK_MAP.addTrackMethod(invokeId, event);
             }
         }catch (Exception e){
@@ -125,8 +125,8 @@ public class GrpcHandler {
             requestMeta.put("requestURI", metadata.get("requestURI"));
             requestMeta.put("headers", metadata);
             EngineManager.REQUEST_CONTEXT.set(requestMeta);
-            EngineManager.TRACK_MAP.set(new HashMap<Integer, MethodEvent>(1024));
-            EngineManager.TAINT_HASH_CODES.set(new HashSet<Integer>());
+            EngineManager.TRACK_MAP.enable();
+            EngineManager.TAINT_HASH_CODES.enable();
             // @TODO: scope enter grpc
         } catch (Exception e) {
             DongTaiLog.error(e);
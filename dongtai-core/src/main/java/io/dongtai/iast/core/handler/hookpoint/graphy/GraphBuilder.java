@@ -1,5 +1,6 @@
 package io.dongtai.iast.core.handler.hookpoint.graphy;
 
+import com.google.gson.stream.JsonWriter;
 import io.dongtai.iast.common.constants.*;
 import io.dongtai.iast.common.scope.ScopeManager;
 import io.dongtai.iast.common.utils.base64.Base64Encoder;
@@ -10,10 +11,11 @@ import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
 import io.dongtai.iast.core.handler.hookpoint.vulscan.normal.AbstractNormalVulScan;
 import io.dongtai.iast.core.service.ThreadPools;
 import io.dongtai.iast.core.utils.PropertyUtils;
+import io.dongtai.iast.core.utils.collection.IntArraySet;
 import io.dongtai.log.DongTaiLog;
-import org.json.JSONArray;
-import org.json.JSONObject;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.*;
 
 /**
@@ -21,15 +23,38 @@ import java.util.*;
  */
 public class GraphBuilder {
 
+    /**
+     * 报告序列化缓冲区，按线程复用；超过该大小的缓冲区用完即释放
+     */
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+    private static final ThreadLocal<StringWriter> REPORT_BUFFER = new ThreadLocal<StringWriter>() {
+        @Override
+        protected StringWriter initialValue() {
+            return new StringWriter(8192);
+        }
+    };
+
     private static String URL;
     private static String URI;
 
+    /**
+     * 请求结束时在请求线程中只生成污点调用图快照，序列化交由后台线程完成
+     */
     public static void buildAndReport(Object request, Object response) {
         try {
             ScopeManager.SCOPE_TRACKER.getPolicyScope().enterAgent();
-            List<GraphNode> nodeList = build();
-            String report = convertToReport(nodeList, request, response);
-            ThreadPools.sendPriorityReport(ApiPath.REPORT_UPLOAD, report);
+            Map<Integer, MethodEvent> taintMethodPool = EngineManager.TRACK_MAP.get();
+            Map<String, Object> requestMeta = EngineManager.REQUEST_CONTEXT.get();
+            if (taintMethodPool == null || requestMeta == null) {
+                return;
+            }
+            ThreadPools.submitMethodPoolReport(MethodPoolReportTask.snapshot(
+                    EngineManager.getAgentId(),
+                    taintMethodPool,
+                    requestMeta,
+                    request == null ? "" : HttpImpl.getPostBody(request),
+                    response == null ? null : HttpImpl.getResponseMeta(response)));
         } catch (Exception e) {
             DongTaiLog.error("report request failed", e);
         } finally {
@@ -39,18 +64,17 @@ public class GraphBuilder {
 
     /**
      * 利用污点方法池，构造有序污点调用图 todo 方法内容未开发完成，先跑通流程，再详细补充
+     * <p>
+     * 需要在请求线程中调用：判断引用类型时会调用应用对象的 toString，节点中的集合均为事件的副本，构造后不再随事件变化
      *
      * @return 污点方法列表
      */
-    public static List<GraphNode> build() {
+    public static List<GraphNode> build(Collection<MethodEvent> taintMethodPool) {
         PropertyUtils properties = PropertyUtils.getInstance();
-        List<GraphNode> nodeList = new ArrayList<GraphNode>();
-        Map<Integer, MethodEvent> taintMethodPool = EngineManager.TRACK_MAP.get();
+        List<GraphNode> nodeList = new ArrayList<GraphNode>(taintMethodPool.size());
 
-        MethodEvent event = null;
-        for (Map.Entry<Integer, MethodEvent> entry : taintMethodPool.entrySet()) {
+        for (MethodEvent event : taintMethodPool) {
             try {
-                event = entry.getValue();
                 nodeList.add(
                         new GraphNode(
                                 event.isSource(),
@@ -58,28 +82,28 @@ public class GraphBuilder {
                                 event.getCallerClass(),
                                 event.getCallerMethod(),
                                 event.getCallerLine(),
-                                event.object != null ? IastClassDiagram
-                                        .getFamilyFromClass(event.object.getClass().getName().replace("\\.", "/")) : null,
+                                event.object != null ? IastClassDiagram.getFamilyFromClass(event.object.getClass())
+                                        : null,
                                 event.getMatchClassName(),
                                 event.getOriginClassName(),
                                 event.getMethodName(),
                                 event.getMethodDesc(),
                                 "",
                                 "",
-                                event.getSourceHashes(),
-                                event.getTargetHashes(),
+                                IntArraySet.copyOf(event.getSourceHashes()),
+                                IntArraySet.copyOf(event.getTargetHashes()),
                                 event.inValueString,
                                 properties.isLocal() && event.objIsReference(event.inValue),
                                 event.outValueString,
                                 properties.isLocal() && event.objIsReference(event.outValue),
-                                event.getSourceHashForRpc(),
-                                event.getTargetHashForRpc(),
+                                IntArraySet.copyOf(event.getSourceHashForRpc()),
+                                IntArraySet.copyOf(event.getTargetHashForRpc()),
                                 event.getTraceId(),
                                 event.getServiceName(),
                                 event.getPlugin(),
                                 event.getProjectPropagatorClose(),
-                                event.targetRanges,
-                                event.sourceTypes
+                                copyOf(event.getTargetRanges()),
+                                event.sourceTypes == null ? null : copyOf(event.sourceTypes)
                         )
                 );
             } catch (Exception e) {
@@ -89,63 +113,92 @@ public class GraphBuilder {
         return nodeList;
     }
 
-    public static String convertToReport(List<GraphNode> nodeList, Object request, Object response) {
-        Map<String, Object> requestMeta = EngineManager.REQUEST_CONTEXT.get();
-        Map<String, Object> responseMeta = response == null ? null : HttpImpl.getResponseMeta(response);
-        JSONObject report = new JSONObject();
-        JSONObject detail = new JSONObject();
-        JSONArray methodPool = new JSONArray();
-
-        report.put(ReportKey.TYPE, ReportType.VULN_SAAS_POOL);
-        report.put(ReportKey.VERSION, "v2");
-        report.put(ReportKey.DETAIL, detail);
-
-        detail.put(ReportKey.AGENT_ID, EngineManager.getAgentId());
-        detail.put(ReportKey.PROTOCOL, requestMeta.getOrDefault("protocol", "unknown"));
-        detail.put(ReportKey.SCHEME, requestMeta.getOrDefault("scheme", ""));
-        detail.put(ReportKey.METHOD, requestMeta.getOrDefault("method", ""));
-        detail.put(ReportKey.SECURE, requestMeta.getOrDefault("secure", ""));
+    private static <T> List<T> copyOf(List<T> list) {
+        return list.isEmpty() ? Collections.<T>emptyList() : Collections.unmodifiableList(new ArrayList<T>(list));
+    }
+
+    /**
+     * 将请求信息与污点方法池流式写入线程内复用的缓冲区，字段与 v2 版本的 org.json 报告保持一致
+     */
+    public static String convertToReport(Integer agentId, Map<String, Object> requestMeta, String requestBody,
+                                         Map<String, Object> responseMeta, List<GraphNode> nodeList) throws IOException {
         String requestURL = requestMeta.getOrDefault("requestURL", "").toString();
-        if (null == requestURL) {
-            return null;
-        }
-        detail.put(ReportKey.URL, requestURL);
         String requestURI = requestMeta.getOrDefault("requestURI", "").toString();
-        if (null == requestURI) {
-            return null;
-        }
-        detail.put(ReportKey.URI, requestURI);
         setURL(requestURL);
         setURI(requestURI);
-        detail.put(ReportKey.CLIENT_IP, requestMeta.getOrDefault("remoteAddr", ""));
-        detail.put(ReportKey.QUERY_STRING, requestMeta.getOrDefault("queryString", ""));
-        detail.put(ReportKey.REQ_HEADER,
+
+        StringWriter buffer = REPORT_BUFFER.get();
+        buffer.getBuffer().setLength(0);
+        JsonWriter writer = new JsonWriter(buffer);
+        // 与 org.json 的 put(key, null) 行为一致，忽略值为 null 的字段
+        writer.setSerializeNulls(false);
+
+        writer.beginObject();
+        writer.name(ReportKey.TYPE).value(ReportType.VULN_SAAS_POOL);
+        writer.name(ReportKey.VERSION).value("v2");
+        writer.name(ReportKey.DETAIL).beginObject();
+
+        writer.name(ReportKey.AGENT_ID).value(agentId);
+        writeValue(writer.name(ReportKey.PROTOCOL), requestMeta.getOrDefault("protocol", "unknown"));
+        writeValue(writer.name(ReportKey.SCHEME), requestMeta.getOrDefault("scheme", ""));
+        writeValue(writer.name(ReportKey.METHOD), requestMeta.getOrDefault("method", ""));
+        writeValue(writer.name(ReportKey.SECURE), requestMeta.getOrDefault("secure", ""));
+        writer.name(ReportKey.URL).value(requestURL);
+        writer.name(ReportKey.URI).value(requestURI);
+        writeValue(writer.name(ReportKey.CLIENT_IP), requestMeta.getOrDefault("remoteAddr", ""));
+        writeValue(writer.name(ReportKey.QUERY_STRING), requestMeta.getOrDefault("queryString", ""));
+        writer.name(ReportKey.REQ_HEADER).value(
                 AbstractNormalVulScan.getEncodedHeader((Map<String, String>) requestMeta.getOrDefault("headers", new HashMap<String, String>())));
         // 设置请求体
-        detail.put(ReportKey.REQ_BODY, request == null ? "" : HttpImpl.getPostBody(request));
-        detail.put(ReportKey.RES_HEADER, responseMeta == null ? ""
+        writer.name(ReportKey.REQ_BODY).value(requestBody);
+        writer.name(ReportKey.RES_HEADER).value(responseMeta == null ? ""
                 : Base64Encoder.encodeBase64String(responseMeta.getOrDefault("headers", "").toString().getBytes())
                 .replaceAll("\n", ""));
-        detail.put(ReportKey.RES_BODY, responseMeta == null ? "" : Base64Encoder.encodeBase64String(
+        writer.name(ReportKey.RES_BODY).value(responseMeta == null ? "" : Base64Encoder.encodeBase64String(
                 getResponseBody(responseMeta)));
-        detail.put(ReportKey.CONTEXT_PATH, requestMeta.getOrDefault("contextPath", ""));
-        detail.put(ReportKey.REPLAY_REQUEST, requestMeta.getOrDefault("replay-request", false));
-
-        detail.put(ReportKey.METHOD_POOL, methodPool);
+        writeValue(writer.name(ReportKey.CONTEXT_PATH), requestMeta.getOrDefault("contextPath", ""));
+        writeValue(writer.name(ReportKey.REPLAY_REQUEST), requestMeta.getOrDefault("replay-request", false));
 
+        writer.name(ReportKey.METHOD_POOL).beginArray();
         for (GraphNode node : nodeList) {
-            methodPool.put(node.toJson());
+            node.writeTo(writer);
+        }
+        writer.endArray();
+
+        writer.endObject();
+        writer.endObject();
+        writer.flush();
+
+        String report = buffer.toString();
+        if (buffer.getBuffer().capacity() > MAX_RETAINED_BUFFER_SIZE) {
+            REPORT_BUFFER.remove();
+        }
+        return report;
+    }
+
+    /**
+     * 按 org.json 的规则写出请求元数据中的任意值
+     */
+    private static void writeValue(JsonWriter writer, Object value) throws IOException {
+        if (value == null) {
+            writer.nullValue();
+        } else if (value instanceof Boolean) {
+            writer.value((Boolean) value);
+        } else if (value instanceof Number) {
+            writer.value((Number) value);
+        } else {
+            writer.value(value.toString());
         }
-        return report.toString();
     }
 
     private static byte[] getResponseBody(Map<String, Object> responseMeta) {
         Integer responseLength = PropertyUtils.getInstance().getResponseLength();
-        byte[] responseBody = (byte[]) responseMeta.getOrDefault("body", "");
+        byte[] responseBody = (byte[]) responseMeta.getOrDefault("body", new byte[0]);
         if (responseLength > 0) {
-            byte[] newResponseBody = new byte[responseLength];
-            newResponseBody = Arrays.copyOfRange(responseBody, 0, responseLength);
-            return newResponseBody;
+            if (responseBody.length <= responseLength) {
+                return responseBody;
+            }
+            return Arrays.copyOfRange(responseBody, 0, responseLength);
         } else if (responseLength == 0) {
             return new byte[0];
         } else {
@@ -1,9 +1,11 @@
 package io.dongtai.iast.core.handler.hookpoint.graphy;
 
+import com.google.gson.stream.JsonWriter;
 import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
-import org.json.JSONArray;
-import org.json.JSONObject;
+import io.dongtai.iast.core.utils.collection.IntArraySet;
+import io.dongtai.iast.core.utils.json.JsonWritable;
 
+import java.io.IOException;
 import java.util.*;
 
 /**
@@ -11,7 +13,7 @@ import java.util.*;
  *
  * @author dongzhiyong@huoxian.cn
  */
-public class GraphNode {
+public class GraphNode implements JsonWritable {
     /**
      * 标记是否为source方法
      */
@@ -91,32 +93,32 @@ public class GraphNode {
     /**
      * 来源污点hash
      */
-    private final Set<Integer> sourceHash;
+    private final IntArraySet sourceHash;
     /**
      * 输出污点hash
      */
-    private final Set<Integer> targetHash;
+    private final IntArraySet targetHash;
 
     /**
      * 增加一组hashcode，用于处理rpc请求中，污点断链的情况
      *
      * @issue: http://
      */
-    private final Set<Integer> sourceHashForRpc;
+    private final IntArraySet sourceHashForRpc;
 
     /**
      * 增加一组hashcode，用于处理rpc请求中，污点断链的情况
      *
      * @issue: http://
      */
-    private final Set<Integer> targetHashForRpc;
+    private final IntArraySet targetHashForRpc;
 
     private final String traceId;
     private final String serviceName;
     private final String plugin;
     private final Boolean projectPropagatorClose;
 
-    private List<MethodEvent.MethodEventTargetRange> targetRanges = new ArrayList<MethodEvent.MethodEventTargetRange>();
+    private final List<MethodEvent.MethodEventTargetRange> targetRanges;
 
     public List<MethodEvent.MethodEventSourceType> sourceTypes;
 
@@ -132,14 +134,14 @@ public class GraphNode {
                      String signature,
                      String args,
                      String retClassName,
-                     Set<Integer> sourceHash,
-                     Set<Integer> targetHash,
+                     IntArraySet sourceHash,
+                     IntArraySet targetHash,
                      String sourceValues,
                      boolean sourceIsReference,
                      String targetValues,
                      boolean targetIsReference,
-                     Set<Integer> sourceHashForRpc,
-                     Set<Integer> targetHashForRpc,
+                     IntArraySet sourceHashForRpc,
+                     IntArraySet targetHashForRpc,
                      String traceId,
                      String serviceName,
                      String plugin,
@@ -175,76 +177,70 @@ public class GraphNode {
         this.sourceTypes = sourceTypes;
     }
 
-    public JSONObject toJson() {
-        JSONObject value = new JSONObject();
-        JSONArray interfaceArray = new JSONArray();
-        JSONArray sourceHashArray = new JSONArray();
-        JSONArray targetHashArray = new JSONArray();
-        JSONArray sourceHashForRpcArray = new JSONArray();
-        JSONArray targetHashForRpcArray = new JSONArray();
-
-        value.put("source", isSource);
-        value.put("invokeId", invokeId);
-        value.put("callerClass", callerClass);
-        value.put("callerMethod", callerMethod);
-        value.put("callerLineNumber", callerLineNumber);
-        value.put("interfaces", interfaceArray);
-        value.put("originClassName", originClassName);
-        value.put("className", matchClassName);
-        value.put("methodName", methodName);
-        value.put("signature", signature);
-        value.put("args", args);
-        value.put("retClassName", retClassName);
-        value.put("sourceHash", sourceHashArray);
-        value.put("sourceValues", sourceValues);
-        value.put("sourceIsReference",sourceIsReference);
-        value.put("targetHash", targetHashArray);
-        value.put("targetIsReference", targetIsReference);
-        value.put("targetValues", targetValues);
-        value.put("sourceHashForRpc", sourceHashForRpcArray);
-        value.put("targetHashForRpc", targetHashForRpcArray);
-        value.put("traceId", traceId);
-        value.put("serviceName", serviceName);
-        value.put("plugin", plugin);
-        value.put("projectPropagatorClose", projectPropagatorClose);
-
-
+    /**
+     * 流式写出节点，字段与 v2 版本 org.json 生成的节点一致
+     */
+    @Override
+    public void writeTo(JsonWriter writer) throws IOException {
+        writer.beginObject();
+        writer.name("source").value(isSource);
+        writer.name("invokeId").value(invokeId);
+        writer.name("callerClass").value(callerClass);
+        writer.name("callerMethod").value(callerMethod);
+        writer.name("callerLineNumber").value(callerLineNumber);
+        writer.name("interfaces").beginArray();
         if (interfaceNames != null) {
             for (String interfaceName : interfaceNames) {
-                interfaceArray.put(interfaceName);
+                writer.value(interfaceName);
             }
         }
-
-        for (Integer hash : sourceHash) {
-            sourceHashArray.put(hash);
-        }
-
-        for (Integer hash : targetHash) {
-            targetHashArray.put(hash);
-        }
-
-        for (Integer hash : this.sourceHashForRpc) {
-            sourceHashForRpcArray.put(hash);
-        }
-
-        for (Integer hash : this.targetHashForRpc) {
-            targetHashForRpcArray.put(hash);
-        }
-
-        JSONArray tr = new JSONArray();
-        value.put("targetRange", tr);
+        writer.endArray();
+        writer.name("originClassName").value(originClassName);
+        writer.name("className").value(matchClassName);
+        writer.name("methodName").value(methodName);
+        writer.name("signature").value(signature);
+        writer.name("args").value(args);
+        writer.name("retClassName").value(retClassName);
+        writer.name("sourceHash");
+        writeHashes(writer, this.sourceHash);
+        writer.name("sourceValues").value(sourceValues);
+        writer.name("sourceIsReference").value(sourceIsReference);
+        writer.name("targetHash");
+        writeHashes(writer, this.targetHash);
+        writer.name("targetIsReference").value(targetIsReference);
+        writer.name("targetValues").value(targetValues);
+        writer.name("sourceHashForRpc");
+        writeHashes(writer, this.sourceHashForRpc);
+        writer.name("targetHashForRpc");
+        writeHashes(writer, this.targetHashForRpc);
+        writer.name("traceId").value(traceId);
+        writer.name("serviceName").value(serviceName);
+        writer.name("plugin").value(plugin);
+        writer.name("projectPropagatorClose").value(projectPropagatorClose);
+
+        writer.name("targetRange").beginArray();
         for (MethodEvent.MethodEventTargetRange range : targetRanges) {
-            tr.put(range.toJson());
+            range.writeTo(writer);
         }
+        writer.endArray();
 
         if (sourceTypes != null && sourceTypes.size() > 0) {
-            JSONArray st = new JSONArray();
-            value.put("sourceType", st);
+            writer.name("sourceType").beginArray();
             for (MethodEvent.MethodEventSourceType s : sourceTypes) {
-                st.put(s.toJson());
+                s.writeTo(writer);
             }
+            writer.endArray();
         }
+        writer.endObject();
+    }
 
-        return value;
+    private static void writeHashes(JsonWriter writer, IntArraySet hashes) throws IOException {
+        writer.beginArray();
+        if (hashes != null) {
+            for (int i = 0; i < hashes.size(); i++) {
+                writer.value(hashes.get(i));
+            }
+        }
+        writer.endArray();
     }
 }
@@ -0,0 +1,64 @@
+package io.dongtai.iast.core.handler.hookpoint.graphy;
+
+import io.dongtai.iast.common.constants.ApiPath;
+import io.dongtai.iast.common.scope.ScopeManager;
+import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
+import io.dongtai.iast.core.service.ThreadPools;
+import io.dongtai.log.DongTaiLog;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * 污点方法池上报任务，持有请求结束时构建的污点调用图快照，在后台线程中序列化上报
+ */
+public class MethodPoolReportTask implements Runnable {
+    private final Integer agentId;
+    private final List<GraphNode> nodeList;
+    private final Map<String, Object> requestMeta;
+    private final String requestBody;
+    private final Map<String, Object> responseMeta;
+
+    private MethodPoolReportTask(Integer agentId, List<GraphNode> nodeList, Map<String, Object> requestMeta,
+                                 String requestBody, Map<String, Object> responseMeta) {
+        this.agentId = agentId;
+        this.nodeList = nodeList;
+        this.requestMeta = requestMeta;
+        this.requestBody = requestBody;
+        this.responseMeta = responseMeta;
+    }
+
+    /**
+     * 在请求线程中由污点方法池构建调用图，并复制请求、响应信息；涉及应用对象的计算均在此完成，
+     * 后台线程只读取不可变的快照，请求结束后线程状态被重置也不影响快照
+     */
+    public static MethodPoolReportTask snapshot(Integer agentId, Map<Integer, MethodEvent> trackMap,
+                                                Map<String, Object> requestMeta, String requestBody,
+                                                Map<String, Object> responseMeta) {
+        return new MethodPoolReportTask(agentId,
+                Collections.unmodifiableList(GraphBuilder.build(trackMap.values())),
+                new HashMap<String, Object>(requestMeta),
+                requestBody,
+                responseMeta == null ? null : new HashMap<String, Object>(responseMeta));
+    }
+
+    String buildReport() throws IOException {
+        return GraphBuilder.convertToReport(this.agentId, this.requestMeta, this.requestBody, this.responseMeta,
+                this.nodeList);
+    }
+
+    @Override
+    public void run() {
+        try {
+            ScopeManager.SCOPE_TRACKER.getPolicyScope().enterAgent();
+            String report = buildReport();
+            if (report != null) {
+                ThreadPools.sendPriorityReport(ApiPath.REPORT_UPLOAD, report);
+            }
+        } catch (Exception e) {
+            DongTaiLog.error("report request failed", e);
+        } finally {
+            ScopeManager.SCOPE_TRACKER.getPolicyScope().leaveAgent();
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package io.dongtai.iast.core.handler.hookpoint.models;
 
+import com.google.gson.stream.JsonWriter;
 import io.dongtai.iast.core.handler.hookpoint.vulscan.taintrange.TaintRanges;
+import io.dongtai.iast.core.utils.collection.IntArraySet;
 import io.dongtai.iast.core.utils.PropertyUtils;
+import io.dongtai.iast.core.utils.json.JsonWritable;
 import io.dongtai.log.DongTaiLog;
-import org.json.JSONObject;
 
+import java.io.IOException;
 import java.io.StringWriter;
 import java.util.*;
 
@@ -18,7 +21,7 @@ public class MethodEvent {
     /**
      * 调用过程ID
      */
-    private final int processId;
+    private int processId;
 
     public int getInvokeId() {
         return invokeId;
@@ -29,13 +32,13 @@ public class MethodEvent {
      */
     private int invokeId;
 
-    private final boolean isStatic;
+    private boolean isStatic;
 
     public String getOriginClassName() {
         return originClassName;
     }
 
-    private final String originClassName;
+    private String originClassName;
 
     public String getMatchClassName() {
         return matchClassName;
@@ -44,7 +47,7 @@ public class MethodEvent {
     /**
      * 获取触发调用事件的类名称
      */
-    private final String matchClassName;
+    private String matchClassName;
 
     public String getMethodName() {
         return methodName;
@@ -53,7 +56,7 @@ public class MethodEvent {
     /**
      * 获取触发调用事件的方法名称
      */
-    private final String methodName;
+    private String methodName;
 
     public String getMethodDesc() {
         return methodDesc;
@@ -62,17 +65,17 @@ public class MethodEvent {
     /**
      * 获取触发调用事件的方法签名
      */
-    private final String methodDesc;
+    private String methodDesc;
 
     /**
      * 获取触发调用事件的对象
      */
-    public final Object object;
+    public Object object;
 
     /**
      * 获取触发调用事件的方法参数
      */
-    public final Object[] argumentArray;
+    public Object[] argumentArray;
 
     /**
      * 构造方法返回值
@@ -86,44 +89,59 @@ public class MethodEvent {
 
     public String inValueString = "";
 
-    public Set<Integer> getSourceHashes() {
-        return sourceHashes;
+    /**
+     * 污点 hash 集合按需创建，大部分传播事件因参数未命中污点而被丢弃，不必预先分配；未添加过时返回不可修改的空集合
+     */
+    public IntArraySet getSourceHashes() {
+        return sourceHashes == null ? IntArraySet.emptySet() : sourceHashes;
     }
 
-    private final Set<Integer> sourceHashes = new HashSet<Integer>();
+    private IntArraySet sourceHashes;
 
 
-    public Set<Integer> getSourceHashForRpc() {
-        return sourceHashForRpc;
+    public IntArraySet getSourceHashForRpc() {
+        return sourceHashForRpc == null ? IntArraySet.emptySet() : sourceHashForRpc;
     }
 
-    private final Set<Integer> sourceHashForRpc = new HashSet<Integer>();
+    private IntArraySet sourceHashForRpc;
 
-    public Set<Integer> getTargetHashes() {
-        return targetHashes;
+    public IntArraySet getTargetHashes() {
+        return targetHashes == null ? IntArraySet.emptySet() : targetHashes;
     }
 
-    private final Set<Integer> targetHashes = new HashSet<Integer>();
+    private IntArraySet targetHashes;
 
-    public Set<Integer> getTargetHashForRpc() {
-        return targetHashForRpc;
+    public IntArraySet getTargetHashForRpc() {
+        return targetHashForRpc == null ? IntArraySet.emptySet() : targetHashForRpc;
     }
 
-    private final Set<Integer> targetHashForRpc = new HashSet<Integer>();
+    private IntArraySet targetHashForRpc;
 
     public void addSourceHash(int hashcode) {
+        if (this.sourceHashes == null) {
+            this.sourceHashes = new IntArraySet();
+        }
         this.sourceHashes.add(hashcode);
     }
 
     public void addSourceHashForRpc(int hash) {
+        if (this.sourceHashForRpc == null) {
+            this.sourceHashForRpc = new IntArraySet();
+        }
         this.sourceHashForRpc.add(hash);
     }
 
     public void addTargetHash(int hashCode) {
+        if (this.targetHashes == null) {
+            this.targetHashes = new IntArraySet();
+        }
         this.targetHashes.add(hashCode);
     }
 
     public void addTargetHashForRpc(int hash) {
+        if (this.targetHashForRpc == null) {
+            this.targetHashForRpc = new IntArraySet();
+        }
         this.targetHashForRpc.add(hash);
     }
 
@@ -205,11 +223,25 @@ public class MethodEvent {
 
     public Boolean projectPropagatorClose = false;
 
-    public List<MethodEventTargetRange> targetRanges = new ArrayList<MethodEventTargetRange>();
+    private List<MethodEventTargetRange> targetRanges;
+
+    public List<MethodEventTargetRange> getTargetRanges() {
+        if (targetRanges == null) {
+            return Collections.emptyList();
+        }
+        return targetRanges;
+    }
+
+    public void addTargetRange(int hash, TaintRanges ranges) {
+        if (this.targetRanges == null) {
+            this.targetRanges = new ArrayList<MethodEventTargetRange>();
+        }
+        this.targetRanges.add(new MethodEventTargetRange(hash, ranges));
+    }
 
     public List<MethodEventSourceType> sourceTypes;
 
-    public static class MethodEventSourceType {
+    public static class MethodEventSourceType implements JsonWritable {
         private final Integer hash;
         private final String type;
 
@@ -218,28 +250,31 @@ public class MethodEvent {
             this.type = type;
         }
 
-        public JSONObject toJson() {
-            JSONObject json = new JSONObject();
-            json.put("hash", this.hash);
-            json.put("type", this.type);
-            return json;
+        @Override
+        public void writeTo(JsonWriter writer) throws IOException {
+            writer.beginObject();
+            writer.name("hash").value(this.hash);
+            writer.name("type").value(this.type);
+            writer.endObject();
         }
     }
 
-    public static class MethodEventTargetRange {
-        private final Integer hash;
+    public static class MethodEventTargetRange implements JsonWritable {
+        private final int hash;
         private final TaintRanges ranges;
 
-        public MethodEventTargetRange(Integer hash, TaintRanges ranges) {
+        public MethodEventTargetRange(int hash, TaintRanges ranges) {
             this.hash = hash;
             this.ranges = ranges;
         }
 
-        public JSONObject toJson() {
-            JSONObject json = new JSONObject();
-            json.put("hash", this.hash);
-            json.put("ranges", this.ranges.toJson());
-            return json;
+        @Override
+        public void writeTo(JsonWriter writer) throws IOException {
+            writer.beginObject();
+            writer.name("hash").value(this.hash);
+            writer.name("ranges");
+            this.ranges.writeTo(writer);
+            writer.endObject();
         }
     }
 
@@ -268,6 +303,26 @@ public class MethodEvent {
                        final String framework,
                        final boolean isStatic,
                        final StackTraceElement[] callStack) {
+        init(processId, invokeId, originClassName, matchClassName, methodName, methodDesc, signature,
+                object, argumentArray, returnValue, framework, isStatic, callStack);
+    }
+
+    /**
+     * 重新初始化事件，供线程内事件池复用已回收的对象，参数含义同构造方法
+     */
+    public void init(final int processId,
+                     final int invokeId,
+                     final String originClassName,
+                     final String matchClassName,
+                     final String methodName,
+                     final String methodDesc,
+                     final String signature,
+                     final Object object,
+                     final Object[] argumentArray,
+                     final Object returnValue,
+                     final String framework,
+                     final boolean isStatic,
+                     final StackTraceElement[] callStack) {
         this.processId = processId;
         this.invokeId = invokeId;
         this.matchClassName = matchClassName;
@@ -287,6 +342,42 @@ public class MethodEvent {
         this.framework = framework;
     }
 
+    /**
+     * 释放事件持有的对象引用并清空污点信息，已分配的 hash 集合保留复用
+     */
+    public void recycle() {
+        this.object = null;
+        this.argumentArray = null;
+        this.returnValue = null;
+        this.inValue = null;
+        this.inValueString = "";
+        this.outValue = null;
+        this.outValueString = "";
+        if (this.sourceHashes != null) {
+            this.sourceHashes.clear();
+        }
+        if (this.sourceHashForRpc != null) {
+            this.sourceHashForRpc.clear();
+        }
+        if (this.targetHashes != null) {
+            this.targetHashes.clear();
+        }
+        if (this.targetHashForRpc != null) {
+            this.targetHashForRpc.clear();
+        }
+        if (this.targetRanges != null) {
+            this.targetRanges.clear();
+        }
+        this.sourceTypes = null;
+        this.subEvent = null;
+        this.callStacks = null;
+        this.callStack = null;
+        this.traceId = null;
+        this.serviceName = null;
+        this.plugin = null;
+        this.projectPropagatorClose = false;
+    }
+
     /**
      * 改变方法入参
      *
@@ -1,5 +1,7 @@
 package io.dongtai.iast.core.handler.hookpoint.models.policy;
 
+import io.dongtai.iast.core.bytecode.enhance.MethodContext;
+
 import java.util.*;
 
 public class Policy {
@@ -7,8 +9,17 @@ public class Policy {
     private final List<PropagatorNode> propagators = new ArrayList<PropagatorNode>();
     private final List<SinkNode> sinks = new ArrayList<SinkNode>();
     private final Map<String, PolicyNode> policyNodesMap = new HashMap<String, PolicyNode>();
+    private final List<PolicyNode> policyNodes = new ArrayList<PolicyNode>();
     private final Set<String> classHooks = new HashSet<String>();
     private final Set<String> ancestorClassHooks = new HashSet<String>();
+    /**
+     * 按 "匹配类名.方法名(参数类型)" 索引的策略节点，类加载时方法匹配只需一次哈希查找
+     */
+    private final Map<String, List<PolicyNode>> signatureIndex = new HashMap<String, List<PolicyNode>>();
+    /**
+     * 无法按签名索引的策略节点，仍逐个调用 MethodMatcher 匹配
+     */
+    private final List<PolicyNode> unindexedNodes = new ArrayList<PolicyNode>();
 
     public List<SourceNode> getSources() {
         return sources;
@@ -41,17 +52,69 @@ public class Policy {
         return this.policyNodesMap.get(methodMatcher);
     }
 
+    /**
+     * 根据策略节点编号查找节点
+     *
+     * @param id 策略节点编号，见 {@link PolicyNode#getId()}
+     * @return 策略节点，编号无效时返回 null
+     */
+    public PolicyNode getPolicyNode(int id) {
+        if (id < 0 || id >= this.policyNodes.size()) {
+            return null;
+        }
+        return this.policyNodes.get(id);
+    }
+
     public Map<String, PolicyNode> getPolicyNodesMap() {
         return this.policyNodesMap;
     }
 
     public void addHooks(PolicyNode node) {
+        node.setId(this.policyNodes.size());
+        this.policyNodes.add(node);
+
         SignatureMethodMatcher methodMatcher;
         if (node.getMethodMatcher() instanceof SignatureMethodMatcher) {
             methodMatcher = (SignatureMethodMatcher) node.getMethodMatcher();
             this.policyNodesMap.put(methodMatcher.toString(), node);
             addHooks(methodMatcher.getSignature().getClassName(), node.getInheritable());
+            addIndex(methodMatcher.getSignature().toString(), node);
+        } else {
+            this.unindexedNodes.add(node);
+        }
+    }
+
+    private void addIndex(String signature, PolicyNode node) {
+        List<PolicyNode> nodes = this.signatureIndex.get(signature);
+        if (nodes == null) {
+            nodes = new ArrayList<PolicyNode>(1);
+            this.signatureIndex.put(signature, nodes);
+        }
+        nodes.add(node);
+    }
+
+    /**
+     * 查找与方法匹配的全部策略节点
+     *
+     * @param methodContext 方法上下文
+     * @return 匹配的策略节点，无匹配时返回空集合
+     */
+    public Set<PolicyNode> getMatchedNodes(MethodContext methodContext) {
+        Set<PolicyNode> matchedNodes = new HashSet<PolicyNode>();
+        List<PolicyNode> nodes = this.signatureIndex.get(methodContext.getMatchedSignature());
+        if (nodes != null) {
+            for (PolicyNode node : nodes) {
+                if (node.getMethodMatcher().match(methodContext)) {
+                    matchedNodes.add(node);
+                }
+            }
+        }
+        for (PolicyNode node : this.unindexedNodes) {
+            if (node.getMethodMatcher().match(methodContext)) {
+                matchedNodes.add(node);
+            }
         }
+        return matchedNodes;
     }
 
     public void addHooks(String className, Inheritable inheritable) {
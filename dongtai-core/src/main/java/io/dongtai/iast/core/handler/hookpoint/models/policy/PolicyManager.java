@@ -1,11 +1,15 @@
 package io.dongtai.iast.core.handler.hookpoint.models.policy;
 
+import io.dongtai.iast.core.bytecode.sca.SignatureAlgorithm;
 import io.dongtai.iast.core.utils.StringUtils;
 import io.dongtai.log.DongTaiLog;
 import org.json.JSONArray;
 
+import java.io.ByteArrayInputStream;
+
 public class PolicyManager {
-    private Policy policy;
+    private volatile Policy policy;
+    private String fingerprint;
 
     public Policy getPolicy() {
         return this.policy;
@@ -13,6 +17,14 @@ public class PolicyManager {
 
     public void setPolicy(Policy policy) {
         this.policy = policy;
+        this.fingerprint = null;
+    }
+
+    /**
+     * 策略内容的指纹，策略未加载或通过 setPolicy 设置时为 null
+     */
+    public String getFingerprint() {
+        return this.fingerprint;
     }
 
     public void loadPolicy(String policyPath) {
@@ -24,6 +36,8 @@ public class PolicyManager {
                 policyConfig = PolicyBuilder.fetchFromFile(policyPath);
             }
             this.policy = PolicyBuilder.build(policyConfig);
+            this.fingerprint = SignatureAlgorithm.getSignature(
+                    new ByteArrayInputStream(policyConfig.toString().getBytes("UTF-8")), "SHA-1");
         } catch (Throwable e) {
             DongTaiLog.error("load policy failed", e);
         }
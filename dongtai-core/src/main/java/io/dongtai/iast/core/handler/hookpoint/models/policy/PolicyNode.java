@@ -3,6 +3,10 @@ package io.dongtai.iast.core.handler.hookpoint.models.policy;
 public abstract class PolicyNode {
     private String hashString;
     private Inheritable inheritable;
+    /**
+     * 策略构建时分配的连续编号，织入字节码后用于在 Policy 中按下标查找节点
+     */
+    private int id = -1;
 
     protected MethodMatcher methodMatcher;
 
@@ -20,6 +24,14 @@ public abstract class PolicyNode {
         this.inheritable = inheritable;
     }
 
+    public int getId() {
+        return this.id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
     public MethodMatcher getMethodMatcher() {
         return methodMatcher;
     }
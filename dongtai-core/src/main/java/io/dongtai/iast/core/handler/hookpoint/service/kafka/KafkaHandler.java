@@ -101,8 +101,8 @@ public class KafkaHandler {
                 requestMeta.put("replay-request", false);
 
                 EngineManager.REQUEST_CONTEXT.set(requestMeta);
-                EngineManager.TRACK_MAP.set(new HashMap<Integer, MethodEvent>(1024));
-                EngineManager.TAINT_HASH_CODES.set(new HashSet<Integer>());
+                EngineManager.TRACK_MAP.enable();
+                EngineManager.TAINT_HASH_CODES.enable();
 
                 MethodEvent event = new MethodEvent(
                         0,
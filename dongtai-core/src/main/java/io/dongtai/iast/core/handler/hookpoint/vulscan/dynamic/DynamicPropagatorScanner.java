@@ -69,7 +69,7 @@ public class DynamicPropagatorScanner implements IVulScan {
         }
 
         if (sinkSourceHitTaintPool(event, sinkNode)) {
-            event.setCallStacks(StackUtils.createCallStack(5));
+            event.setCallStack(StackUtils.getHookCallSite());
             int invokeId = SpyDispatcherImpl.INVOKE_ID_SEQUENCER.getAndIncrement();
             event.setInvokeId(invokeId);
             EngineManager.TRACK_MAP.addTrackMethod(invokeId, event);
@@ -10,12 +10,29 @@ import org.json.JSONArray;
 import org.json.JSONObject;
 
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author dongzhiyong@huoxian.cn
  */
 public abstract class AbstractNormalVulScan implements IVulScan {
 
+    /**
+     * 同一调用位置的同类漏洞 10 分钟内只上报一次
+     */
+    private static final NormalVulDeduplicator DEDUPLICATOR =
+            new NormalVulDeduplicator(10, TimeUnit.MINUTES, 4096);
+
+    /**
+     * 同一调用位置的同类漏洞是否已上报过，需在获取完整调用栈之前判断
+     *
+     * @param vulType vulnerability
+     * @return 有效期内首次发现时返回 true
+     */
+    protected boolean isNewFinding(String vulType) {
+        return DEDUPLICATOR.shouldReport(vulType);
+    }
+
     /**
      * @param stacks  Method Call Stack
      * @param vulType vulnerability
@@ -54,6 +71,13 @@ public abstract class AbstractNormalVulScan implements IVulScan {
         ThreadPools.sendPriorityReport(ApiPath.REPORT_UPLOAD, report.toString());
     }
 
+    /**
+     * @return 因重复而未上报的普通漏洞数，随心跳上报
+     */
+    public static long getSuppressedCount() {
+        return DEDUPLICATOR.getSuppressedCount();
+    }
+
     protected StackTraceElement[] getLatestStack() {
         return StackUtils.createCallStack(0);
     }
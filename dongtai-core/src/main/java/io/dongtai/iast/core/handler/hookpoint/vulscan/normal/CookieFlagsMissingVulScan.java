@@ -33,7 +33,9 @@ public class CookieFlagsMissingVulScan extends AbstractNormalVulScan {
                 if (flag) {
                     continue;
                 }
-                sendReport(getLatestStack(), sinkNode.getVulType());
+                if (isNewFinding(sinkNode.getVulType())) {
+                    sendReport(getLatestStack(), sinkNode.getVulType());
+                }
                 break;
             } catch (Exception e) {
                 DongTaiLog.error("CookieFlagsMissingVulScan scan failed", e);
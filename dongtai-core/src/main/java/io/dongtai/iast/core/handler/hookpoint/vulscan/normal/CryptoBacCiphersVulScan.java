@@ -40,7 +40,9 @@ public class CryptoBacCiphersVulScan extends AbstractNormalVulScan {
                 if (matcher.find()) {
                     continue;
                 }
-                sendReport(getLatestStack(), sinkNode.getVulType());
+                if (isNewFinding(sinkNode.getVulType())) {
+                    sendReport(getLatestStack(), sinkNode.getVulType());
+                }
                 break;
             } catch (Exception e) {
                 DongTaiLog.error("CryptoBacCiphersVulScan scan failed", e);
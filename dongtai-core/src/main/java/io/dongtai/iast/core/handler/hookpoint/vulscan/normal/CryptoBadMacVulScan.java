@@ -40,6 +40,9 @@ public class CryptoBadMacVulScan extends AbstractNormalVulScan {
                 if (matcher.find()) {
                     continue;
                 }
+                if (!isNewFinding(sinkNode.getVulType())) {
+                    break;
+                }
                 StackTraceElement[] latestStack = getLatestStack();
                 for (StackTraceElement stackTraceElement : latestStack) {
                     // 解决 java.security.SecureRandom.getInstance 导致的 weak hash 误报
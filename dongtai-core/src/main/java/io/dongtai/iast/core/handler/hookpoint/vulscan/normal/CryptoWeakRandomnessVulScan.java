@@ -17,6 +17,8 @@ public class CryptoWeakRandomnessVulScan extends AbstractNormalVulScan {
     @Override
     public void scan(MethodEvent event, SinkNode sinkNode) {
         // todo: 取调用栈信息
-        sendReport(getLatestStack(), sinkNode.getVulType());
+        if (isNewFinding(sinkNode.getVulType())) {
+            sendReport(getLatestStack(), sinkNode.getVulType());
+        }
     }
 }
@@ -0,0 +1,66 @@
+package io.dongtai.iast.core.handler.hookpoint.vulscan.normal;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.dongtai.iast.core.utils.StackUtils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 普通漏洞上报去重，同一漏洞类型在同一调用位置(触发方法及其调用方)的发现，在有效期内只上报一次
+ * <p>
+ * 调用位置只取最近的两个非 agent 栈帧，重复发现时无需获取完整调用栈。
+ * 记录数有上限，超过时淘汰最早的记录；被忽略的重复发现计入总数
+ */
+public class NormalVulDeduplicator {
+    private static final int CALL_SITE_DEPTH = 2;
+
+    private final Cache<String, Boolean> reported;
+    private final AtomicLong suppressed = new AtomicLong();
+
+    /**
+     * @param ttl        同一发现的去重有效期
+     * @param unit       有效期单位
+     * @param maxEntries 最多记录的调用位置数
+     */
+    public NormalVulDeduplicator(long ttl, TimeUnit unit, int maxEntries) {
+        this.reported = CacheBuilder.newBuilder().expireAfterWrite(ttl, unit).maximumSize(maxEntries).build();
+    }
+
+    /**
+     * 以当前线程的调用位置判断是否需要上报
+     *
+     * @param vulType 漏洞类型
+     * @return 有效期内首次发现时返回 true，重复发现返回 false 并计数
+     */
+    public boolean shouldReport(String vulType) {
+        return shouldReport(vulType, getCallSite(StackUtils.getAppCallers(CALL_SITE_DEPTH)));
+    }
+
+    boolean shouldReport(String vulType, String callSite) {
+        if (this.reported.asMap().putIfAbsent(vulType + '|' + callSite, Boolean.TRUE) == null) {
+            return true;
+        }
+        this.suppressed.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * @return 被忽略的重复发现数
+     */
+    public long getSuppressedCount() {
+        return this.suppressed.get();
+    }
+
+    /**
+     * @param callers 已跳过 agent 自身栈帧的调用位置，由近及远
+     */
+    static String getCallSite(StackTraceElement[] callers) {
+        StringBuilder sb = new StringBuilder();
+        for (StackTraceElement element : callers) {
+            sb.append(element.toString()).append('|');
+        }
+        return sb.toString();
+    }
+}
@@ -1,8 +1,11 @@
 package io.dongtai.iast.core.handler.hookpoint.vulscan.taintrange;
 
-import org.json.JSONObject;
+import com.google.gson.stream.JsonWriter;
+import io.dongtai.iast.core.utils.json.JsonWritable;
 
-public class TaintRange {
+import java.io.IOException;
+
+public class TaintRange implements JsonWritable {
     public static final String UNTRUSTED = "untrusted";
 
     private String name;
@@ -133,11 +136,12 @@ public class TaintRange {
         return this.name + "(" + this.start + "," + this.stop + ")";
     }
 
-    public JSONObject toJson() {
-        JSONObject json = new JSONObject();
-        json.put("name", this.name);
-        json.put("start", this.start);
-        json.put("stop", this.stop);
-        return json;
+    @Override
+    public void writeTo(JsonWriter writer) throws IOException {
+        writer.beginObject();
+        writer.name("name").value(this.name);
+        writer.name("start").value(this.start);
+        writer.name("stop").value(this.stop);
+        writer.endObject();
     }
 }
@@ -1,10 +1,12 @@
 package io.dongtai.iast.core.handler.hookpoint.vulscan.taintrange;
 
-import org.json.JSONArray;
+import com.google.gson.stream.JsonWriter;
+import io.dongtai.iast.core.utils.json.JsonWritable;
 
+import java.io.IOException;
 import java.util.*;
 
-public class TaintRanges {
+public class TaintRanges implements JsonWritable {
     private ArrayList<TaintRange> taintRanges;
 
     public TaintRanges() {
@@ -253,11 +255,12 @@ public class TaintRanges {
         return "Taints:" + this.taintRanges;
     }
 
-    public JSONArray toJson() {
-        JSONArray json = new JSONArray();
+    @Override
+    public void writeTo(JsonWriter writer) throws IOException {
+        writer.beginArray();
         for (TaintRange tr : this.taintRanges) {
-            json.put(tr.toJson());
+            tr.writeTo(writer);
         }
-        return json;
+        writer.endArray();
     }
 }
@@ -6,9 +6,7 @@ import io.dongtai.iast.core.init.IEngine;
 import io.dongtai.iast.core.utils.PropertyUtils;
 import io.dongtai.log.DongTaiLog;
 
-import java.lang.instrument.ClassDefinition;
 import java.lang.instrument.Instrumentation;
-import java.util.*;
 
 /**
  * @author dongzhiyong@huoxian.cn
@@ -49,31 +47,9 @@ public class TransformEngine implements IEngine {
     @Override
     public void destroy() {
         inst.removeTransformer(classFileTransformer);
-        HashMap<Object, byte[]> transformMap = IastClassFileTransformer.getTransformMap();
-        int classSize = transformMap.size();
-        ClassDefinition[] classDefinitions = new ClassDefinition[classSize];
-        ArrayList<ClassDefinition> classDefinitionArrayList = new ArrayList<ClassDefinition>();
-        Set<Object> classes = transformMap.keySet();
-        for (Object aClass:classes){
-            if(aClass instanceof String){
-                try {
-                    Class<?> transformClass = Class.forName((String) aClass);
-                    classDefinitionArrayList.add(new ClassDefinition(transformClass,transformMap.get(aClass)));
-                } catch (ClassNotFoundException e) {
-                    DongTaiLog.debug(e);
-                }
-            }else if (aClass instanceof Class<?>){
-                classDefinitionArrayList.add(new ClassDefinition((Class<?>) aClass,transformMap.get(aClass)));
-            }
-        }
-        classDefinitionArrayList.toArray(classDefinitions);
-        for (ClassDefinition classDefinition:classDefinitionArrayList){
-            try {
-                inst.redefineClasses(classDefinition);
-            }catch (Exception e){
-                DongTaiLog.error(e);
-            }
-        }
+        classFileTransformer.closeTransformCache();
+        int restored = classFileTransformer.getOriginalClassStore().restore(inst);
+        DongTaiLog.debug("restore {} transformed classes", restored);
         inst = null;
         classFileTransformer = null;
     }
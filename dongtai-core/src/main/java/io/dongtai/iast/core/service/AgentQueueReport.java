@@ -2,6 +2,8 @@ package io.dongtai.iast.core.service;
 
 import io.dongtai.iast.common.constants.*;
 import io.dongtai.iast.core.EngineManager;
+import io.dongtai.iast.core.handler.hookpoint.controller.impl.SourceImpl;
+import io.dongtai.iast.core.handler.hookpoint.vulscan.normal.AbstractNormalVulScan;
 import io.dongtai.iast.core.utils.HttpClientUtils;
 import io.dongtai.log.DongTaiLog;
 import org.json.JSONObject;
@@ -20,9 +22,12 @@ public class AgentQueueReport implements Runnable {
         report.put(ReportKey.DETAIL, detail);
         detail.put(ReportKey.AGENT_ID, EngineManager.getAgentId());
         detail.put("reqCount", EngineManager.getRequestCount());
-        detail.put("reportQueue", 0);
-        detail.put("methodQueue", 0);
-        detail.put("replayQueue", 0);
+        detail.put("reportQueue", ThreadPools.getReportQueueSize());
+        detail.put("methodQueue", ThreadPools.getMethodQueueSize());
+        detail.put("replayQueue", ThreadPools.getReplayQueueSize());
+        detail.put("suppressedVulCount", AbstractNormalVulScan.getSuppressedCount());
+        detail.put("sourceNodeLimitHits", SourceImpl.getNodeLimitHits());
+        detail.put("sourceBreadthLimitHits", SourceImpl.getBreadthLimitHits());
         detail.put(ReportKey.IS_CORE_INSTALLED, 1);
         detail.put(ReportKey.IS_CORE_RUNNING, EngineManager.isEngineRunning() ? 1 : 0);
         detail.put(ReportKey.RETURN_QUEUE, 1);
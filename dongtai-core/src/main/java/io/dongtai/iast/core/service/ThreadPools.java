@@ -1,7 +1,9 @@
 package io.dongtai.iast.core.service;
 
 import io.dongtai.iast.common.constants.AgentConstant;
+import io.dongtai.iast.core.handler.hookpoint.graphy.MethodPoolReportTask;
 import io.dongtai.iast.core.replay.HttpRequestReplay;
+import io.dongtai.log.DongTaiLog;
 
 import java.util.concurrent.*;
 
@@ -10,7 +12,7 @@ import java.util.concurrent.*;
  */
 public class ThreadPools {
 
-    private static final ExecutorService METHOD_REPORT_THREAD = new ThreadPoolExecutor(0, 5, 10L, TimeUnit.SECONDS,
+    private static final ThreadPoolExecutor METHOD_REPORT_THREAD = new ThreadPoolExecutor(0, 5, 10L, TimeUnit.SECONDS,
             new LinkedBlockingQueue<Runnable>(5120), new ThreadFactory() {
         @Override
         public Thread newThread(Runnable r) {
@@ -18,7 +20,7 @@ public class ThreadPools {
         }
     });
 
-    private static final ExecutorService COMMON_REPORT_THREAD = new ThreadPoolExecutor(0, 5, 10L, TimeUnit.SECONDS,
+    private static final ThreadPoolExecutor COMMON_REPORT_THREAD = new ThreadPoolExecutor(0, 5, 10L, TimeUnit.SECONDS,
             new LinkedBlockingQueue<Runnable>(10000), new ThreadFactory() {
         @Override
         public Thread newThread(Runnable r) {
@@ -26,7 +28,7 @@ public class ThreadPools {
         }
     });
 
-    private static final ExecutorService REPLAY_REQUEST_THREAD = new ThreadPoolExecutor(0, 1, 10L, TimeUnit.SECONDS,
+    private static final ThreadPoolExecutor REPLAY_REQUEST_THREAD = new ThreadPoolExecutor(0, 1, 10L, TimeUnit.SECONDS,
             new LinkedBlockingQueue<Runnable>(1024), new ThreadFactory() {
         @Override
         public Thread newThread(Runnable r) {
@@ -35,7 +37,7 @@ public class ThreadPools {
 
     });
 
-    private static final ExecutorService LIMIT_REPORT_THREAD = new ThreadPoolExecutor(0, 5, 10L, TimeUnit.SECONDS,
+    private static final ThreadPoolExecutor LIMIT_REPORT_THREAD = new ThreadPoolExecutor(0, 5, 10L, TimeUnit.SECONDS,
             new LinkedBlockingQueue<Runnable>(5120), new ThreadFactory() {
         @Override
         public Thread newThread(Runnable r) {
@@ -44,14 +46,55 @@ public class ThreadPools {
     });
 
 
+    /**
+     * 污点方法池序列化线程，请求线程只提交快照，队列满时丢弃报告而不阻塞业务请求
+     */
+    private static final ThreadPoolExecutor METHOD_POOL_SERIALIZE_THREAD = new ThreadPoolExecutor(2, 2, 10L,
+            TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(1024), new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            return new Thread(r, AgentConstant.THREAD_NAME_PREFIX + "MethodPoolSerializer-" + r.hashCode());
+        }
+    });
+
+    /**
+     * 第三方组件签名计算线程，线程数受限，避免启动时大量 jar 同时计算签名占满 CPU 与磁盘
+     */
+    private static final ThreadPoolExecutor SCA_SCAN_THREAD = new ThreadPoolExecutor(
+            Math.min(4, Runtime.getRuntime().availableProcessors()),
+            Math.min(4, Runtime.getRuntime().availableProcessors()), 10L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            return new Thread(r, AgentConstant.THREAD_NAME_PREFIX + "ScaScan-" + r.hashCode());
+        }
+    });
+
+    static {
+        METHOD_POOL_SERIALIZE_THREAD.allowCoreThreadTimeOut(true);
+        SCA_SCAN_THREAD.allowCoreThreadTimeOut(true);
+    }
+
     public static void execute(Runnable r) {
         COMMON_REPORT_THREAD.execute(r);
     }
 
+    public static void executeScaScan(Runnable r) {
+        SCA_SCAN_THREAD.execute(r);
+    }
+
     public static void sendPriorityReport(final String url, final String report) {
         METHOD_REPORT_THREAD.execute(new ReportThread(url, report));
     }
 
+    public static void submitMethodPoolReport(MethodPoolReportTask task) {
+        try {
+            METHOD_POOL_SERIALIZE_THREAD.execute(task);
+        } catch (RejectedExecutionException e) {
+            DongTaiLog.warn("method pool serialize queue is full, report dropped");
+        }
+    }
+
     public static void sendReport(final String url, final String report) {
         COMMON_REPORT_THREAD.execute(new ReportThread(url, report));
     }
@@ -64,7 +107,35 @@ public class ThreadPools {
         LIMIT_REPORT_THREAD.execute(new ReportThread(url, report));
     }
 
+    /**
+     * 普通上报队列中等待发送的报告数量
+     */
+    public static int getReportQueueSize() {
+        return COMMON_REPORT_THREAD.getQueue().size() + LIMIT_REPORT_THREAD.getQueue().size();
+    }
+
+    /**
+     * 污点方法池及漏洞报告队列中等待序列化或发送的报告数量
+     */
+    public static int getMethodQueueSize() {
+        return METHOD_POOL_SERIALIZE_THREAD.getQueue().size() + METHOD_REPORT_THREAD.getQueue().size();
+    }
+
+    /**
+     * 可能同时通过 HttpClientUtils 发送请求的最大线程数：各上报线程池，加上心跳及远程配置线程
+     */
+    public static int getHttpClientThreadCount() {
+        return METHOD_REPORT_THREAD.getMaximumPoolSize() + COMMON_REPORT_THREAD.getMaximumPoolSize()
+                + LIMIT_REPORT_THREAD.getMaximumPoolSize() + 2;
+    }
+
+    public static int getReplayQueueSize() {
+        return REPLAY_REQUEST_THREAD.getQueue().size();
+    }
+
     public static void destroy() {
+        METHOD_POOL_SERIALIZE_THREAD.shutdown();
+        SCA_SCAN_THREAD.shutdown();
         METHOD_REPORT_THREAD.shutdown();
         COMMON_REPORT_THREAD.shutdown();
         REPLAY_REQUEST_THREAD.shutdown();
@@ -0,0 +1,88 @@
+package io.dongtai.iast.core.utils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 缓存每个类中允许传播污点的 getter 方法，调用时通过 MethodHandle 完成
+ * <p>
+ * 缓存基于 {@link ClassValue}，缓存内容随类保存，类及其类加载器卸载时一并回收
+ */
+public class GetterMethodCache {
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final Getter[] EMPTY = new Getter[0];
+
+    private static final ClassValue<Getter[]> GETTERS = new ClassValue<Getter[]>() {
+        @Override
+        protected Getter[] computeValue(Class<?> type) {
+            return findGetters(type);
+        }
+    };
+
+    /**
+     * @return 经 {@link TaintPoolUtils#isAllowTaintGetterMethod(Method)} 过滤后的公开 getter
+     */
+    public static Getter[] getGetters(Class<?> cls) {
+        return GETTERS.get(cls);
+    }
+
+    private static Getter[] findGetters(Class<?> cls) {
+        List<Getter> getters = new ArrayList<Getter>();
+        for (Method method : cls.getMethods()) {
+            if (!TaintPoolUtils.isAllowTaintGetterMethod(method)) {
+                continue;
+            }
+            MethodHandle handle = unreflect(method);
+            if (handle != null) {
+                getters.add(new Getter(method.getName(), handle.asType(GETTER_TYPE)));
+            }
+        }
+        return getters.isEmpty() ? EMPTY : getters.toArray(new Getter[0]);
+    }
+
+    /**
+     * 非公开类中的公开方法需要先 setAccessible，仍无法访问时忽略该方法
+     */
+    private static MethodHandle unreflect(Method method) {
+        try {
+            return MethodHandles.publicLookup().unreflect(method);
+        } catch (IllegalAccessException ignore) {
+        }
+        try {
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    public static class Getter {
+        private final String name;
+        private final MethodHandle handle;
+
+        private Getter(String name, MethodHandle handle) {
+            this.name = name;
+            this.handle = handle;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * 与 {@link Method#invoke(Object, Object...)} 一致，getter 抛出的异常包装为 InvocationTargetException
+         */
+        public Object invoke(Object target) throws InvocationTargetException {
+            try {
+                return (Object) this.handle.invokeExact(target);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+    }
+}
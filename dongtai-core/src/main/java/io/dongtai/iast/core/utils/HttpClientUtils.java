@@ -2,7 +2,10 @@ package io.dongtai.iast.core.utils;
 
 import io.dongtai.iast.common.enums.HttpMethods;
 import io.dongtai.iast.common.utils.AbstractHttpClientUtils;
+import io.dongtai.iast.core.service.ThreadPools;
+import org.apache.http.impl.client.CloseableHttpClient;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -16,6 +19,11 @@ public class HttpClientUtils extends AbstractHttpClientUtils {
     private static String proxyHost = "";
     private static int proxyPort = -1;
 
+    /**
+     * 与服务端通信的长连接客户端，所有上报共用，避免每次请求重新建立 TCP/TLS 连接
+     */
+    private static volatile CloseableHttpClient client;
+
     static {
         if (PROPERTIES.isProxyEnable()) {
             proxyHost = PROPERTIES.getProxyHost();
@@ -37,8 +45,7 @@ public class HttpClientUtils extends AbstractHttpClientUtils {
         Map<String, String> headers = new HashMap<String, String>();
         setToken(headers);
 
-        return sendRequest(HttpMethods.GET, PROPERTIES.getBaseUrl() + uri, null, headers, MAX_RETRIES,
-                proxyHost, proxyPort, null);
+        return sendPooledRequest(getClient(), HttpMethods.GET, PROPERTIES.getBaseUrl() + uri, null, headers, null);
     }
 
     public static StringBuilder sendPost(String uri, String value) {
@@ -47,8 +54,7 @@ public class HttpClientUtils extends AbstractHttpClientUtils {
         headers.put(HEADER_CONTENT_TYPE, MEDIA_TYPE_APPLICATION_JSON);
         headers.put(HEADER_CONTENT_ENCODING, REQUEST_ENCODING_TYPE);
 
-        return sendRequest(HttpMethods.POST, PROPERTIES.getBaseUrl() + uri, value, headers, MAX_RETRIES,
-                proxyHost, proxyPort, null);
+        return sendPooledRequest(getClient(), HttpMethods.POST, PROPERTIES.getBaseUrl() + uri, value, headers, null);
     }
 
     public static boolean downloadRemoteJar(String fileURI, String fileName) {
@@ -58,6 +64,37 @@ public class HttpClientUtils extends AbstractHttpClientUtils {
         return downloadFile(PROPERTIES.getBaseUrl() + fileURI, fileName, headers, proxyHost, proxyPort);
     }
 
+    private static CloseableHttpClient getClient() {
+        CloseableHttpClient c = client;
+        if (c == null) {
+            synchronized (HttpClientUtils.class) {
+                c = client;
+                if (c == null) {
+                    c = getPooledClient(MAX_RETRIES, proxyHost, proxyPort, ThreadPools.getHttpClientThreadCount());
+                    client = c;
+                }
+            }
+        }
+        return c;
+    }
+
+    /**
+     * 关闭长连接客户端，引擎卸载时调用；之后的请求会重新创建客户端
+     */
+    public static void closeClient() {
+        CloseableHttpClient c;
+        synchronized (HttpClientUtils.class) {
+            c = client;
+            client = null;
+        }
+        if (c != null) {
+            try {
+                c.close();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+
     private static void setToken(Map<String, String> headers) {
         headers.put(REQUEST_HEADER_TOKEN_KEY, "Token " + PROPERTIES.getServerToken());
     }
@@ -26,7 +26,12 @@ public class PropertyUtils {
     private int proxyPort = -1;
     private String debugFlag;
     private Integer responseLength;
+    private Integer requestBodyMaxSize;
+    private Integer sourceTrackMaxNodes;
+    private Integer sourceTrackMaxBreadth;
     private String policyPath;
+    private String transformCacheDir;
+    private long originalClassMaxSize = -1L;
 
     private final String propertiesFilePath;
 
@@ -212,6 +217,39 @@ public class PropertyUtils {
         return responseLength;
     }
 
+    /**
+     * 请求体最多缓存的字节数，超过部分直接透传给应用，默认 4MB，小于 0 时不限制
+     */
+    public Integer getRequestBodyMaxSize() {
+        if (requestBodyMaxSize == null) {
+            requestBodyMaxSize = Integer.parseInt(System.getProperty(PropertyConstant.PROPERTY_REQUEST_BODY_MAX_SIZE,
+                    cfg.getProperty(PropertyConstant.PROPERTY_REQUEST_BODY_MAX_SIZE, "4194304")));
+        }
+        return requestBodyMaxSize;
+    }
+
+    /**
+     * 单次污点来源处理最多遍历的对象数，默认 10000
+     */
+    public Integer getSourceTrackMaxNodes() {
+        if (sourceTrackMaxNodes == null) {
+            sourceTrackMaxNodes = Integer.parseInt(System.getProperty(PropertyConstant.PROPERTY_SOURCE_TRACK_MAX_NODES,
+                    cfg.getProperty(PropertyConstant.PROPERTY_SOURCE_TRACK_MAX_NODES, "10000")));
+        }
+        return sourceTrackMaxNodes;
+    }
+
+    /**
+     * 污点来源处理时，每个数组/集合/Map 最多遍历的元素数，默认 1000
+     */
+    public Integer getSourceTrackMaxBreadth() {
+        if (sourceTrackMaxBreadth == null) {
+            sourceTrackMaxBreadth = Integer.parseInt(System.getProperty(PropertyConstant.PROPERTY_SOURCE_TRACK_MAX_BREADTH,
+                    cfg.getProperty(PropertyConstant.PROPERTY_SOURCE_TRACK_MAX_BREADTH, "1000")));
+        }
+        return sourceTrackMaxBreadth;
+    }
+
     public String getPolicyPath() {
         if (null == this.policyPath) {
             this.policyPath = System.getProperty(PropertyConstant.PROPERTY_POLICY_PATH,
@@ -220,6 +258,31 @@ public class PropertyUtils {
         return this.policyPath;
     }
 
+    /**
+     * 增强字节码缓存目录，为空时不启用缓存
+     */
+    public String getTransformCacheDir() {
+        if (null == this.transformCacheDir) {
+            this.transformCacheDir = System.getProperty(PropertyConstant.PROPERTY_TRANSFORM_CACHE_DIR,
+                    cfg.getProperty(PropertyConstant.PROPERTY_TRANSFORM_CACHE_DIR, ""));
+        }
+        return this.transformCacheDir;
+    }
+
+    /**
+     * 保存被增强类原始字节码的内存上限，配置单位为 MB，默认 64
+     *
+     * @return 上限字节数
+     */
+    public long getOriginalClassMaxSize() {
+        if (-1L == this.originalClassMaxSize) {
+            this.originalClassMaxSize = Long.parseLong(System.getProperty(
+                    PropertyConstant.PROPERTY_ORIGINAL_CLASS_MAX_SIZE,
+                    cfg.getProperty(PropertyConstant.PROPERTY_ORIGINAL_CLASS_MAX_SIZE, "64"))) * 1024 * 1024;
+        }
+        return this.originalClassMaxSize;
+    }
+
     /**
      * 获取远端同步的本地配置项
      *
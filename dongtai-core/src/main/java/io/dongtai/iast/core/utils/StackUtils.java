@@ -1,11 +1,74 @@
 package io.dongtai.iast.core.utils;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
 /**
  * 获取堆栈hook点的应用堆栈情况
  *
  * @author dongzhiyong@huoxian.cn
  */
 public class StackUtils {
+    /**
+     * StackWalker 单次遍历的最大帧数，超过时回退到完整堆栈
+     */
+    private static final int MAX_WALK_DEPTH = 64;
+
+    private static final String STACK_UTILS_CLASS = StackUtils.class.getName();
+    private static final String THREAD_CLASS = Thread.class.getName();
+    /**
+     * agent 自身的包，被 hook 的类不会位于这些包中
+     */
+    private static final String[] AGENT_PACKAGES = new String[]{"io.dongtai.", "java.lang.dongtai."};
+
+    /**
+     * JDK 9+ 的 StackWalker 相关句柄，JDK 8 上均为 null
+     */
+    private static final Object STACK_WALKER;
+    private static final MethodHandle WALK;
+    private static final MethodHandle GET_CLASS_NAME;
+    private static final MethodHandle TO_STACK_TRACE_ELEMENT;
+
+    static {
+        Object walker = null;
+        MethodHandle walk = null;
+        MethodHandle getClassName = null;
+        MethodHandle toStackTraceElement = null;
+        try {
+            Class<?> walkerClass = Class.forName("java.lang.StackWalker");
+            Class<?> frameClass = Class.forName("java.lang.StackWalker$StackFrame");
+            // StackWalker.walk 是 caller-sensitive 方法，publicLookup 无法查找
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            // 保留反射栈帧，与 Thread.getStackTrace 的下标保持一致
+            Class<?> optionClass = Class.forName("java.lang.StackWalker$Option");
+            walker = walkerClass.getMethod("getInstance", optionClass)
+                    .invoke(null, optionClass.getField("SHOW_REFLECT_FRAMES").get(null));
+            walk = lookup.findVirtual(walkerClass, "walk", MethodType.methodType(Object.class, Function.class))
+                    .asType(MethodType.methodType(Object.class, Object.class, Function.class));
+            getClassName = lookup.findVirtual(frameClass, "getClassName", MethodType.methodType(String.class))
+                    .asType(MethodType.methodType(String.class, Object.class));
+            toStackTraceElement = lookup.findVirtual(frameClass, "toStackTraceElement",
+                            MethodType.methodType(StackTraceElement.class))
+                    .asType(MethodType.methodType(StackTraceElement.class, Object.class));
+        } catch (Throwable ignore) {
+            walker = null;
+        }
+        STACK_WALKER = walker;
+        WALK = walk;
+        GET_CLASS_NAME = getClassName;
+        TO_STACK_TRACE_ELEMENT = toStackTraceElement;
+    }
+
+    /**
+     * 获取完整调用栈，开销较大，仅用于需要上报完整堆栈的场景
+     */
     public static StackTraceElement[] createCallStack(int stackStartPos) {
         StackTraceElement[] stackTraceElements = Thread.currentThread().getStackTrace();
         StackTraceElement[] selfCallStack = new StackTraceElement[0];
@@ -16,8 +79,179 @@ public class StackUtils {
         return selfCallStack;
     }
 
+    /**
+     * 获取单个调用位置，下标含义与 {@link Thread#getStackTrace()} 一致(0 为 getStackTrace, 1 为本方法)
+     * <p>
+     * JDK 9+ 使用 StackWalker 只遍历所需深度的栈帧，JDK 8 或遍历失败时回退到完整堆栈
+     */
     public static StackTraceElement getLatestStack(int stackStartPos) {
+        StackTraceElement element = walkStack(stackStartPos);
+        if (element != null) {
+            return element;
+        }
+
         StackTraceElement[] stackTraceElements = Thread.currentThread().getStackTrace();
+        if (stackStartPos < 0 || stackStartPos >= stackTraceElements.length) {
+            return null;
+        }
         return stackTraceElements[stackStartPos];
     }
+
+    /**
+     * 被 hook 方法的调用位置：跳过 agent 自身的栈帧后，第一个栈帧为被 hook 的方法，第二个为其调用方
+     * <p>
+     * 与调用链上 agent 内部的方法层数无关，调整事件处理的调用层次时无需修改
+     *
+     * @return 堆栈不足时返回 null
+     */
+    public static StackTraceElement getHookCallSite() {
+        StackTraceElement[] callers = getCallers(AGENT_PACKAGES, 2);
+        return callers.length == 2 ? callers[1] : null;
+    }
+
+    /**
+     * 获取最近的若干个调用位置，跳过 agent 自身的栈帧
+     */
+    public static StackTraceElement[] getAppCallers(int count) {
+        return getCallers(AGENT_PACKAGES, count);
+    }
+
+    /**
+     * 获取最近的若干个调用位置，跳过本类、{@link Thread#getStackTrace()} 及指定包下的栈帧
+     * <p>
+     * JDK 9+ 使用 StackWalker 只遍历到找齐所需栈帧为止，JDK 8 或遍历失败时回退到完整堆栈
+     *
+     * @param skipPackages 需要跳过的包名前缀，如 io.dongtai.
+     * @param count        需要的调用位置数
+     * @return 由近及远的调用位置，堆栈不足时少于 count 个
+     */
+    public static StackTraceElement[] getCallers(String[] skipPackages, int count) {
+        if (STACK_WALKER != null) {
+            try {
+                Function<Stream<?>, StackTraceElement[]> collector = new CallerCollector(skipPackages, count);
+                StackTraceElement[] callers = (StackTraceElement[]) (Object) WALK.invokeExact(STACK_WALKER, collector);
+                if (callers != null) {
+                    return callers;
+                }
+            } catch (Throwable ignore) {
+                // fall through
+            }
+        }
+
+        List<StackTraceElement> callers = new ArrayList<StackTraceElement>(count);
+        for (StackTraceElement element : Thread.currentThread().getStackTrace()) {
+            if (callers.size() == count) {
+                break;
+            }
+            if (!isSkipped(element.getClassName(), skipPackages)) {
+                callers.add(element);
+            }
+        }
+        return callers.toArray(new StackTraceElement[0]);
+    }
+
+    private static boolean isSkipped(String className, String[] skipPackages) {
+        if (STACK_UTILS_CLASS.equals(className) || THREAD_CLASS.equals(className)) {
+            return true;
+        }
+        for (String skipPackage : skipPackages) {
+            if (className.startsWith(skipPackage)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isStackWalkerAvailable() {
+        return STACK_WALKER != null;
+    }
+
+    /**
+     * 通过 StackWalker 获取调用位置，下标含义与 {@link #getLatestStack(int)} 相同；JDK 8 或遍历失败时返回 null
+     */
+    static StackTraceElement walkStack(int stackStartPos) {
+        if (STACK_WALKER == null || stackStartPos < 2 || stackStartPos >= MAX_WALK_DEPTH) {
+            return null;
+        }
+        try {
+            Function<Stream<?>, StackTraceElement> selector = new FrameSelector(stackStartPos);
+            return (StackTraceElement) (Object) WALK.invokeExact(STACK_WALKER, selector);
+        } catch (Throwable ignore) {
+            return null;
+        }
+    }
+
+    /**
+     * 跳过 StackWalker 内部及本类的栈帧，将第一个调用方栈帧视为 getStackTrace 中的下标 2
+     */
+    private static class FrameSelector implements Function<Stream<?>, StackTraceElement> {
+        private final int stackStartPos;
+
+        private FrameSelector(int stackStartPos) {
+            this.stackStartPos = stackStartPos;
+        }
+
+        @Override
+        public StackTraceElement apply(Stream<?> frames) {
+            try {
+                Iterator<?> it = frames.limit(MAX_WALK_DEPTH).iterator();
+                boolean inStackUtils = false;
+                int pos = 1;
+                while (it.hasNext()) {
+                    Object frame = it.next();
+                    boolean isStackUtils = STACK_UTILS_CLASS.equals((String) GET_CLASS_NAME.invokeExact(frame));
+                    if (!inStackUtils) {
+                        inStackUtils = isStackUtils;
+                        continue;
+                    }
+                    if (isStackUtils) {
+                        continue;
+                    }
+                    if (++pos == this.stackStartPos) {
+                        return (StackTraceElement) TO_STACK_TRACE_ELEMENT.invokeExact(frame);
+                    }
+                }
+            } catch (Throwable ignore) {
+                // fall through
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 收集前 count 个未被跳过的栈帧，遍历 MAX_WALK_DEPTH 帧仍未找齐时返回 null
+     */
+    private static class CallerCollector implements Function<Stream<?>, StackTraceElement[]> {
+        private final String[] skipPackages;
+        private final int count;
+
+        private CallerCollector(String[] skipPackages, int count) {
+            this.skipPackages = skipPackages;
+            this.count = count;
+        }
+
+        @Override
+        public StackTraceElement[] apply(Stream<?> frames) {
+            StackTraceElement[] callers = new StackTraceElement[this.count];
+            int found = 0;
+            int walked = 0;
+            try {
+                Iterator<?> it = frames.limit(MAX_WALK_DEPTH).iterator();
+                while (found < this.count && it.hasNext()) {
+                    Object frame = it.next();
+                    walked++;
+                    if (!isSkipped((String) GET_CLASS_NAME.invokeExact(frame), this.skipPackages)) {
+                        callers[found++] = (StackTraceElement) TO_STACK_TRACE_ELEMENT.invokeExact(frame);
+                    }
+                }
+            } catch (Throwable ignore) {
+                return null;
+            }
+            if (found == this.count) {
+                return callers;
+            }
+            // 未达到遍历上限说明整个堆栈都已遍历，否则回退到完整堆栈
+            return walked < MAX_WALK_DEPTH ? Arrays.copyOf(callers, found) : null;
+        }
+    }
 }
@@ -81,6 +81,10 @@ public class TaintPoolUtils {
             if (obj == null) {
                 return false;
             }
+            // 字符串最常见，先于接口类型判断
+            if (obj instanceof String) {
+                return obj.hashCode() != 0;
+            }
             if (HashCode.calc(obj) == 0) {
                 return false;
             }
@@ -94,9 +98,6 @@ public class TaintPoolUtils {
             } else if (obj instanceof Set) {
                 Set<?> taintValue = (Set<?>) obj;
                 return !taintValue.isEmpty();
-            } else if (obj instanceof String) {
-                String taintValue = (String) obj;
-                return !taintValue.isEmpty();
             }
             return true;
         }catch (Exception e){
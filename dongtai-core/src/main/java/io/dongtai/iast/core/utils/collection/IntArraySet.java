@@ -0,0 +1,138 @@
+package io.dongtai.iast.core.utils.collection;
+
+import java.util.Arrays;
+
+/**
+ * 保持插入顺序的 int 集合，用于方法事件中的污点 hash，替代 HashSet&lt;Integer&gt;
+ * <p>
+ * 绝大多数事件只有一两个 hash，元素较少时线性查找；超过阈值后额外建立 {@link IntHashSet} 索引。非线程安全
+ */
+public class IntArraySet {
+    private static final int DEFAULT_CAPACITY = 4;
+
+    /**
+     * 超过该数量后建立哈希索引，避免 source 事件追踪大量对象时退化为 O(n^2)
+     */
+    private static final int LINEAR_SCAN_LIMIT = 16;
+
+    private static final IntArraySet EMPTY = new IntArraySet(new int[0]);
+
+    private int[] values;
+    private int size;
+    private IntHashSet index;
+
+    public IntArraySet() {
+        this.values = new int[DEFAULT_CAPACITY];
+    }
+
+    private IntArraySet(int[] values) {
+        this.values = values;
+    }
+
+    /**
+     * @return 不可修改的空集合
+     */
+    public static IntArraySet emptySet() {
+        return EMPTY;
+    }
+
+    /**
+     * @return 与原集合互不影响的副本，原集合为空时返回不可修改的空集合
+     */
+    public static IntArraySet copyOf(IntArraySet set) {
+        if (set == null || set.size == 0) {
+            return EMPTY;
+        }
+        IntArraySet copy = new IntArraySet(Arrays.copyOf(set.values, set.size));
+        copy.size = set.size;
+        return copy;
+    }
+
+    public boolean add(int value) {
+        if (this == EMPTY) {
+            throw new UnsupportedOperationException();
+        }
+        if (contains(value)) {
+            return false;
+        }
+
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size << 1);
+        }
+        values[size++] = value;
+
+        if (index != null) {
+            index.add(value);
+        } else if (size > LINEAR_SCAN_LIMIT) {
+            index = new IntHashSet(size << 1);
+            for (int i = 0; i < size; i++) {
+                index.add(values[i]);
+            }
+        }
+        return true;
+    }
+
+    public boolean contains(int value) {
+        if (index != null) {
+            return index.contains(value);
+        }
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int get(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        }
+        return values[i];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 清空集合并保留底层数组，哈希索引直接丢弃
+     */
+    public void clear() {
+        size = 0;
+        index = null;
+    }
+
+    /**
+     * 判断两个集合元素是否相同，null 视为空集合
+     */
+    public static boolean sameElements(IntArraySet a, IntArraySet b) {
+        int sizeA = a == null ? 0 : a.size;
+        int sizeB = b == null ? 0 : b.size;
+        if (sizeA != sizeB) {
+            return false;
+        }
+        for (int i = 0; i < sizeA; i++) {
+            if (!b.contains(a.values[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(values[i]);
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,142 @@
+package io.dongtai.iast.core.utils.collection;
+
+import java.util.Arrays;
+
+/**
+ * 基于开放寻址(线性探测)的 int 集合，用于替代污点池中的 HashSet&lt;Integer&gt;，add/contains 不产生装箱与节点对象
+ * <p>
+ * 非线程安全，仅用于线程内部的污点哈希池；clear 时复用底层数组，不会重新分配
+ */
+public class IntHashSet {
+    /**
+     * 空槽位标记，0 本身通过 containsZero 单独记录
+     */
+    private static final int EMPTY = 0;
+
+    private static final int DEFAULT_CAPACITY = 256;
+
+    /**
+     * clear 时若容量超过该值则收缩，避免单个大请求长期占用线程内存
+     */
+    private static final int MAX_RETAINED_CAPACITY = 1 << 16;
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private int[] table;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+    private boolean containsZero;
+
+    public IntHashSet() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntHashSet(int initialCapacity) {
+        allocate(tableSizeFor(Math.max(initialCapacity, 2)));
+    }
+
+    public boolean add(int value) {
+        if (value == EMPTY) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+
+        int index = hash(value) & mask;
+        int current;
+        while ((current = table[index]) != EMPTY) {
+            if (current == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        table[index] = value;
+        if (++size > resizeThreshold) {
+            rehash(table.length << 1);
+        }
+        return true;
+    }
+
+    public boolean contains(int value) {
+        if (value == EMPTY) {
+            return containsZero;
+        }
+
+        int index = hash(value) & mask;
+        int current;
+        while ((current = table[index]) != EMPTY) {
+            if (current == value) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int capacity() {
+        return table.length;
+    }
+
+    /**
+     * 清空集合并保留底层数组；容量过大时收缩到默认大小
+     */
+    public void clear() {
+        if (table.length > MAX_RETAINED_CAPACITY) {
+            allocate(DEFAULT_CAPACITY);
+        } else if (size > 0) {
+            Arrays.fill(table, EMPTY);
+        }
+        size = 0;
+        containsZero = false;
+    }
+
+    private void rehash(int newCapacity) {
+        int[] oldTable = table;
+        allocate(newCapacity);
+        for (int value : oldTable) {
+            if (value != EMPTY) {
+                int index = hash(value) & mask;
+                while (table[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                table[index] = value;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        table = new int[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * identityHashCode 低位分布较差，使用 murmur3 finalizer 打散
+     */
+    private static int hash(int value) {
+        int h = value;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int n = Integer.highestOneBit(capacity - 1) << 1;
+        return n <= 0 ? 1 << 30 : n;
+    }
+}
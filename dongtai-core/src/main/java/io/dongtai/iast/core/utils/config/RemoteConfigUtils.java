@@ -239,7 +239,7 @@ public class RemoteConfigUtils {
                 reqCount = EngineManager.getRequestCount() - lastReqCount;
                 lastReqCount = EngineManager.getRequestCount();
                 if (reqCount>0 && fallbackReqCount*1.0/reqCount > getResponseTimeThresholdRate()){
-                    ConfigMatcher.getInstance().FALLBACK_URL.clear();
+                    ConfigMatcher.getInstance().clearFallbackUrls();
                     EngineManager.turnOffEngine();
                     DongTaiLog.warn("The response time exceed the threshold, Dongtai engine shut down successfully.");
                 }else if (null != systemIsUninstall && systemIsUninstall && reqCount>0 && EngineManager.enableDongTai==0){
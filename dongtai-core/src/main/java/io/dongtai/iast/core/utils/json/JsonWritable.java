@@ -0,0 +1,12 @@
+package io.dongtai.iast.core.utils.json;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * 可流式写出为 JSON 的对象，toJson 等其他序列化方式应基于 {@link #writeTo(JsonWriter)} 实现，避免字段不一致
+ */
+public interface JsonWritable {
+    void writeTo(JsonWriter writer) throws IOException;
+}
@@ -0,0 +1,83 @@
+package io.dongtai.iast.core.utils.matcher;
+
+import io.dongtai.log.DongTaiLog;
+
+import java.util.*;
+
+/**
+ * 编译后的 URL 黑名单，规则格式为 "内容 类型"：类型 1 表示 URI 包含该内容，类型 2 表示请求中存在该请求头；
+ * 另外包含降级的 URL 后缀
+ * <p>
+ * 不可变，规则变化时整体重建后替换
+ */
+public class BlackUrlMatcher {
+    private static final int TYPE_URI = 1;
+    private static final int TYPE_HEADER = 2;
+
+    private final Set<String> rules;
+    private final Set<String> fallbackUrls;
+    private final SubstringMatcher uriMatcher;
+    private final Set<String> headerNames;
+    private final StringTrie fallbackMatcher;
+
+    public BlackUrlMatcher(Collection<String> rules, Collection<String> fallbackUrls) {
+        this.rules = Collections.unmodifiableSet(new LinkedHashSet<String>(rules));
+        this.fallbackUrls = Collections.unmodifiableSet(new LinkedHashSet<String>(fallbackUrls));
+
+        List<String> uris = new ArrayList<String>();
+        Set<String> headers = new HashSet<String>();
+        for (String rule : this.rules) {
+            String[] parts = rule.trim().split(" ");
+            if (parts.length < 2) {
+                continue;
+            }
+            try {
+                switch (Integer.parseInt(parts[1])) {
+                    case TYPE_URI:
+                        uris.add(parts[0]);
+                        break;
+                    case TYPE_HEADER:
+                        headers.add(parts[0].toLowerCase());
+                        break;
+                    default:
+                }
+            } catch (NumberFormatException e) {
+                DongTaiLog.debug("ignore invalid black url rule: {}", rule);
+            }
+        }
+        this.uriMatcher = new SubstringMatcher(uris);
+        this.headerNames = headers;
+        this.fallbackMatcher = StringTrie.suffixes(this.fallbackUrls);
+    }
+
+    public boolean matches(String uri, Map<String, String> headers) {
+        if (uri != null && (this.uriMatcher.matches(uri) || this.fallbackMatcher.matches(uri))) {
+            return true;
+        }
+        if (headers == null || headers.isEmpty() || this.headerNames.isEmpty()) {
+            return false;
+        }
+        if (this.headerNames.size() <= headers.size()) {
+            for (String name : this.headerNames) {
+                if (headers.get(name) != null) {
+                    return true;
+                }
+            }
+        } else {
+            for (Map.Entry<String, String> entry : headers.entrySet()) {
+                if (entry.getValue() != null && this.headerNames.contains(entry.getKey())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public Set<String> getRules() {
+        return this.rules;
+    }
+
+    public Set<String> getFallbackUrls() {
+        return this.fallbackUrls;
+    }
+}
@@ -3,7 +3,6 @@ package io.dongtai.iast.core.utils.matcher;
 import io.dongtai.iast.core.utils.ConfigUtils;
 import io.dongtai.iast.core.utils.PropertyUtils;
 import io.dongtai.log.DongTaiLog;
-import org.apache.commons.lang3.StringUtils;
 
 import java.lang.instrument.Instrumentation;
 import java.util.*;
@@ -17,19 +16,18 @@ public class ConfigMatcher {
 
     private static ConfigMatcher INSTANCE;
     private final Set<String> BLACKS;
-    private final String[] START_WITH_BLACKS;
-    private final String[] END_WITH_BLACKS;
+    private final StringTrie START_WITH_BLACKS;
+    private final StringTrie END_WITH_BLACKS;
     private final Set<String> BLACKS_SET;
-    private final String[] START_ARRAY;
-    private final String[] END_ARRAY;
-    private final String[] DISABLE_EXT;
+    private final StringTrie START_ARRAY;
+    private final StringTrie END_ARRAY;
+    private final StringTrie DISABLE_EXT;
     private final AbstractMatcher INTERNAL_CLASS = new InternalClass();
     private final AbstractMatcher FRAMEWORK_CLASS = new FrameworkClass();
     private final AbstractMatcher SERVER_CLASS = new ServerClass();
     private Instrumentation inst;
 
-    private final Set<String> BLACK_URL;
-    public final Set<String> FALLBACK_URL = new HashSet<String>();
+    private volatile BlackUrlMatcher blackUrlMatcher;
 
     public static ConfigMatcher getInstance() {
         if (null == INSTANCE) {
@@ -47,17 +45,19 @@ public class ConfigMatcher {
 
         Set<String>[] items = ConfigUtils.loadConfigFromFile(blackListFuncFile);
         BLACKS = items[0];
-        END_WITH_BLACKS = items[2].toArray(new String[0]);
-        START_WITH_BLACKS = items[1].toArray(new String[0]);
+        END_WITH_BLACKS = StringTrie.suffixes(items[2]);
+        START_WITH_BLACKS = StringTrie.prefixes(items[1]);
 
-        BLACK_URL = ConfigUtils.loadConfigFromFileByLine(blackUrl);
+        blackUrlMatcher = new BlackUrlMatcher(ConfigUtils.loadConfigFromFileByLine(blackUrl),
+                Collections.<String>emptySet());
 
         items = ConfigUtils.loadConfigFromFile(blackList);
-        START_ARRAY = items[1].toArray(new String[0]);
-        END_ARRAY = items[2].toArray(new String[0]);
+        START_ARRAY = StringTrie.prefixes(items[1]);
+        END_ARRAY = StringTrie.suffixes(items[2]);
         BLACKS_SET = items[0];
 
-        DISABLE_EXT = ConfigUtils.loadExtConfigFromFile(disableExtList);
+        String[] disableExt = ConfigUtils.loadExtConfigFromFile(disableExtList);
+        DISABLE_EXT = StringTrie.suffixes(disableExt == null ? null : Arrays.asList(disableExt));
     }
 
     /**
@@ -70,7 +70,7 @@ public class ConfigMatcher {
         if (uri == null || uri.isEmpty()) {
             return false;
         }
-        return StringUtils.endsWithAny(uri, DISABLE_EXT);
+        return DISABLE_EXT.matches(uri);
     }
 
     public boolean getBlackUrl(Map<String, Object> request) {
@@ -80,25 +80,7 @@ public class ConfigMatcher {
             }
             String uri = (String) request.get("requestURI");
             Map<String, String> headers = (Map<String, String>) request.get("headers");
-            for (String string : BLACK_URL) {
-                String[] strings = string.split(" ");
-                switch (Integer.parseInt(strings[1])) {
-                    case 1:
-                        if (uri.contains(strings[0])) {
-                            return true;
-                        }
-                    case 2:
-                        if (null != headers.get(strings[0].toLowerCase())) {
-                            return true;
-                        }
-                    default:
-                }
-            }
-            for (String string : FALLBACK_URL) {
-                if (uri.endsWith(string)){
-                    return true;
-                }
-            }
+            return blackUrlMatcher.matches(uri, headers);
         } catch (Exception e) {
             DongTaiLog.info("dongtai getBalckurl error");
             DongTaiLog.error(e);
@@ -106,16 +88,23 @@ public class ConfigMatcher {
         return false;
     }
 
+    /**
+     * 清空降级的 URL 后缀，重建匹配器后整体替换，不影响正在进行的匹配
+     */
+    public synchronized void clearFallbackUrls() {
+        blackUrlMatcher = new BlackUrlMatcher(blackUrlMatcher.getRules(), Collections.<String>emptySet());
+    }
+
     private boolean inHookBlacklist(String className) {
         return BLACKS_SET.contains(className)
-                || StringUtils.startsWithAny(className, START_ARRAY)
-                || StringUtils.endsWithAny(className, END_ARRAY);
+                || START_ARRAY.matches(className)
+                || END_ARRAY.matches(className);
     }
 
     public PropagatorType blackFunc(final String signature) {
         if (BLACKS.contains(signature)
-                || StringUtils.startsWithAny(signature, START_WITH_BLACKS)
-                || StringUtils.endsWithAny(signature, END_WITH_BLACKS)) {
+                || START_WITH_BLACKS.matches(signature)
+                || END_WITH_BLACKS.matches(signature)) {
             return PropagatorType.BLACK;
         } else {
             return PropagatorType.NONE;
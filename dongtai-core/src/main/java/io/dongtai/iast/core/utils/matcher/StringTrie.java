@@ -0,0 +1,104 @@
+package io.dongtai.iast.core.utils.matcher;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * 前缀/后缀黑名单匹配树，构造时编译，匹配耗时只与待匹配字符串长度有关，与黑名单条目数无关
+ * <p>
+ * 等价于 {@code StringUtils.startsWithAny} / {@code StringUtils.endsWithAny}，构造完成后只读，线程安全
+ */
+public class StringTrie {
+    private final Node root = new Node();
+    private final boolean reversed;
+
+    private StringTrie(Collection<String> words, boolean reversed) {
+        this.reversed = reversed;
+        if (words != null) {
+            for (String word : words) {
+                if (word != null) {
+                    add(word);
+                }
+            }
+        }
+    }
+
+    /**
+     * 匹配以任一前缀开头的字符串
+     */
+    public static StringTrie prefixes(Collection<String> prefixes) {
+        return new StringTrie(prefixes, false);
+    }
+
+    /**
+     * 匹配以任一后缀结尾的字符串
+     */
+    public static StringTrie suffixes(Collection<String> suffixes) {
+        return new StringTrie(suffixes, true);
+    }
+
+    public boolean matches(String str) {
+        if (str == null) {
+            return false;
+        }
+        Node node = this.root;
+        int length = str.length();
+        for (int i = 0; i < length; i++) {
+            if (node.terminal) {
+                return true;
+            }
+            node = node.child(str.charAt(this.reversed ? length - 1 - i : i));
+            if (node == null) {
+                return false;
+            }
+        }
+        return node.terminal;
+    }
+
+    private void add(String word) {
+        Node node = this.root;
+        int length = word.length();
+        for (int i = 0; i < length; i++) {
+            node = node.getOrAddChild(word.charAt(this.reversed ? length - 1 - i : i));
+        }
+        node.terminal = true;
+    }
+
+    private static class Node {
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        /**
+         * 有序的子节点字符，二分查找
+         */
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        private boolean terminal;
+
+        private Node child(char c) {
+            int i = Arrays.binarySearch(this.keys, c);
+            return i < 0 ? null : this.children[i];
+        }
+
+        private Node getOrAddChild(char c) {
+            int i = Arrays.binarySearch(this.keys, c);
+            if (i >= 0) {
+                return this.children[i];
+            }
+            int insert = -i - 1;
+            int size = this.keys.length;
+            char[] newKeys = new char[size + 1];
+            Node[] newChildren = new Node[size + 1];
+            System.arraycopy(this.keys, 0, newKeys, 0, insert);
+            System.arraycopy(this.children, 0, newChildren, 0, insert);
+            System.arraycopy(this.keys, insert, newKeys, insert + 1, size - insert);
+            System.arraycopy(this.children, insert, newChildren, insert + 1, size - insert);
+            Node node = new Node();
+            newKeys[insert] = c;
+            newChildren[insert] = node;
+            this.keys = newKeys;
+            this.children = newChildren;
+            return node;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package io.dongtai.iast.core.utils.matcher;
+
+import java.util.*;
+
+/**
+ * 多模式子串匹配(Aho-Corasick 自动机)，判断字符串是否包含任一模式串，单次扫描即可完成，与模式串数量无关
+ * <p>
+ * 构造完成后只读，线程安全
+ */
+public class SubstringMatcher {
+    private final Node root = new Node();
+
+    public SubstringMatcher(Collection<String> patterns) {
+        if (patterns != null) {
+            for (String pattern : patterns) {
+                if (pattern != null) {
+                    add(pattern);
+                }
+            }
+        }
+        buildFailLinks();
+    }
+
+    public boolean matches(String str) {
+        if (str == null) {
+            return false;
+        }
+        Node node = this.root;
+        if (node.output) {
+            return true;
+        }
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            Node next = node.child(c);
+            while (next == null && node != this.root) {
+                node = node.fail;
+                next = node.child(c);
+            }
+            node = next == null ? this.root : next;
+            if (node.output) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void add(String pattern) {
+        Node node = this.root;
+        for (int i = 0; i < pattern.length(); i++) {
+            node = node.getOrAddChild(pattern.charAt(i));
+        }
+        node.output = true;
+    }
+
+    /**
+     * 广度优先计算失配指针，并把失配链上的命中标记传递到当前节点
+     */
+    private void buildFailLinks() {
+        Deque<Node> queue = new ArrayDeque<Node>();
+        this.root.fail = this.root;
+        for (Node child : this.root.children) {
+            child.fail = this.root;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            for (int i = 0; i < node.keys.length; i++) {
+                char c = node.keys[i];
+                Node child = node.children[i];
+                Node fail = node.fail;
+                Node target = fail.child(c);
+                while (target == null && fail != this.root) {
+                    fail = fail.fail;
+                    target = fail.child(c);
+                }
+                child.fail = target == null ? this.root : target;
+                child.output |= child.fail.output;
+                queue.add(child);
+            }
+        }
+    }
+
+    private static class Node {
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        private Node fail;
+        private boolean output;
+
+        private Node child(char c) {
+            int i = Arrays.binarySearch(this.keys, c);
+            return i < 0 ? null : this.children[i];
+        }
+
+        private Node getOrAddChild(char c) {
+            int i = Arrays.binarySearch(this.keys, c);
+            if (i >= 0) {
+                return this.children[i];
+            }
+            int insert = -i - 1;
+            int size = this.keys.length;
+            char[] newKeys = new char[size + 1];
+            Node[] newChildren = new Node[size + 1];
+            System.arraycopy(this.keys, 0, newKeys, 0, insert);
+            System.arraycopy(this.children, 0, newChildren, 0, insert);
+            System.arraycopy(this.keys, insert, newKeys, insert + 1, size - insert);
+            System.arraycopy(this.children, insert, newChildren, insert + 1, size - insert);
+            Node node = new Node();
+            newKeys[insert] = c;
+            newChildren[insert] = node;
+            this.keys = newKeys;
+            this.children = newChildren;
+            return node;
+        }
+    }
+}
@@ -2,35 +2,44 @@ package io.dongtai.iast.core.utils.threadlocal;
 
 import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
 import io.dongtai.iast.core.utils.TaintPoolUtils;
+import io.dongtai.iast.core.utils.collection.IntHashSet;
 import io.dongtai.log.DongTaiLog;
 
 import java.util.*;
 
 /**
+ * 当前请求的污点哈希池，状态保存在 {@link RequestState} 中
+ *
  * @author dongzhiyong@huoxian.cn
  */
-public class IastTaintHashCodes extends ThreadLocal<HashSet<Integer>> {
-    @Override
-    protected HashSet<Integer> initialValue() {
-        return null;
+public class IastTaintHashCodes {
+    public IntHashSet get() {
+        return RequestState.get().getTaintHashCodes();
+    }
+
+    /**
+     * 进入请求入口时启用当前线程的污点池
+     */
+    public void enable() {
+        RequestState.get().enableTaintHashCodes();
     }
 
     public boolean isEmpty() {
-        return this.get() == null || this.get().isEmpty();
+        IntHashSet pool = this.get();
+        return pool == null || pool.isEmpty();
     }
 
-    public boolean contains(Integer hashCode) {
-        if (this.get() == null) {
-            return false;
-        }
-        return this.get().contains(hashCode);
+    public boolean contains(int hashCode) {
+        IntHashSet pool = this.get();
+        return pool != null && pool.contains(hashCode);
     }
 
-    public void add(Integer hashCode) {
-        if (this.get() == null) {
+    public void add(int hashCode) {
+        IntHashSet pool = this.get();
+        if (pool == null) {
             return;
         }
-        this.get().add(hashCode);
+        pool.add(hashCode);
     }
 
     public void addObject(Object obj, MethodEvent event, boolean isSource) {
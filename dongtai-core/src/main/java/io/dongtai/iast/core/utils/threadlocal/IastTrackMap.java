@@ -5,12 +5,20 @@ import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
 import java.util.Map;
 
 /**
+ * 当前请求的污点方法池，状态保存在 {@link RequestState} 中
+ *
  * @author dongzhiyong@huoxian.cn
  */
-public class IastTrackMap extends ThreadLocal<Map<Integer, MethodEvent>> {
-    @Override
-    protected Map<Integer, MethodEvent> initialValue() {
-        return null;
+public class IastTrackMap {
+    public Map<Integer, MethodEvent> get() {
+        return RequestState.get().getTrackMap();
+    }
+
+    /**
+     * 进入请求入口时启用当前线程的污点方法池
+     */
+    public void enable() {
+        RequestState.get().enableTrackMap();
     }
 
     public void addTrackMethod(Integer invokeId, MethodEvent event) {
@@ -8,12 +8,12 @@ import io.dongtai.iast.core.utils.config.RemoteConfigUtils;
 import java.util.Properties;
 
 /**
- * 本地线程隔离限速器
+ * 本地线程隔离限速器，限速器实例保存在 {@link RequestState} 中，按请求重新计算突发令牌
  *
  * @author chenyi
  * @date 2022/2/25
  */
-public class RateLimiterThreadLocal extends ThreadLocal<RateLimiter> {
+public class RateLimiterThreadLocal {
     /**
      * 默认每次尝试获取的许可数
      */
@@ -32,9 +32,14 @@ public class RateLimiterThreadLocal extends ThreadLocal<RateLimiter> {
         this.initBurstSeconds = RemoteConfigUtils.getHookLimitInitBurstSeconds(properties);
     }
 
-    @Override
-    protected RateLimiter initialValue() {
-        return RateLimiterWithCapacity.createSmoothBurstyLimiter(tokenPerSecond, initBurstSeconds);
+    public RateLimiter get() {
+        RequestState state = RequestState.get();
+        RateLimiter rateLimiter = state.getHookRateLimiter();
+        if (rateLimiter == null) {
+            rateLimiter = RateLimiterWithCapacity.createSmoothBurstyLimiter(tokenPerSecond, initBurstSeconds);
+            state.setHookRateLimiter(rateLimiter);
+        }
+        return rateLimiter;
     }
 
     /**
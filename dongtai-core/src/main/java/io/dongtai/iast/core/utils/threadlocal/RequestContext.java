@@ -3,12 +3,17 @@ package io.dongtai.iast.core.utils.threadlocal;
 import java.util.Map;
 
 /**
+ * 当前请求的元数据，状态保存在 {@link RequestState} 中
+ *
  * @author dongzhiyong@huoxian.cn
  */
-public class RequestContext extends ThreadLocal<Map<String, Object>> {
-    @Override
-    protected Map<String, Object> initialValue() {
-        return null;
+public class RequestContext {
+    public Map<String, Object> get() {
+        return RequestState.get().getRequestContext();
+    }
+
+    public void set(Map<String, Object> requestContext) {
+        RequestState.get().setRequestContext(requestContext);
     }
 
     public String getCookieValue() {
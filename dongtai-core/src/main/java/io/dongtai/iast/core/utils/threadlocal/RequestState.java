@@ -0,0 +1,192 @@
+package io.dongtai.iast.core.utils.threadlocal;
+
+import com.google.common.util.concurrent.RateLimiter;
+import io.dongtai.iast.core.handler.context.TracingContext;
+import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
+import io.dongtai.iast.core.handler.hookpoint.vulscan.taintrange.TaintRanges;
+import io.dongtai.iast.core.utils.collection.IntHashSet;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 请求级别的线程状态，合并原先分散的多个 ThreadLocal，hook 点只需一次 ThreadLocal 查找；
+ * 请求结束时原地重置，线程复用时不再重新分配
+ */
+public class RequestState {
+    private static final int TRACK_MAP_CAPACITY = 1024;
+
+    /**
+     * 重置时若污点方法池或污点范围池超过该大小则重新分配，避免单个大请求长期占用线程内存
+     */
+    private static final int MAX_RETAINED_SIZE = 8192;
+
+    /**
+     * 线程内可回收方法事件的最大缓存数量
+     */
+    private static final int MAX_POOLED_EVENTS = 16;
+
+    private static final ThreadLocal<RequestState> STATE = new ThreadLocal<RequestState>() {
+        @Override
+        protected RequestState initialValue() {
+            return new RequestState();
+        }
+    };
+
+    private Map<String, Object> requestContext;
+
+    private Map<Integer, MethodEvent> trackMap = new HashMap<Integer, MethodEvent>(TRACK_MAP_CAPACITY);
+    private boolean trackMapEnabled;
+
+    private final IntHashSet taintHashCodes = new IntHashSet();
+    private boolean taintHashCodesEnabled;
+
+    private Map<Integer, TaintRanges> taintRangesPool = new HashMap<Integer, TaintRanges>();
+    private boolean taintRangesPoolEnabled;
+
+    private boolean replayEntry;
+
+    private boolean heavyHookFallback;
+
+    private RateLimiter hookRateLimiter;
+
+    private TracingContext tracingContext;
+
+    private final MethodEvent[] eventPool = new MethodEvent[MAX_POOLED_EVENTS];
+    private int pooledEvents;
+
+    public static RequestState get() {
+        return STATE.get();
+    }
+
+    /**
+     * 释放当前线程的状态对象，仅在引擎卸载时使用；请求之间使用 {@link #reset()}
+     */
+    public static void remove() {
+        STATE.remove();
+    }
+
+    public Map<String, Object> getRequestContext() {
+        return this.requestContext;
+    }
+
+    public void setRequestContext(Map<String, Object> requestContext) {
+        this.requestContext = requestContext;
+    }
+
+    public Map<Integer, MethodEvent> getTrackMap() {
+        return this.trackMapEnabled ? this.trackMap : null;
+    }
+
+    public void enableTrackMap() {
+        this.trackMap.clear();
+        this.trackMapEnabled = true;
+    }
+
+    public IntHashSet getTaintHashCodes() {
+        return this.taintHashCodesEnabled ? this.taintHashCodes : null;
+    }
+
+    public void enableTaintHashCodes() {
+        this.taintHashCodes.clear();
+        this.taintHashCodesEnabled = true;
+    }
+
+    public Map<Integer, TaintRanges> getTaintRangesPool() {
+        return this.taintRangesPoolEnabled ? this.taintRangesPool : null;
+    }
+
+    public void enableTaintRangesPool() {
+        this.taintRangesPool.clear();
+        this.taintRangesPoolEnabled = true;
+    }
+
+    public boolean isReplayEntry() {
+        return this.replayEntry;
+    }
+
+    public void enterReplayEntry() {
+        this.replayEntry = true;
+    }
+
+    public boolean isHeavyHookFallback() {
+        return this.heavyHookFallback;
+    }
+
+    public void setHeavyHookFallback(boolean heavyHookFallback) {
+        this.heavyHookFallback = heavyHookFallback;
+    }
+
+    public RateLimiter getHookRateLimiter() {
+        return this.hookRateLimiter;
+    }
+
+    public void setHookRateLimiter(RateLimiter hookRateLimiter) {
+        this.hookRateLimiter = hookRateLimiter;
+    }
+
+    public TracingContext getTracingContext() {
+        return this.tracingContext;
+    }
+
+    public void setTracingContext(TracingContext tracingContext) {
+        this.tracingContext = tracingContext;
+    }
+
+    /**
+     * 从线程内事件池获取方法事件，池为空时新建
+     */
+    public MethodEvent obtainMethodEvent(String className, String matchedClassName, String methodName,
+                                         String signature, Object instance, Object[] parameters,
+                                         Object retObject, boolean isStatic) {
+        if (this.pooledEvents == 0) {
+            return new MethodEvent(0, -1, className, matchedClassName, methodName,
+                    signature, signature, instance, parameters, retObject, "", isStatic, null);
+        }
+        MethodEvent event = this.eventPool[--this.pooledEvents];
+        this.eventPool[this.pooledEvents] = null;
+        event.init(0, -1, className, matchedClassName, methodName,
+                signature, signature, instance, parameters, retObject, "", isStatic, null);
+        return event;
+    }
+
+    /**
+     * 回收未加入污点方法池的事件，调用方须保证此后不再持有该事件
+     */
+    public void recycleMethodEvent(MethodEvent event) {
+        event.recycle();
+        if (this.pooledEvents < MAX_POOLED_EVENTS) {
+            this.eventPool[this.pooledEvents++] = event;
+        }
+    }
+
+    /**
+     * 请求结束时原地重置状态，保留已分配的容器供下次请求复用
+     */
+    public void reset() {
+        this.requestContext = null;
+
+        if (this.trackMap.size() > MAX_RETAINED_SIZE) {
+            this.trackMap = new HashMap<Integer, MethodEvent>(TRACK_MAP_CAPACITY);
+        } else {
+            this.trackMap.clear();
+        }
+        this.trackMapEnabled = false;
+
+        this.taintHashCodes.clear();
+        this.taintHashCodesEnabled = false;
+
+        if (this.taintRangesPool.size() > MAX_RETAINED_SIZE) {
+            this.taintRangesPool = new HashMap<Integer, TaintRanges>();
+        } else {
+            this.taintRangesPool.clear();
+        }
+        this.taintRangesPoolEnabled = false;
+
+        this.replayEntry = false;
+        this.heavyHookFallback = false;
+        // hook 限速器按请求计算突发令牌，下次获取时重新创建
+        this.hookRateLimiter = null;
+        this.tracingContext = null;
+    }
+}
@@ -4,10 +4,19 @@ import io.dongtai.iast.core.handler.hookpoint.vulscan.taintrange.TaintRanges;
 
 import java.util.Map;
 
-public class TaintRangesPool extends ThreadLocal<Map<Integer, TaintRanges>> {
-    @Override
-    protected Map<Integer, TaintRanges> initialValue() {
-        return null;
+/**
+ * 当前请求的污点范围池，状态保存在 {@link RequestState} 中
+ */
+public class TaintRangesPool {
+    public Map<Integer, TaintRanges> get() {
+        return RequestState.get().getTaintRangesPool();
+    }
+
+    /**
+     * 进入请求入口时启用当前线程的污点范围池
+     */
+    public void enable() {
+        RequestState.get().enableTaintRangesPool();
     }
 
     public void add(Integer hash, TaintRanges taintRanges) {
@@ -0,0 +1,99 @@
+package io.dongtai.iast.core.bytecode;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.Arrays;
+
+public class OriginalClassStoreTest {
+    @Test
+    public void testSaveByLoader() {
+        OriginalClassStore store = new OriginalClassStore(1024);
+        ClassLoader loader = new URLClassLoader(new URL[0]);
+
+        Assert.assertTrue(store.save(null, "a.A", new byte[]{1}));
+        Assert.assertTrue(store.save(loader, "a.A", new byte[]{2, 2}));
+        Assert.assertArrayEquals(new byte[]{1}, store.get(null, "a.A"));
+        Assert.assertArrayEquals(new byte[]{2, 2}, store.get(loader, "a.A"));
+        Assert.assertNull(store.get(loader, "a.B"));
+        Assert.assertEquals(2, store.size());
+        Assert.assertEquals(3, store.getUsedBytes());
+
+        Assert.assertTrue(store.save(loader, "a.A", new byte[]{3}));
+        Assert.assertArrayEquals(new byte[]{3}, store.get(loader, "a.A"));
+        Assert.assertEquals(2, store.getUsedBytes());
+
+        store.clear();
+        Assert.assertEquals(0, store.size());
+        Assert.assertNull(store.get(null, "a.A"));
+    }
+
+    @Test
+    public void testMaxBytes() {
+        OriginalClassStore store = new OriginalClassStore(4);
+        Assert.assertTrue(store.save(null, "a.A", new byte[3]));
+        Assert.assertFalse(store.save(null, "a.B", new byte[2]));
+        Assert.assertNull(store.get(null, "a.B"));
+        Assert.assertTrue(store.save(null, "a.A", new byte[4]));
+        Assert.assertEquals(4, store.getUsedBytes());
+    }
+
+    @Test
+    public void testAllocationFailure() {
+        OriginalClassStore store = new OriginalClassStore(1024) {
+            @Override
+            ByteBuffer allocate(int capacity) throws IOException {
+                if (capacity > 2) {
+                    throw new OutOfMemoryError("Direct buffer memory");
+                }
+                return super.allocate(capacity);
+            }
+        };
+        Assert.assertTrue(store.save(null, "a.A", new byte[]{1}));
+        Assert.assertFalse(store.save(null, "a.B", new byte[3]));
+        Assert.assertFalse(store.save(null, "a.A", new byte[3]));
+        Assert.assertNull(store.get(null, "a.B"));
+        Assert.assertArrayEquals(new byte[]{1}, store.get(null, "a.A"));
+        Assert.assertEquals(1, store.size());
+        Assert.assertEquals(1, store.getUsedBytes());
+    }
+
+    @Test
+    public void testSlabAllocation() {
+        final int[] slabs = new int[1];
+        OriginalClassStore store = new OriginalClassStore(4096, 256) {
+            @Override
+            ByteBuffer mapSlab(int size) throws IOException {
+                slabs[0]++;
+                ByteBuffer slab = super.mapSlab(size);
+                Assert.assertTrue(slab instanceof MappedByteBuffer);
+                return slab;
+            }
+        };
+        for (int i = 0; i < 5; i++) {
+            byte[] bytes = new byte[100];
+            Arrays.fill(bytes, (byte) i);
+            Assert.assertTrue(store.save(null, "a.A" + i, bytes));
+        }
+        // 每个 256 字节的块容纳两个类
+        Assert.assertEquals(3, slabs[0]);
+
+        byte[] large = new byte[300];
+        large[299] = 7;
+        Assert.assertTrue(store.save(null, "a.Large", large));
+        Assert.assertEquals(4, slabs[0]);
+
+        for (int i = 0; i < 5; i++) {
+            byte[] expected = new byte[100];
+            Arrays.fill(expected, (byte) i);
+            Assert.assertArrayEquals(expected, store.get(null, "a.A" + i));
+        }
+        Assert.assertArrayEquals(large, store.get(null, "a.Large"));
+        Assert.assertEquals(800, store.getUsedBytes());
+    }
+}
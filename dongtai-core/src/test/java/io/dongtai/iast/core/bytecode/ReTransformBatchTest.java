@@ -0,0 +1,87 @@
+package io.dongtai.iast.core.bytecode;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.instrument.Instrumentation;
+import java.lang.instrument.UnmodifiableClassException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+public class ReTransformBatchTest {
+    /**
+     * 模拟 retransformClasses：依次回调每个类的 transform，遇到无法修改的类时整批失败，已回调的类也不生效
+     */
+    private static class FakeInstrumentation implements InvocationHandler {
+        private final Class<?> unmodifiable;
+        private final List<Class<?>> transformed = new ArrayList<Class<?>>();
+        private final List<Class<?>> committed = new ArrayList<Class<?>>();
+        private int calls;
+
+        private FakeInstrumentation(Class<?> unmodifiable) {
+            this.unmodifiable = unmodifiable;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!"retransformClasses".equals(method.getName())) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            calls++;
+            for (final Class<?> clazz : (Class<?>[]) args[0]) {
+                if (clazz == unmodifiable) {
+                    throw new UnmodifiableClassException(clazz.getName());
+                }
+                transformed.add(clazz);
+                ReTransformBatch.defer(new Runnable() {
+                    @Override
+                    public void run() {
+                        committed.add(clazz);
+                    }
+                });
+            }
+            return null;
+        }
+
+        private Instrumentation newProxy() {
+            return (Instrumentation) Proxy.newProxyInstance(Instrumentation.class.getClassLoader(),
+                    new Class<?>[]{Instrumentation.class}, this);
+        }
+    }
+
+    @Test
+    public void testBatch() {
+        FakeInstrumentation fake = new FakeInstrumentation(null);
+        Class<?>[] batch = new Class<?>[]{String.class, Integer.class, Long.class};
+        ReTransformBatch.reTransform(fake.newProxy(), batch);
+        Assert.assertEquals(1, fake.calls);
+        Assert.assertEquals(Arrays.asList(batch), fake.committed);
+        Assert.assertFalse(ReTransformBatch.isInBatch());
+    }
+
+    @Test
+    public void testFallback() {
+        FakeInstrumentation fake = new FakeInstrumentation(Integer.class);
+        ReTransformBatch.reTransform(fake.newProxy(), new Class<?>[]{String.class, Integer.class, Long.class});
+
+        // 整批一次 + 逐个三次；失败批次中已回调的 String 不会被重复记录
+        Assert.assertEquals(4, fake.calls);
+        Assert.assertEquals(Arrays.<Class<?>>asList(String.class, String.class, Long.class), fake.transformed);
+        Assert.assertEquals(Arrays.<Class<?>>asList(String.class, Long.class), fake.committed);
+        Assert.assertFalse(ReTransformBatch.isInBatch());
+    }
+
+    @Test
+    public void testDeferOutsideBatch() {
+        final List<String> actions = new ArrayList<String>();
+        ReTransformBatch.defer(new Runnable() {
+            @Override
+            public void run() {
+                actions.add("run");
+            }
+        });
+        Assert.assertEquals(Collections.singletonList("run"), actions);
+    }
+}
@@ -0,0 +1,78 @@
+package io.dongtai.iast.core.bytecode;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.HashSet;
+
+public class TransformCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testPersistAcrossReopen() throws Exception {
+        String dir = folder.getRoot().getAbsolutePath();
+        byte[] enhancedKey = TransformCache.key(new byte[]{1, 2, 3}, false,
+                new HashSet<String>(Arrays.asList("a.B", "a.C")));
+        byte[] unchangedKey = TransformCache.key(new byte[]{4, 5}, false, null);
+        byte[] enhanced = new byte[]{9, 8, 7, 6};
+
+        TransformCache cache = TransformCache.open(dir, "v1", "policy");
+        Assert.assertNull(cache.get(enhancedKey));
+        cache.put(enhancedKey, enhanced);
+        cache.put(unchangedKey, null);
+        Assert.assertArrayEquals(enhanced, cache.get(enhancedKey));
+        Assert.assertSame(TransformCache.UNCHANGED, cache.get(unchangedKey));
+        cache.close();
+
+        cache = TransformCache.open(dir, "v1", "policy");
+        Assert.assertEquals(2, cache.size());
+        Assert.assertArrayEquals(enhanced, cache.get(enhancedKey));
+        Assert.assertSame(TransformCache.UNCHANGED, cache.get(unchangedKey));
+        cache.close();
+
+        cache = TransformCache.open(dir, "v1", "other-policy");
+        Assert.assertNull(cache.get(enhancedKey));
+        cache.close();
+    }
+
+    @Test
+    public void testKeyDependsOnAncestors() {
+        byte[] bytes = new byte[]{1, 2, 3};
+        Assert.assertArrayEquals(TransformCache.key(bytes, false, new HashSet<String>(Arrays.asList("a", "b"))),
+                TransformCache.key(bytes, false, new HashSet<String>(Arrays.asList("b", "a"))));
+        Assert.assertFalse(Arrays.equals(TransformCache.key(bytes, false, null),
+                TransformCache.key(bytes, false, new HashSet<String>(Arrays.asList("a")))));
+        Assert.assertFalse(Arrays.equals(TransformCache.key(bytes, false, null),
+                TransformCache.key(bytes, true, null)));
+    }
+
+    @Test
+    public void testDropTruncatedTail() throws Exception {
+        String dir = folder.getRoot().getAbsolutePath();
+        byte[] first = TransformCache.key(new byte[]{1}, false, null);
+        byte[] second = TransformCache.key(new byte[]{2}, false, null);
+
+        TransformCache cache = TransformCache.open(dir, "v1", "policy");
+        cache.put(first, new byte[]{1, 1});
+        cache.put(second, new byte[]{2, 2, 2, 2});
+        cache.close();
+
+        File dataFile = folder.getRoot().listFiles()[0];
+        RandomAccessFile file = new RandomAccessFile(dataFile, "rw");
+        file.setLength(file.length() - 2);
+        file.close();
+
+        cache = TransformCache.open(dir, "v1", "policy");
+        Assert.assertArrayEquals(new byte[]{1, 1}, cache.get(first));
+        Assert.assertNull(cache.get(second));
+        cache.put(second, new byte[]{3});
+        Assert.assertArrayEquals(new byte[]{3}, cache.get(second));
+        cache.close();
+    }
+}
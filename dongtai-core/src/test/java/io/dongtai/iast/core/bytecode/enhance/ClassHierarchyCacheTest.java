@@ -0,0 +1,115 @@
+package io.dongtai.iast.core.bytecode.enhance;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+public class ClassHierarchyCacheTest {
+    private final ClassHierarchyCache cache = ClassHierarchyCache.getInstance();
+    private final ClassLoader loader = ClassHierarchyCacheTest.class.getClassLoader();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testGetCommonSuperClass() {
+        Assert.assertEquals("java/util/AbstractList",
+                cache.getCommonSuperClass("java/util/ArrayList", "java/util/LinkedList", loader));
+        Assert.assertEquals("java/util/AbstractList",
+                cache.getCommonSuperClass("java/util/AbstractList", "java/util/ArrayList", loader));
+        Assert.assertEquals("java/util/List",
+                cache.getCommonSuperClass("java/util/ArrayList", "java/util/List", loader));
+        Assert.assertEquals("java/lang/Object",
+                cache.getCommonSuperClass("java/util/List", "java/util/Set", loader));
+        Assert.assertEquals("java/lang/Object",
+                cache.getCommonSuperClass("java/lang/String", "not/Exists", loader));
+        Assert.assertEquals("java/lang/Exception",
+                cache.getCommonSuperClass("java/io/IOException", "java/lang/RuntimeException", null));
+    }
+
+    @Test
+    public void testPutFromTransform() {
+        ClassLoader isolated = new URLClassLoader(new URL[0], null);
+        Assert.assertNull(cache.get(isolated, "demo/Child"));
+
+        cache.put(isolated, "demo/Parent", "java/lang/Object", null, Opcodes.ACC_PUBLIC);
+        cache.put(isolated, "demo/Child", "demo/Parent", new String[]{"java/io/Serializable"}, Opcodes.ACC_PUBLIC);
+        cache.put(isolated, "demo/Other", "demo/Parent", null, Opcodes.ACC_PUBLIC);
+
+        ClassHierarchyCache.ClassInfo info = cache.get(isolated, "demo/Child");
+        Assert.assertEquals("demo/Parent", info.getSuperName());
+        Assert.assertArrayEquals(new String[]{"java/io/Serializable"}, info.getInterfaces());
+        Assert.assertFalse(info.isInterface());
+        Assert.assertEquals("demo/Parent", cache.getCommonSuperClass("demo/Child", "demo/Other", isolated));
+        Assert.assertNull(cache.get(loader, "demo/Child"));
+    }
+
+    @Test
+    public void testMissingRetry() throws IOException {
+        File dir = folder.newFolder();
+        ClassLoader isolated = new URLClassLoader(new URL[]{dir.toURI().toURL()}, null);
+        ClassHierarchyCache retrying = new ClassHierarchyCache(0, 16);
+        ClassHierarchyCache remembering = new ClassHierarchyCache(60 * 1000L, 16);
+        Assert.assertNull(retrying.get(isolated, "demo/Late"));
+        Assert.assertNull(remembering.get(isolated, "demo/Late"));
+
+        writeClass(dir, "demo/Late", "java/lang/Thread");
+        Assert.assertEquals("java/lang/Thread", retrying.get(isolated, "demo/Late").getSuperName());
+        Assert.assertNull(remembering.get(isolated, "demo/Late"));
+    }
+
+    @Test
+    public void testCacheByDefiningLoader() throws IOException {
+        File dir = folder.newFolder();
+        writeClass(dir, "demo/Own", "java/util/ArrayList");
+        ClassHierarchyCache scoped = new ClassHierarchyCache(60 * 1000L, 16);
+        ClassLoader app1 = new URLClassLoader(new URL[]{dir.toURI().toURL()}, loader);
+        ClassLoader app2 = new URLClassLoader(new URL[0], loader);
+
+        Assert.assertEquals("java/util/AbstractList", scoped.get(app1, "java/util/ArrayList").getSuperName());
+        Assert.assertEquals("java/util/AbstractList", scoped.get(app2, "java/util/ArrayList").getSuperName());
+        Assert.assertEquals("java/util/ArrayList", scoped.get(app1, "demo/Own").getSuperName());
+        Assert.assertNull(scoped.get(app2, "demo/Own"));
+
+        // JDK 类记在父加载器下供两个应用共用；应用自己的类及找不到的类各自记录
+        Assert.assertEquals(1, scoped.size(app1));
+        Assert.assertEquals(1, scoped.size(app2));
+    }
+
+    @Test
+    public void testMaxClassesPerLoader() {
+        ClassLoader isolated = new URLClassLoader(new URL[0], null);
+        ClassHierarchyCache bounded = new ClassHierarchyCache(60 * 1000L, 2);
+        bounded.put(isolated, "demo/A", "java/lang/Object", null, Opcodes.ACC_PUBLIC);
+        bounded.put(isolated, "demo/B", "java/lang/Object", null, Opcodes.ACC_PUBLIC);
+        bounded.put(isolated, "demo/B", "demo/A", null, Opcodes.ACC_PUBLIC);
+        Assert.assertEquals(2, bounded.size(isolated));
+
+        bounded.put(isolated, "demo/C", "java/lang/Object", null, Opcodes.ACC_PUBLIC);
+        Assert.assertEquals(1, bounded.size(isolated));
+        Assert.assertEquals("java/lang/Object", bounded.get(isolated, "demo/C").getSuperName());
+    }
+
+    private static void writeClass(File dir, String internalName, String superName) throws IOException {
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC, internalName, null, superName, null);
+        cw.visitEnd();
+        File file = new File(dir, internalName + ".class");
+        Assert.assertTrue(file.getParentFile().mkdirs() || file.getParentFile().isDirectory());
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(cw.toByteArray());
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package io.dongtai.iast.core.bytecode.enhance;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.objectweb.asm.Opcodes;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class IastClassDiagramTest {
+    private static final Class<?>[] CLASSES = new Class<?>[]{
+            ArrayList.class, LinkedList.class, HashMap.class, TreeMap.class, ConcurrentHashMap.class,
+            LinkedHashSet.class, ArrayDeque.class, CopyOnWriteArrayList.class, Vector.class, Stack.class,
+            IllegalArgumentException.class, java.io.FileNotFoundException.class, StringBuilder.class,
+            java.io.BufferedInputStream.class, java.util.zip.GZIPInputStream.class, ThreadPoolExecutor.class,
+    };
+
+    @Test
+    public void testPerLoaderNamespace() {
+        IastClassDiagram diagram = new IastClassDiagram();
+        ClassLoader loader1 = new URLClassLoader(new URL[0], null);
+        ClassLoader loader2 = new URLClassLoader(new URL[0], null);
+        ClassHierarchyCache.getInstance().put(loader1, "demo/A", "java/lang/Object", null, Opcodes.ACC_PUBLIC);
+        ClassHierarchyCache.getInstance().put(loader2, "demo/B", "java/lang/Object",
+                new String[]{"java/io/Serializable"}, Opcodes.ACC_PUBLIC);
+
+        Set<String> family1 = diagram.getAncestors(loader1, "demo.Foo", "demo/A", new String[0]);
+        Set<String> family2 = diagram.getAncestors(loader2, "demo.Foo", "demo/B", new String[0]);
+
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("demo.Foo", "demo.A")), family1);
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("demo.Foo", "demo.B", "java.io.Serializable")), family2);
+        Assert.assertSame(family1, diagram.getDiagram(loader1, "demo.Foo"));
+        Assert.assertNull(diagram.getDiagram(null, "demo.Foo"));
+        try {
+            family1.add("x");
+            Assert.fail("diagram should be immutable");
+        } catch (UnsupportedOperationException ignore) {
+        }
+    }
+
+    @Test
+    public void testUnresolvedAncestorNotCached() {
+        IastClassDiagram diagram = new IastClassDiagram();
+        ClassLoader loader = new URLClassLoader(new URL[0], null);
+
+        Set<String> partial = diagram.getAncestors(loader, "demo.Foo", "demo/Late", new String[0]);
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("demo.Foo", "demo.Late")), partial);
+        Assert.assertNull(diagram.getDiagram(loader, "demo.Foo"));
+        Assert.assertNull(diagram.getDiagram(loader, "demo.Late"));
+
+        // demo.Late 稍后被加载，其真实的继承信息应覆盖先前的扫描结果
+        ClassHierarchyCache.getInstance().put(loader, "demo/Late", "java/lang/Object",
+                new String[]{"java/io/Serializable"}, Opcodes.ACC_PUBLIC);
+        Set<String> late = diagram.getAncestors(loader, "demo.Late", "java/lang/Object",
+                new String[]{"java/io/Serializable"});
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("demo.Late", "java.io.Serializable")), late);
+        Assert.assertSame(late, diagram.getDiagram(loader, "demo.Late"));
+
+        Set<String> family = diagram.getAncestors(loader, "demo.Foo", "demo/Late", new String[0]);
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("demo.Foo", "demo.Late", "java.io.Serializable")), family);
+        Assert.assertSame(family, diagram.getDiagram(loader, "demo.Foo"));
+    }
+
+    @Test
+    public void testConcurrentGetAncestors() throws Exception {
+        final IastClassDiagram diagram = new IastClassDiagram();
+        final int threads = 8;
+        final int rounds = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+        for (int t = 0; t < threads; t++) {
+            final int offset = t;
+            futures.add(executor.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    start.await();
+                    int count = 0;
+                    for (int i = 0; i < rounds; i++) {
+                        Class<?> clazz = CLASSES[(i + offset) % CLASSES.length];
+                        Set<String> ancestors = diagram.getAncestors(null, clazz.getName(),
+                                internalName(clazz.getSuperclass()), internalNames(clazz.getInterfaces()));
+                        Assert.assertEquals(clazz.getName(), expectedFamily(clazz), ancestors);
+                        count++;
+                    }
+                    return count;
+                }
+            }));
+        }
+
+        start.countDown();
+        int total = 0;
+        for (Future<Integer> future : futures) {
+            total += future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        Assert.assertEquals(threads * rounds, total);
+    }
+
+    private static Set<String> expectedFamily(Class<?> clazz) {
+        Set<String> family = new HashSet<String>();
+        Queue<Class<?>> queue = new LinkedList<Class<?>>();
+        queue.add(clazz);
+        while (!queue.isEmpty()) {
+            Class<?> current = queue.poll();
+            if (current == Object.class || !family.add(current.getName())) {
+                continue;
+            }
+            if (current.getSuperclass() != null) {
+                queue.add(current.getSuperclass());
+            }
+            Collections.addAll(queue, current.getInterfaces());
+        }
+        return family;
+    }
+
+    private static String internalName(Class<?> clazz) {
+        return clazz == null ? null : clazz.getName().replace('.', '/');
+    }
+
+    private static String[] internalNames(Class<?>[] classes) {
+        String[] names = new String[classes.length];
+        for (int i = 0; i < classes.length; i++) {
+            names[i] = internalName(classes[i]);
+        }
+        return names;
+    }
+}
@@ -0,0 +1,25 @@
+package io.dongtai.iast.core.bytecode.sca;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.security.CodeSource;
+import java.security.cert.Certificate;
+
+public class ScaScannerTest {
+    @Test
+    public void testScanOncePerCodeSource() {
+        // 不带位置的 CodeSource 不会提交实际的扫描任务
+        CodeSource codeSource = new CodeSource(null, (Certificate[]) null);
+        Assert.assertTrue(ScaScanner.scanForSCA(codeSource));
+        Assert.assertFalse(ScaScanner.scanForSCA(codeSource));
+        Assert.assertFalse(ScaScanner.scanForSCA(codeSource));
+
+        // 按对象标识去重，另一个 CodeSource 即使内容相同也会处理
+        CodeSource other = new CodeSource(null, (Certificate[]) null);
+        Assert.assertEquals(codeSource, other);
+        Assert.assertTrue(ScaScanner.scanForSCA(other));
+        Assert.assertFalse(ScaScanner.scanForSCA(other));
+        Assert.assertFalse(ScaScanner.scanForSCA(codeSource));
+    }
+}
@@ -0,0 +1,48 @@
+package io.dongtai.iast.core.bytecode.sca;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.*;
+
+public class ScaSignatureIndexTest {
+    @Test
+    public void testPersistence() throws IOException {
+        File file = File.createTempFile("sca-signature", ".idx");
+        Assert.assertTrue(file.delete());
+        try {
+            ScaSignatureIndex index = ScaSignatureIndex.load(file);
+            Assert.assertEquals(0, index.size());
+            index.put("/a/b c.jar", 10, 100, "sig");
+            index.save();
+
+            ScaSignatureIndex loaded = ScaSignatureIndex.load(file);
+            Assert.assertEquals(1, loaded.size());
+            Assert.assertEquals("sig", loaded.get("/a/b c.jar", 10, 100));
+            Assert.assertNull(loaded.get("/a/b c.jar", 11, 100));
+            Assert.assertNull(loaded.get("/a/b c.jar", 10, 101));
+            Assert.assertNull(loaded.get("/a/d.jar", 10, 100));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testSignature() throws IOException {
+        byte[] data = new byte[600 * 1024];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        File file = File.createTempFile("sca-signature", ".jar");
+        try {
+            OutputStream os = new FileOutputStream(file);
+            os.write(data);
+            os.close();
+            String expected = SignatureAlgorithm.getSignature(new ByteArrayInputStream(data), "SHA-1");
+            Assert.assertNotNull(expected);
+            Assert.assertEquals(expected, SignatureAlgorithm.getSignature(file, "SHA-1"));
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package io.dongtai.iast.core.handler.hookpoint.controller.impl;
+
+import io.dongtai.iast.core.EngineManager;
+import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
+import io.dongtai.iast.core.utils.threadlocal.RequestState;
+import org.junit.*;
+
+import java.util.*;
+
+public class SourceImplTest {
+    @Before
+    public void setUp() {
+        EngineManager.TAINT_HASH_CODES.enable();
+        EngineManager.TAINT_RANGES_POOL.enable();
+    }
+
+    @After
+    public void tearDown() {
+        RequestState.remove();
+    }
+
+    private static MethodEvent newEvent(Object returnValue) {
+        return new MethodEvent(0, 0, "javax.servlet.ServletRequest", "javax.servlet.ServletRequest",
+                "getParameterValues", "(Ljava/lang/String;)[Ljava/lang/String;",
+                "javax.servlet.ServletRequest.getParameterValues(java.lang.String)", null, new Object[0],
+                returnValue, "SERVLET", false, null);
+    }
+
+    @Test
+    public void cyclicTest() {
+        Object[] arr = new Object[]{"foo", null, "bar"};
+        arr[1] = arr;
+        MethodEvent event = newEvent(arr);
+        SourceImpl.TrackContext context = new SourceImpl.TrackContext(100, 100);
+        SourceImpl.trackTarget(event, context);
+        Assert.assertTrue(context.isVisitedSetAllocated());
+        Assert.assertEquals(3, context.getVisitedCount());
+        Assert.assertEquals(2, event.getTargetHashes().size());
+        Assert.assertTrue(event.getTargetHashes().contains(System.identityHashCode(arr[0])));
+        Assert.assertTrue(event.getTargetHashes().contains(System.identityHashCode(arr[2])));
+    }
+
+    @Test
+    public void breadthLimitTest() {
+        Map<String, String> map = new HashMap<String, String>();
+        for (int i = 0; i < 50; i++) {
+            map.put("key" + i, "value" + i);
+        }
+        MethodEvent event = newEvent(map);
+        long hits = SourceImpl.getBreadthLimitHits();
+        SourceImpl.TrackContext context = new SourceImpl.TrackContext(1000, 10);
+        SourceImpl.trackTarget(event, context);
+        Assert.assertEquals(hits + 1, SourceImpl.getBreadthLimitHits());
+        Assert.assertEquals(20, event.getTargetHashes().size());
+        Assert.assertTrue(context.isBreadthLimitHit());
+        Assert.assertFalse(context.isNodeLimitHit());
+    }
+
+    @Test
+    public void nodeLimitTest() {
+        String[][] arr = new String[10][];
+        for (int i = 0; i < arr.length; i++) {
+            arr[i] = new String[10];
+            for (int j = 0; j < arr[i].length; j++) {
+                arr[i][j] = "value" + i + "-" + j;
+            }
+        }
+        MethodEvent event = newEvent(arr);
+        long hits = SourceImpl.getNodeLimitHits();
+        SourceImpl.TrackContext context = new SourceImpl.TrackContext(30, 100);
+        SourceImpl.trackTarget(event, context);
+        Assert.assertEquals(hits + 1, SourceImpl.getNodeLimitHits());
+        Assert.assertEquals(30, context.getVisitedCount());
+        Assert.assertTrue(event.getTargetHashes().size() < 30);
+        Assert.assertTrue(context.isNodeLimitHit());
+        Assert.assertFalse(context.isBreadthLimitHit());
+    }
+
+    @Test
+    public void stringSourceTest() {
+        MethodEvent event = newEvent("foo");
+        SourceImpl.TrackContext context = new SourceImpl.TrackContext(100, 100);
+        SourceImpl.trackTarget(event, context);
+        Assert.assertFalse(context.isVisitedSetAllocated());
+        Assert.assertEquals(1, context.getVisitedCount());
+        Assert.assertTrue(event.getTargetHashes().contains(System.identityHashCode(event.returnValue)));
+    }
+
+    public static class Node {
+        private final String name;
+        private final List<Node> children = new ArrayList<Node>();
+
+        public Node(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<Node> getChildren() {
+            return children;
+        }
+    }
+
+    @Test
+    public void cyclicCustomModelTest() {
+        Node root = new Node("root");
+        Node child = new Node("child");
+        root.getChildren().add(child);
+        child.getChildren().add(root);
+        child.getChildren().add(child);
+
+        SourceImpl.TrackContext context = new SourceImpl.TrackContext(100, 100);
+        Set<Object> values = SourceImpl.parseCustomModel(root, context);
+        Assert.assertTrue(values.contains("root"));
+        Assert.assertTrue(values.contains("child"));
+        Assert.assertEquals(1, context.getVisitedCount());
+        Assert.assertFalse(context.isNodeLimitHit());
+    }
+
+    @Test
+    public void customModelLimitTest() {
+        Node root = new Node("root");
+        for (int i = 0; i < 50; i++) {
+            Node child = new Node("child" + i);
+            root.getChildren().add(child);
+            for (int j = 0; j < 50; j++) {
+                child.getChildren().add(new Node("leaf" + i + "-" + j));
+            }
+        }
+
+        SourceImpl.TrackContext context = new SourceImpl.TrackContext(100, 10);
+        SourceImpl.parseCustomModel(root, context);
+        Assert.assertTrue(context.isBreadthLimitHit());
+        Assert.assertTrue(context.getVisitedCount() <= 100);
+    }
+}
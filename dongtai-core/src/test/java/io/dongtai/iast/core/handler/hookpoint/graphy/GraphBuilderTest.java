@@ -0,0 +1,209 @@
+package io.dongtai.iast.core.handler.hookpoint.graphy;
+
+import io.dongtai.iast.common.constants.*;
+import io.dongtai.iast.common.utils.base64.Base64Encoder;
+import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
+import io.dongtai.iast.core.handler.hookpoint.vulscan.normal.AbstractNormalVulScan;
+import io.dongtai.iast.core.handler.hookpoint.vulscan.taintrange.TaintRange;
+import io.dongtai.iast.core.handler.hookpoint.vulscan.taintrange.TaintRanges;
+import io.dongtai.iast.core.utils.PropertyUtils;
+import io.dongtai.iast.core.utils.collection.IntArraySet;
+import com.google.gson.stream.JsonWriter;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.*;
+
+public class GraphBuilderTest {
+    private static final String PROPERTY_FILE = "src/test/fixture/property/policy-test-invalid.properties";
+
+    @Before
+    public void setUp() {
+        PropertyUtils.getInstance(PROPERTY_FILE);
+    }
+
+    @After
+    public void tearDown() {
+        PropertyUtils.clear();
+    }
+
+    @Test
+    public void testWriteReportRoundTrip() throws IOException {
+        Map<String, Object> requestMeta = new HashMap<String, Object>();
+        requestMeta.put("protocol", "HTTP/1.1");
+        requestMeta.put("scheme", "http");
+        requestMeta.put("method", "POST");
+        requestMeta.put("secure", false);
+        requestMeta.put("requestURL", new StringBuffer("http://localhost:8080/a?b=</script>"));
+        requestMeta.put("requestURI", "/a");
+        requestMeta.put("remoteAddr", "127.0.0.1");
+        requestMeta.put("queryString", null);
+        Map<String, String> headers = new HashMap<String, String>();
+        headers.put("User-Agent", "test\t\"quoted\"");
+        requestMeta.put("headers", headers);
+        requestMeta.put("contextPath", "");
+
+        Map<String, Object> responseMeta = new HashMap<String, Object>();
+        responseMeta.put("headers", "Content-Type:text/html");
+        responseMeta.put("body", "<html> </html>".getBytes());
+
+        List<GraphNode> nodes = new ArrayList<GraphNode>();
+        nodes.add(buildNode(1, true));
+        nodes.add(buildNode(2, false));
+        List<JSONObject> expectedNodes = new ArrayList<JSONObject>();
+        expectedNodes.add(expectedNode(1, true));
+        expectedNodes.add(expectedNode(2, false));
+
+        String report = GraphBuilder.convertToReport(7, requestMeta, "a=\u0001b&c=中", responseMeta, nodes);
+        Assert.assertTrue(new JSONObject(report).similar(buildExpected(7, requestMeta, "a=\u0001b&c=中",
+                responseMeta, expectedNodes)));
+
+        // 缓冲区按线程复用，再次写出时不能残留上次内容
+        String emptyPool = GraphBuilder.convertToReport(7, requestMeta, null, null, new ArrayList<GraphNode>());
+        Assert.assertTrue(new JSONObject(emptyPool).similar(buildExpected(7, requestMeta, null,
+                null, new ArrayList<JSONObject>())));
+    }
+
+    @Test
+    public void testNodeWriteTo() throws IOException {
+        JSONObject json = new JSONObject(writeToString(buildNode(2, false)));
+        Assert.assertTrue(json.similar(expectedNode(2, false)));
+
+        Assert.assertFalse(json.getBoolean("source"));
+        Assert.assertEquals(2, json.getInt("invokeId"));
+        Assert.assertEquals(42, json.getInt("callerLineNumber"));
+        Assert.assertEquals("java/lang/CharSequence", json.getJSONArray("interfaces").getString(0));
+        Assert.assertTrue(json.getJSONArray("targetHash").similar(new JSONArray("[20,0]")));
+        Assert.assertEquals(0, json.getJSONArray("sourceHashForRpc").length());
+        Assert.assertEquals(0, json.getJSONArray("targetHashForRpc").length());
+        Assert.assertEquals("in \"value\"\n", json.getString("sourceValues"));
+        Assert.assertFalse(json.has("traceId"));
+        Assert.assertTrue(json.getJSONArray("targetRange").similar(
+                new JSONArray("[{\"hash\":20,\"ranges\":[{\"name\":\"untrusted\",\"start\":0,\"stop\":5}]}]")));
+        Assert.assertTrue(json.getJSONArray("sourceType").similar(
+                new JSONArray("[{\"hash\":11,\"type\":\"PARAMETER\"}]")));
+    }
+
+    private static String writeToString(GraphNode node) throws IOException {
+        StringWriter out = new StringWriter();
+        JsonWriter writer = new JsonWriter(out);
+        writer.setSerializeNulls(false);
+        node.writeTo(writer);
+        writer.flush();
+        return out.toString();
+    }
+
+    /**
+     * 非 source 节点带有一个来源类型
+     */
+    private GraphNode buildNode(int invokeId, boolean isSource) {
+        List<MethodEvent.MethodEventSourceType> sourceTypes = null;
+        if (!isSource) {
+            sourceTypes = new ArrayList<MethodEvent.MethodEventSourceType>();
+            sourceTypes.add(new MethodEvent.MethodEventSourceType(11, "PARAMETER"));
+        }
+        IntArraySet sourceHash = new IntArraySet();
+        sourceHash.add(invokeId);
+        IntArraySet targetHash = new IntArraySet();
+        targetHash.add(invokeId * 10);
+        targetHash.add(0);
+        List<MethodEvent.MethodEventTargetRange> targetRanges = new ArrayList<MethodEvent.MethodEventTargetRange>();
+        targetRanges.add(new MethodEvent.MethodEventTargetRange(invokeId * 10,
+                new TaintRanges(new TaintRange(0, 5))));
+        Set<String> interfaces = isSource ? null : new HashSet<String>(Arrays.asList("java/lang/CharSequence"));
+        return new GraphNode(isSource, invokeId, "com.example.Caller", "call", 42, interfaces,
+                "java.lang.String", "java.lang.String", "substring", "java.lang.String.substring(int)",
+                "", "", sourceHash, targetHash, "in \"value\"\n", false, "out\\value", false,
+                null, isSource ? null : new IntArraySet(), null, "svc", null, false, targetRanges, sourceTypes);
+    }
+
+    /**
+     * 按流式写出前 GraphNode 使用 org.json 构造节点的方式生成期望值，与 {@link #buildNode} 的输入对应
+     */
+    private JSONObject expectedNode(int invokeId, boolean isSource) {
+        JSONObject value = new JSONObject();
+        value.put("source", isSource);
+        value.put("invokeId", invokeId);
+        value.put("callerClass", "com.example.Caller");
+        value.put("callerMethod", "call");
+        value.put("callerLineNumber", 42);
+        JSONArray interfaceArray = new JSONArray();
+        if (!isSource) {
+            interfaceArray.put("java/lang/CharSequence");
+        }
+        value.put("interfaces", interfaceArray);
+        value.put("originClassName", "java.lang.String");
+        value.put("className", "java.lang.String");
+        value.put("methodName", "substring");
+        value.put("signature", "java.lang.String.substring(int)");
+        value.put("args", "");
+        value.put("retClassName", "");
+        value.put("sourceHash", new JSONArray().put(invokeId));
+        value.put("sourceValues", "in \"value\"\n");
+        value.put("sourceIsReference", false);
+        value.put("targetHash", new JSONArray().put(invokeId * 10).put(0));
+        value.put("targetIsReference", false);
+        value.put("targetValues", "out\\value");
+        value.put("sourceHashForRpc", new JSONArray());
+        value.put("targetHashForRpc", new JSONArray());
+        value.put("traceId", (Object) null);
+        value.put("serviceName", "svc");
+        value.put("plugin", (Object) null);
+        value.put("projectPropagatorClose", false);
+
+        JSONObject range = new JSONObject();
+        range.put("name", "untrusted");
+        range.put("start", 0);
+        range.put("stop", 5);
+        JSONObject targetRange = new JSONObject();
+        targetRange.put("hash", invokeId * 10);
+        targetRange.put("ranges", new JSONArray().put(range));
+        value.put("targetRange", new JSONArray().put(targetRange));
+
+        if (!isSource) {
+            JSONObject sourceType = new JSONObject();
+            sourceType.put("hash", 11);
+            sourceType.put("type", "PARAMETER");
+            value.put("sourceType", new JSONArray().put(sourceType));
+        }
+        return value;
+    }
+
+    private JSONObject buildExpected(Integer agentId, Map<String, Object> requestMeta, String requestBody,
+                                     Map<String, Object> responseMeta, List<JSONObject> nodes) {
+        JSONObject report = new JSONObject();
+        JSONObject detail = new JSONObject();
+        JSONArray methodPool = new JSONArray();
+        report.put(ReportKey.TYPE, ReportType.VULN_SAAS_POOL);
+        report.put(ReportKey.VERSION, "v2");
+        report.put(ReportKey.DETAIL, detail);
+
+        detail.put(ReportKey.AGENT_ID, agentId);
+        detail.put(ReportKey.PROTOCOL, requestMeta.getOrDefault("protocol", "unknown"));
+        detail.put(ReportKey.SCHEME, requestMeta.getOrDefault("scheme", ""));
+        detail.put(ReportKey.METHOD, requestMeta.getOrDefault("method", ""));
+        detail.put(ReportKey.SECURE, requestMeta.getOrDefault("secure", ""));
+        detail.put(ReportKey.URL, requestMeta.getOrDefault("requestURL", "").toString());
+        detail.put(ReportKey.URI, requestMeta.getOrDefault("requestURI", "").toString());
+        detail.put(ReportKey.CLIENT_IP, requestMeta.getOrDefault("remoteAddr", ""));
+        detail.put(ReportKey.QUERY_STRING, requestMeta.getOrDefault("queryString", ""));
+        detail.put(ReportKey.REQ_HEADER,
+                AbstractNormalVulScan.getEncodedHeader((Map<String, String>) requestMeta.get("headers")));
+        detail.put(ReportKey.REQ_BODY, requestBody);
+        detail.put(ReportKey.RES_HEADER, responseMeta == null ? ""
+                : Base64Encoder.encodeBase64String(responseMeta.get("headers").toString().getBytes())
+                .replaceAll("\n", ""));
+        detail.put(ReportKey.RES_BODY, responseMeta == null ? ""
+                : Base64Encoder.encodeBase64String((byte[]) responseMeta.get("body")));
+        detail.put(ReportKey.CONTEXT_PATH, requestMeta.getOrDefault("contextPath", ""));
+        detail.put(ReportKey.REPLAY_REQUEST, requestMeta.getOrDefault("replay-request", false));
+        detail.put(ReportKey.METHOD_POOL, methodPool);
+        for (JSONObject node : nodes) {
+            methodPool.put(node);
+        }
+        return report;
+    }
+}
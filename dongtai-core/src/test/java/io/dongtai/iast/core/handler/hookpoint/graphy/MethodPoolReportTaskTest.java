@@ -0,0 +1,64 @@
+package io.dongtai.iast.core.handler.hookpoint.graphy;
+
+import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
+import io.dongtai.iast.core.utils.PropertyUtils;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.*;
+
+import java.io.IOException;
+import java.util.*;
+
+public class MethodPoolReportTaskTest {
+    private static final String PROPERTY_FILE = "src/test/fixture/property/policy-test-invalid.properties";
+
+    @Before
+    public void setUp() {
+        PropertyUtils.getInstance(PROPERTY_FILE);
+    }
+
+    @After
+    public void tearDown() {
+        PropertyUtils.clear();
+    }
+
+    @Test
+    public void testSnapshotIsDetachedFromRequestState() throws IOException {
+        Map<Integer, MethodEvent> trackMap = new HashMap<Integer, MethodEvent>();
+        for (int i = 0; i < 3; i++) {
+            MethodEvent event = new MethodEvent(0, i, "java.lang.String", "java.lang.String", "trim",
+                    "()", "java.lang.String.trim()", null, new Object[0], "r", "", false, null);
+            event.setCallStack(new StackTraceElement("com.example.Caller", "call", "Caller.java", 10 + i));
+            event.addTargetHash(i + 1);
+            trackMap.put(i, event);
+        }
+        Map<String, Object> requestMeta = new HashMap<String, Object>();
+        requestMeta.put("requestURL", "http://localhost/a");
+        requestMeta.put("requestURI", "/a");
+        requestMeta.put("method", "GET");
+
+        MethodPoolReportTask task = MethodPoolReportTask.snapshot(1, trackMap, requestMeta, "", null);
+        // 请求线程重置状态后，快照内容不受影响
+        for (MethodEvent event : trackMap.values()) {
+            event.recycle();
+            event.addTargetHash(99);
+        }
+        trackMap.clear();
+        requestMeta.clear();
+
+        JSONObject detail = new JSONObject(task.buildReport()).getJSONObject("detail");
+        Assert.assertEquals("/a", detail.getString("uri"));
+        Assert.assertEquals("GET", detail.getString("method"));
+        JSONArray methodPool = detail.getJSONArray("pool");
+        Assert.assertEquals(3, methodPool.length());
+        Set<Integer> invokeIds = new HashSet<Integer>();
+        for (int i = 0; i < methodPool.length(); i++) {
+            JSONObject node = methodPool.getJSONObject(i);
+            invokeIds.add(node.getInt("invokeId"));
+            JSONArray targetHash = node.getJSONArray("targetHash");
+            Assert.assertEquals(1, targetHash.length());
+            Assert.assertEquals(node.getInt("invokeId") + 1, targetHash.getInt(0));
+        }
+        Assert.assertEquals(new HashSet<Integer>(Arrays.asList(0, 1, 2)), invokeIds);
+    }
+}
@@ -0,0 +1,75 @@
+package io.dongtai.iast.core.handler.hookpoint.models.policy;
+
+import io.dongtai.iast.core.bytecode.enhance.ClassContext;
+import io.dongtai.iast.core.bytecode.enhance.MethodContext;
+import io.dongtai.iast.core.utils.PropertyUtils;
+import org.json.JSONArray;
+import org.junit.*;
+
+import java.util.*;
+
+public class PolicyTest {
+    private static final String POLICY_DIR = "src/test/fixture/policy/";
+    private static final String PROPERTY_FILE = "src/test/fixture/property/policy-test-invalid.properties";
+
+    @Before
+    public void setUp() {
+        PropertyUtils.getInstance(PROPERTY_FILE);
+        System.setProperty("dongtai.log", "false");
+    }
+
+    @After
+    public void tearDown() {
+        PropertyUtils.clear();
+    }
+
+    @Test
+    public void testGetMatchedNodes() throws PolicyException {
+        JSONArray policyConfig = PolicyBuilder.fetchFromFile(POLICY_DIR + "policy-node-count-src0-p2-sink2-cls2.json");
+        Policy policy = PolicyBuilder.build(policyConfig);
+
+        for (PropagatorNode node : policy.getPropagators()) {
+            Set<PolicyNode> matched = policy.getMatchedNodes(buildMethodContext(node));
+            Assert.assertTrue("match propagator " + node, matched.contains(node));
+        }
+        for (SinkNode node : policy.getSinks()) {
+            Set<PolicyNode> matched = policy.getMatchedNodes(buildMethodContext(node));
+            Assert.assertTrue("match sink " + node, matched.contains(node));
+        }
+
+        ClassContext classContext = new ClassContext("A3", new HashSet<String>(), new String[]{}, 0, false);
+        classContext.setMatchedClassName("A3");
+        MethodContext methodContext = new MethodContext(classContext, "notExists");
+        methodContext.setParameters(new String[]{});
+        Assert.assertTrue("match nothing", policy.getMatchedNodes(methodContext).isEmpty());
+    }
+
+    @Test
+    public void testGetPolicyNodeById() throws PolicyException {
+        JSONArray policyConfig = PolicyBuilder.fetchFromFile(POLICY_DIR + "policy-node-count-src1-p3-sink1-cls5.json");
+        Policy policy = PolicyBuilder.build(policyConfig);
+
+        List<PolicyNode> nodes = new ArrayList<PolicyNode>();
+        nodes.addAll(policy.getSources());
+        nodes.addAll(policy.getPropagators());
+        nodes.addAll(policy.getSinks());
+        Set<Integer> ids = new HashSet<Integer>();
+        for (PolicyNode node : nodes) {
+            Assert.assertTrue("node id " + node, node.getId() >= 0 && node.getId() < nodes.size());
+            Assert.assertTrue("node id unique " + node, ids.add(node.getId()));
+            Assert.assertSame("node by id " + node, node, policy.getPolicyNode(node.getId()));
+        }
+        Assert.assertNull(policy.getPolicyNode(-1));
+        Assert.assertNull(policy.getPolicyNode(nodes.size()));
+    }
+
+    private MethodContext buildMethodContext(PolicyNode node) {
+        Signature signature = ((SignatureMethodMatcher) node.getMethodMatcher()).getSignature();
+        ClassContext classContext = new ClassContext(signature.getClassName(), new HashSet<String>(),
+                new String[]{}, 0, false);
+        classContext.setMatchedClassName(signature.getClassName());
+        MethodContext methodContext = new MethodContext(classContext, signature.getMethodName());
+        methodContext.setParameters(signature.getParameters());
+        return methodContext;
+    }
+}
@@ -0,0 +1,52 @@
+package io.dongtai.iast.core.handler.hookpoint.vulscan.normal;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class NormalVulDeduplicatorTest {
+    private static String callSite(String caller) {
+        return NormalVulDeduplicator.getCallSite(new StackTraceElement[]{
+                new StackTraceElement("java.util.Random", "<init>", "Random.java", 137),
+                new StackTraceElement("com.example.Foo", caller, "Foo.java", 10),
+        });
+    }
+
+    @Test
+    public void testCallSite() {
+        Assert.assertEquals("java.util.Random.<init>(Random.java:137)|com.example.Foo.a(Foo.java:10)|", callSite("a"));
+    }
+
+    @Test
+    public void testShouldReport() {
+        NormalVulDeduplicator deduplicator = new NormalVulDeduplicator(10, TimeUnit.MINUTES, 16);
+        Assert.assertTrue(deduplicator.shouldReport("crypto-weak-randomness", callSite("a")));
+        Assert.assertFalse(deduplicator.shouldReport("crypto-weak-randomness", callSite("a")));
+        Assert.assertFalse(deduplicator.shouldReport("crypto-weak-randomness", callSite("a")));
+        Assert.assertTrue(deduplicator.shouldReport("crypto-weak-randomness", callSite("b")));
+        Assert.assertTrue(deduplicator.shouldReport("crypto-bad-mac", callSite("a")));
+        Assert.assertFalse(deduplicator.shouldReport("crypto-bad-mac", callSite("a")));
+        Assert.assertEquals(3, deduplicator.getSuppressedCount());
+    }
+
+    @Test
+    public void testShouldReportCurrentCallSite() {
+        NormalVulDeduplicator deduplicator = new NormalVulDeduplicator(10, TimeUnit.MINUTES, 16);
+        boolean[] results = new boolean[3];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = deduplicator.shouldReport("crypto-weak-randomness");
+        }
+        Assert.assertArrayEquals(new boolean[]{true, false, false}, results);
+        Assert.assertEquals(2, deduplicator.getSuppressedCount());
+    }
+
+    @Test
+    public void testExpire() throws InterruptedException {
+        NormalVulDeduplicator deduplicator = new NormalVulDeduplicator(50, TimeUnit.MILLISECONDS, 16);
+        Assert.assertTrue(deduplicator.shouldReport("crypto-weak-randomness", callSite("a")));
+        Assert.assertFalse(deduplicator.shouldReport("crypto-weak-randomness", callSite("a")));
+        Thread.sleep(100);
+        Assert.assertTrue(deduplicator.shouldReport("crypto-weak-randomness", callSite("a")));
+    }
+}
@@ -0,0 +1,156 @@
+package io.dongtai.iast.core.utils;
+
+import io.dongtai.iast.core.handler.hookpoint.controller.impl.SourceImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.*;
+
+public class GetterMethodCacheTest {
+    public static class Address {
+        private final String city;
+        private final String street;
+
+        public Address(String city, String street) {
+            this.city = city;
+            this.street = street;
+        }
+
+        public String getCity() {
+            return city;
+        }
+
+        public String getStreet() {
+            return street;
+        }
+    }
+
+    public static class User {
+        private final String name;
+        private final int age;
+        private final List<Address> addresses;
+
+        public User(String name, int age, List<Address> addresses) {
+            this.name = name;
+            this.age = age;
+            this.addresses = addresses;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public List<Address> getAddresses() {
+            return addresses;
+        }
+
+        public String getNameBytes() {
+            return name;
+        }
+
+        public String getByIndex(int index) {
+            return name;
+        }
+    }
+
+    private static class HiddenUser {
+        public String getName() {
+            return "hidden";
+        }
+    }
+
+    @Test
+    public void testGetters() throws Throwable {
+        Set<String> names = new HashSet<String>();
+        for (GetterMethodCache.Getter getter : GetterMethodCache.getGetters(User.class)) {
+            names.add(getter.getName());
+        }
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("getName", "getAddresses")), names);
+        Assert.assertSame(GetterMethodCache.getGetters(User.class), GetterMethodCache.getGetters(User.class));
+
+        GetterMethodCache.Getter[] getters = GetterMethodCache.getGetters(HiddenUser.class);
+        Assert.assertEquals(1, getters.length);
+        Assert.assertEquals("hidden", getters[0].invoke(new HiddenUser()));
+    }
+
+    @Test
+    public void testParseCustomModel() {
+        Address address = new Address("beijing", "chaoyang");
+        User user = new User("foo", 18, Collections.singletonList(address));
+        Set<Object> values = SourceImpl.parseCustomModel(user);
+        Assert.assertTrue(values.contains("foo"));
+        Assert.assertTrue(values.contains("beijing"));
+        Assert.assertTrue(values.contains("chaoyang"));
+        Assert.assertTrue(values.contains(user.getAddresses()));
+        Assert.assertEquals(4, values.size());
+    }
+
+    public static class BrokenUser {
+        public String getName() {
+            return "broken";
+        }
+
+        public String getEmail() {
+            throw new IllegalStateException("not loaded");
+        }
+    }
+
+    @Test
+    public void testSameAsReflection() throws Exception {
+        List<Address> addresses = new ArrayList<Address>();
+        for (int i = 0; i < 20; i++) {
+            addresses.add(new Address("city" + i, "street" + i));
+        }
+        User user = new User("foo", 18, addresses);
+        for (GetterMethodCache.Getter getter : GetterMethodCache.getGetters(User.class)) {
+            Assert.assertSame(getter.getName(), User.class.getMethod(getter.getName()).invoke(user),
+                    getter.invoke(user));
+        }
+        Assert.assertEquals(parseByReflection(user), SourceImpl.parseCustomModel(user));
+        Assert.assertEquals(42, SourceImpl.parseCustomModel(user).size());
+    }
+
+    @Test
+    public void testGetterException() {
+        for (GetterMethodCache.Getter getter : GetterMethodCache.getGetters(BrokenUser.class)) {
+            if ("getEmail".equals(getter.getName())) {
+                try {
+                    getter.invoke(new BrokenUser());
+                    Assert.fail("getter exception should be wrapped");
+                } catch (InvocationTargetException e) {
+                    Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+                }
+            }
+        }
+        Assert.assertEquals(Collections.<Object>singleton("broken"), SourceImpl.parseCustomModel(new BrokenUser()));
+    }
+
+    /**
+     * 缓存前的实现
+     */
+    private static Set<Object> parseByReflection(Object model) throws Exception {
+        Set<Object> modelValues = new HashSet<Object>();
+        for (Method method : model.getClass().getMethods()) {
+            if (!TaintPoolUtils.isAllowTaintGetterMethod(method)) {
+                continue;
+            }
+            Object itemValue = method.invoke(model);
+            if (!TaintPoolUtils.isNotEmpty(itemValue)) {
+                continue;
+            }
+            modelValues.add(itemValue);
+            if (itemValue instanceof List) {
+                for (Object listValue : (List<?>) itemValue) {
+                    modelValues.addAll(parseByReflection(listValue));
+                }
+            }
+        }
+        return modelValues;
+    }
+}
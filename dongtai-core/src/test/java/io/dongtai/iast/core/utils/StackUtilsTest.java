@@ -0,0 +1,103 @@
+package io.dongtai.iast.core.utils;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+public class StackUtilsTest {
+    @Test
+    public void testGetLatestStack() {
+        StackTraceElement element = StackUtils.getLatestStack(2);
+        Assert.assertEquals(StackUtilsTest.class.getName(), element.getClassName());
+        Assert.assertEquals("testGetLatestStack", element.getMethodName());
+
+        assertSameAsThreadStack(2);
+        assertSameAsThreadStack(4);
+        Assert.assertNull(StackUtils.getLatestStack(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void testGetCallers() {
+        StackTraceElement[][] pair = {StackUtils.getCallers(new String[0], 2), Thread.currentThread().getStackTrace()};
+        Assert.assertEquals(2, pair[0].length);
+        Assert.assertEquals("testGetCallers", pair[0][0].getMethodName());
+        Assert.assertEquals(pair[1][1], pair[0][0]);
+        Assert.assertEquals(pair[1][2], pair[0][1]);
+
+        StackTraceElement[] callers = StackUtils.getCallers(new String[]{StackUtilsTest.class.getName()}, 1);
+        Assert.assertEquals(pair[1][2].getClassName(), callers[0].getClassName());
+
+        // 堆栈不足时返回全部非跳过栈帧
+        int total = Thread.currentThread().getStackTrace().length - 1;
+        Assert.assertEquals(total, StackUtils.getCallers(new String[0], 10000).length);
+    }
+
+    @Test
+    public void testGetHookCallSite() throws Exception {
+        // 以 FutureTask.run 模拟被 hook 的方法：内层为被 hook 方法，外层为其调用方，中间的 agent 栈帧均被跳过
+        final StackTraceElement[] expected = new StackTraceElement[1];
+        FutureTask<StackTraceElement> outer = new FutureTask<StackTraceElement>(new Callable<StackTraceElement>() {
+            @Override
+            public StackTraceElement call() throws Exception {
+                for (StackTraceElement element : Thread.currentThread().getStackTrace()) {
+                    if (FutureTask.class.getName().equals(element.getClassName())) {
+                        expected[0] = element;
+                        break;
+                    }
+                }
+                FutureTask<StackTraceElement> inner = new FutureTask<StackTraceElement>(
+                        new Callable<StackTraceElement>() {
+                            @Override
+                            public StackTraceElement call() {
+                                return StackUtils.getHookCallSite();
+                            }
+                        });
+                inner.run();
+                return inner.get();
+            }
+        });
+        outer.run();
+        Assert.assertNotNull(expected[0]);
+        Assert.assertEquals(expected[0], outer.get());
+    }
+
+    @Test
+    public void testWalkStack() {
+        Assume.assumeTrue("StackWalker requires JDK 9+", StackUtils.isStackWalkerAvailable());
+
+        StackTraceElement element = StackUtils.walkStack(2);
+        Assert.assertNotNull(element);
+        Assert.assertEquals(StackUtilsTest.class.getName(), element.getClassName());
+        Assert.assertEquals("testWalkStack", element.getMethodName());
+
+        // 调用方栈帧的行号也应与 Thread.getStackTrace 一致
+        for (int pos = 3; pos <= 8; pos++) {
+            StackTraceElement[] frames = nested(4, pos);
+            Assert.assertNotNull(frames[1]);
+            Assert.assertEquals(frames[0], frames[1]);
+        }
+        Assert.assertNull(StackUtils.walkStack(1));
+    }
+
+    /**
+     * @return [Thread.getStackTrace 在相同深度的栈帧, StackWalker 返回的栈帧]
+     */
+    private static StackTraceElement[] nested(int depth, int pos) {
+        if (depth > 0) {
+            return nested(depth - 1, pos);
+        }
+        StackTraceElement[] expected = Thread.currentThread().getStackTrace();
+        StackTraceElement actual = StackUtils.walkStack(pos);
+        return new StackTraceElement[]{expected[pos - 1], actual};
+    }
+
+    private void assertSameAsThreadStack(int pos) {
+        StackTraceElement[] expected = Thread.currentThread().getStackTrace();
+        StackTraceElement actual = StackUtils.getLatestStack(pos);
+        Assert.assertEquals(expected[pos - 1].getClassName(), actual.getClassName());
+        Assert.assertEquals(expected[pos - 1].getMethodName(), actual.getMethodName());
+    }
+}
@@ -0,0 +1,90 @@
+package io.dongtai.iast.core.utils.collection;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IntArraySetTest {
+    @Test
+    public void testAddAndContains() {
+        IntArraySet set = new IntArraySet();
+        Assert.assertTrue(set.isEmpty());
+        Assert.assertTrue(set.add(3));
+        Assert.assertTrue(set.add(0));
+        Assert.assertTrue(set.add(-1));
+        Assert.assertFalse(set.add(3));
+        Assert.assertEquals(3, set.size());
+        Assert.assertEquals(3, set.get(0));
+        Assert.assertEquals(0, set.get(1));
+        Assert.assertEquals(-1, set.get(2));
+        Assert.assertTrue(set.contains(0));
+        Assert.assertFalse(set.contains(1));
+        Assert.assertEquals("[3, 0, -1]", set.toString());
+    }
+
+    @Test
+    public void testGrowBeyondLinearScan() {
+        IntArraySet set = new IntArraySet();
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertTrue(set.add(i * 31));
+        }
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertFalse(set.add(i * 31));
+            Assert.assertEquals(i * 31, set.get(i));
+        }
+        Assert.assertEquals(1000, set.size());
+        Assert.assertFalse(set.contains(1));
+
+        set.clear();
+        Assert.assertTrue(set.isEmpty());
+        Assert.assertFalse(set.contains(31));
+        Assert.assertTrue(set.add(31));
+    }
+
+    @Test
+    public void testSameElements() {
+        IntArraySet a = new IntArraySet();
+        IntArraySet b = new IntArraySet();
+        Assert.assertTrue(IntArraySet.sameElements(null, null));
+        Assert.assertTrue(IntArraySet.sameElements(a, null));
+        a.add(1);
+        a.add(2);
+        Assert.assertFalse(IntArraySet.sameElements(a, null));
+        b.add(2);
+        Assert.assertFalse(IntArraySet.sameElements(a, b));
+        b.add(1);
+        Assert.assertTrue(IntArraySet.sameElements(a, b));
+    }
+
+    @Test
+    public void testEmptySet() {
+        IntArraySet empty = IntArraySet.emptySet();
+        Assert.assertTrue(empty.isEmpty());
+        Assert.assertFalse(empty.contains(0));
+        Assert.assertTrue(IntArraySet.sameElements(empty, new IntArraySet()));
+        try {
+            empty.add(1);
+            Assert.fail("empty set should be immutable");
+        } catch (UnsupportedOperationException ignore) {
+        }
+        Assert.assertTrue(empty.isEmpty());
+    }
+
+    @Test
+    public void testCopyOf() {
+        Assert.assertSame(IntArraySet.emptySet(), IntArraySet.copyOf(null));
+        Assert.assertSame(IntArraySet.emptySet(), IntArraySet.copyOf(new IntArraySet()));
+
+        IntArraySet set = new IntArraySet();
+        for (int i = 0; i < 40; i++) {
+            set.add(i);
+        }
+        IntArraySet copy = IntArraySet.copyOf(set);
+        set.clear();
+        set.add(100);
+        Assert.assertEquals(40, copy.size());
+        Assert.assertTrue(copy.contains(39));
+        Assert.assertFalse(copy.contains(100));
+        Assert.assertTrue(copy.add(100));
+        Assert.assertEquals(1, set.size());
+    }
+}
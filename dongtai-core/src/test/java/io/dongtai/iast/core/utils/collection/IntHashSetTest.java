@@ -0,0 +1,67 @@
+package io.dongtai.iast.core.utils.collection;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+public class IntHashSetTest {
+    @Test
+    public void testAddAndContains() {
+        IntHashSet set = new IntHashSet(4);
+        Assert.assertTrue(set.isEmpty());
+        Assert.assertTrue(set.add(1));
+        Assert.assertFalse(set.add(1));
+        Assert.assertTrue(set.add(0));
+        Assert.assertFalse(set.add(0));
+        Assert.assertTrue(set.add(-1));
+        Assert.assertTrue(set.add(Integer.MIN_VALUE));
+
+        Assert.assertEquals(4, set.size());
+        Assert.assertTrue(set.contains(0));
+        Assert.assertTrue(set.contains(1));
+        Assert.assertTrue(set.contains(-1));
+        Assert.assertTrue(set.contains(Integer.MIN_VALUE));
+        Assert.assertFalse(set.contains(2));
+    }
+
+    @Test
+    public void testMatchesHashSet() {
+        IntHashSet set = new IntHashSet();
+        Set<Integer> expected = new HashSet<Integer>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            int value = random.nextInt();
+            Assert.assertEquals(expected.add(value), set.add(value));
+        }
+        Assert.assertEquals(expected.size(), set.size());
+        for (int i = 0; i < 100000; i++) {
+            int value = random.nextInt();
+            Assert.assertEquals(expected.contains(value), set.contains(value));
+        }
+        for (Integer value : expected) {
+            Assert.assertTrue(set.contains(value));
+        }
+    }
+
+    @Test
+    public void testClearKeepsBackingArray() {
+        IntHashSet set = new IntHashSet();
+        for (int i = 1; i <= 1000; i++) {
+            set.add(i);
+        }
+        int capacity = set.capacity();
+        set.clear();
+        Assert.assertTrue(set.isEmpty());
+        Assert.assertEquals(capacity, set.capacity());
+        Assert.assertFalse(set.contains(500));
+
+        for (int i = 1; i <= 200000; i++) {
+            set.add(i);
+        }
+        set.clear();
+        Assert.assertTrue(set.capacity() < capacity * 4);
+    }
+}
@@ -0,0 +1,56 @@
+package io.dongtai.iast.core.utils.matcher;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+public class BlackUrlMatcherTest {
+    @Test
+    public void testMatches() {
+        BlackUrlMatcher matcher = new BlackUrlMatcher(
+                Arrays.asList("/actuator 1", "/discovery/ok 1", "isTest 2", "broken", "/bad x"),
+                Collections.singleton("/slow"));
+        Map<String, String> headers = new HashMap<String, String>();
+        headers.put("host", "localhost");
+
+        Assert.assertTrue(matcher.matches("/app/actuator/health", headers));
+        Assert.assertTrue(matcher.matches("/discovery/ok", headers));
+        Assert.assertTrue(matcher.matches("/api/slow", headers));
+        Assert.assertFalse(matcher.matches("/api/slower", headers));
+        Assert.assertFalse(matcher.matches("/discovery/o", headers));
+        Assert.assertFalse(matcher.matches("/bad", headers));
+        Assert.assertFalse(matcher.matches("/api", null));
+
+        headers.put("istest", "1");
+        Assert.assertTrue(matcher.matches("/api", headers));
+        Assert.assertTrue(matcher.matches(null, headers));
+    }
+
+    @Test
+    public void testSubstringMatcher() {
+        SubstringMatcher matcher = new SubstringMatcher(Arrays.asList("he", "she", "his", "hers", "abcd", "bc"));
+        Assert.assertTrue(matcher.matches("ushers"));
+        Assert.assertTrue(matcher.matches("xabx_bcx"));
+        Assert.assertTrue(matcher.matches("ahis"));
+        Assert.assertFalse(matcher.matches("hi"));
+        Assert.assertFalse(matcher.matches("abx"));
+        Assert.assertFalse(new SubstringMatcher(null).matches("a"));
+        Assert.assertTrue(new SubstringMatcher(Collections.singletonList("")).matches("a"));
+
+        List<String> patterns = Arrays.asList("aab", "abb", "bab", "ba");
+        SubstringMatcher automaton = new SubstringMatcher(patterns);
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (int j = random.nextInt(8); j > 0; j--) {
+                sb.append(random.nextBoolean() ? 'a' : 'b');
+            }
+            boolean expected = false;
+            for (String pattern : patterns) {
+                expected |= sb.toString().contains(pattern);
+            }
+            Assert.assertEquals(sb.toString(), expected, automaton.matches(sb.toString()));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package io.dongtai.iast.core.utils.matcher;
+
+import io.dongtai.iast.core.utils.ConfigUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+public class StringTrieTest {
+    @Test
+    public void testMatches() {
+        StringTrie prefixes = StringTrie.prefixes(Arrays.asList("com/taobao/", "org/a"));
+        Assert.assertTrue(prefixes.matches("com/taobao/Foo"));
+        Assert.assertTrue(prefixes.matches("org/a"));
+        Assert.assertTrue(prefixes.matches("org/apache/Foo"));
+        Assert.assertFalse(prefixes.matches("org/"));
+        Assert.assertFalse(prefixes.matches("com/alibaba/Foo"));
+        Assert.assertFalse(prefixes.matches(null));
+
+        StringTrie suffixes = StringTrie.suffixes(Arrays.asList(".js", ".json", ".css"));
+        Assert.assertTrue(suffixes.matches("/static/a.js"));
+        Assert.assertTrue(suffixes.matches("/a.json"));
+        Assert.assertFalse(suffixes.matches("/a.jsp"));
+        Assert.assertFalse(suffixes.matches("js"));
+
+        Assert.assertFalse(StringTrie.prefixes(null).matches("a"));
+        Assert.assertTrue(StringTrie.prefixes(Collections.singletonList("")).matches("a"));
+    }
+
+    @Test
+    public void testSameAsStringUtilsOnBlacklists() {
+        for (String file : new String[]{"com.secnium.iast.resources/blacklist.txt",
+                "com.secnium.iast.resources/blacklistfunc.txt"}) {
+            Set<String>[] items = ConfigUtils.loadConfigFromFile(file);
+            String[] startArray = items[1].toArray(new String[0]);
+            String[] endArray = items[2].toArray(new String[0]);
+            StringTrie prefixes = StringTrie.prefixes(items[1]);
+            StringTrie suffixes = StringTrie.suffixes(items[2]);
+
+            List<String> samples = new ArrayList<String>();
+            for (Set<String> set : items) {
+                for (String item : set) {
+                    samples.add(item);
+                    samples.add(item + "Impl");
+                    samples.add("x" + item);
+                    if (item.length() > 1) {
+                        samples.add(item.substring(0, item.length() - 1));
+                        samples.add(item.substring(1));
+                    }
+                }
+            }
+
+            for (String sample : samples) {
+                boolean expected = StringUtils.startsWithAny(sample, startArray)
+                        || StringUtils.endsWithAny(sample, endArray);
+                Assert.assertEquals(sample, expected, prefixes.matches(sample) || suffixes.matches(sample));
+            }
+        }
+    }
+}
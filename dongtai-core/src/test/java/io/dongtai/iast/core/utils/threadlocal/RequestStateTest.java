@@ -0,0 +1,82 @@
+package io.dongtai.iast.core.utils.threadlocal;
+
+import io.dongtai.iast.core.handler.context.TracingContext;
+import io.dongtai.iast.core.handler.hookpoint.models.MethodEvent;
+import io.dongtai.iast.core.utils.collection.IntHashSet;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+
+public class RequestStateTest {
+    @After
+    public void tearDown() {
+        RequestState.remove();
+    }
+
+    @Test
+    public void testEnableAndReset() {
+        RequestState state = RequestState.get();
+        Assert.assertNull(state.getTrackMap());
+        Assert.assertNull(state.getTaintHashCodes());
+        Assert.assertNull(state.getTaintRangesPool());
+
+        state.setRequestContext(new HashMap<String, Object>());
+        state.enableTrackMap();
+        state.enableTaintHashCodes();
+        state.enableTaintRangesPool();
+        state.enterReplayEntry();
+        state.setHeavyHookFallback(true);
+        state.setTracingContext(new TracingContext());
+        state.getTaintHashCodes().add(1);
+        state.getTrackMap().put(1, null);
+
+        IntHashSet taintHashCodes = state.getTaintHashCodes();
+        state.reset();
+
+        Assert.assertSame(state, RequestState.get());
+        Assert.assertNull(state.getRequestContext());
+        Assert.assertNull(state.getTrackMap());
+        Assert.assertNull(state.getTaintHashCodes());
+        Assert.assertNull(state.getTaintRangesPool());
+        Assert.assertFalse(state.isReplayEntry());
+        Assert.assertFalse(state.isHeavyHookFallback());
+        Assert.assertNull(state.getTracingContext());
+
+        state.enableTrackMap();
+        state.enableTaintHashCodes();
+        Assert.assertTrue(state.getTrackMap().isEmpty());
+        Assert.assertSame(taintHashCodes, state.getTaintHashCodes());
+        Assert.assertFalse(state.getTaintHashCodes().contains(1));
+    }
+
+    @Test
+    public void testRecycleMethodEvent() {
+        RequestState state = RequestState.get();
+        Object instance = new Object();
+        MethodEvent event = state.obtainMethodEvent("A", "A", "m", "A.m()", instance, new Object[]{"a"}, "r", false);
+        Assert.assertTrue(event.getSourceHashes().isEmpty());
+        Assert.assertTrue(event.getTargetHashes().isEmpty());
+        Assert.assertTrue(event.getSourceHashForRpc().isEmpty());
+        Assert.assertTrue(event.getTargetHashForRpc().isEmpty());
+        event.addSourceHash(1);
+        event.addTargetHash(2);
+        event.setInValue("a", "a");
+
+        state.recycleMethodEvent(event);
+        Assert.assertNull(event.object);
+        Assert.assertNull(event.argumentArray);
+        Assert.assertNull(event.inValue);
+        Assert.assertTrue(event.getSourceHashes().isEmpty());
+        Assert.assertTrue(event.getTargetRanges().isEmpty());
+
+        MethodEvent reused = state.obtainMethodEvent("B", "B", "n", "B.n()", null, new Object[0], null, true);
+        Assert.assertSame(event, reused);
+        Assert.assertEquals("B", reused.getOriginClassName());
+        Assert.assertEquals("n", reused.getMethodName());
+        Assert.assertEquals(-1, reused.getInvokeId());
+        Assert.assertFalse(reused.getTargetHashes().contains(2));
+        Assert.assertNotSame(reused, state.obtainMethodEvent("C", "C", "o", "C.o()", null, new Object[0], null, true));
+    }
+}
@@ -0,0 +1,222 @@
+package io.dongtai.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 异步日志文件写入
+ * <p>
+ * 日志线程只把日志放入定长环形缓冲区，由后台线程批量写入一直打开的 FileChannel；
+ * 缓冲区满时丢弃日志并计数，不阻塞业务线程。文件超过大小上限时按 .1 .2 ... 滚动
+ */
+public class AsyncFileAppender {
+    private static final String THREAD_NAME = "DongTai-IAST-LogAppender";
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_BATCH = 1024;
+    /**
+     * 通知后台线程退出，按引用比较。FileChannel 被中断时会关闭，因此不能用 interrupt 停止后台线程
+     */
+    private static final String STOP = new String("");
+
+    private final File file;
+    private final long maxFileSize;
+    private final int maxBackups;
+    private final BlockingQueue<String> ringBuffer;
+    private final AtomicLong dropped = new AtomicLong();
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+    private final Object writeLock = new Object();
+
+    private FileChannel channel;
+    private long fileSize;
+    private volatile boolean running;
+    private Thread worker;
+
+    /**
+     * @param file        日志文件
+     * @param bufferSize  环形缓冲区可容纳的日志条数
+     * @param maxFileSize 单个日志文件大小上限(字节)，小于等于 0 时不滚动
+     * @param maxBackups  保留的历史日志文件数
+     */
+    public AsyncFileAppender(File file, int bufferSize, long maxFileSize, int maxBackups) {
+        this.file = file;
+        this.maxFileSize = maxFileSize;
+        this.maxBackups = Math.max(maxBackups, 0);
+        this.ringBuffer = new ArrayBlockingQueue<String>(Math.max(bufferSize, 1));
+    }
+
+    public void start() throws IOException {
+        openChannel();
+        this.running = true;
+        this.worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                List<String> batch = new ArrayList<String>();
+                while (running) {
+                    try {
+                        String line = ringBuffer.poll(1, TimeUnit.SECONDS);
+                        if (line == null) {
+                            continue;
+                        }
+                        batch.add(line);
+                        ringBuffer.drainTo(batch, MAX_BATCH - 1);
+                        write(batch);
+                        boolean stop = batch.get(batch.size() - 1) == STOP;
+                        batch.clear();
+                        if (stop) {
+                            break;
+                        }
+                    } catch (InterruptedException e) {
+                        break;
+                    }
+                }
+            }
+        }, THREAD_NAME);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * 放入缓冲区，缓冲区已满时丢弃
+     */
+    public void append(String line) {
+        if (!this.running || !this.ringBuffer.offer(line)) {
+            this.dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * 将缓冲区中的日志同步写入文件
+     */
+    public void flush() {
+        List<String> batch = new ArrayList<String>();
+        this.ringBuffer.drainTo(batch);
+        write(batch);
+    }
+
+    public void close() {
+        this.running = false;
+        if (this.worker != null) {
+            this.ringBuffer.offer(STOP);
+            try {
+                this.worker.join(2000);
+            } catch (InterruptedException ignore) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+        synchronized (this.writeLock) {
+            closeChannel();
+        }
+    }
+
+    public long getDroppedCount() {
+        return this.dropped.get();
+    }
+
+    private void write(List<String> lines) {
+        long droppedCount = this.dropped.getAndSet(0);
+        if (lines.isEmpty() && droppedCount == 0) {
+            return;
+        }
+        synchronized (this.writeLock) {
+            if (this.channel == null) {
+                return;
+            }
+            try {
+                if (droppedCount > 0) {
+                    writeLine("[io.dongtai.iast.agent] [WARN] log buffer is full, " + droppedCount
+                            + " lines dropped");
+                }
+                for (String line : lines) {
+                    if (line != STOP) {
+                        writeLine(line);
+                    }
+                }
+                drainWriteBuffer();
+            } catch (IOException e) {
+                System.out.println("the log file " + this.file.getPath() + " is not writable: " + e.toString());
+            }
+        }
+    }
+
+    private void writeLine(String line) throws IOException {
+        byte[] bytes = (line + LINE_SEPARATOR).getBytes();
+        if (this.maxFileSize > 0 && this.fileSize + this.writeBuffer.position() + bytes.length > this.maxFileSize
+                && this.fileSize + this.writeBuffer.position() > 0) {
+            drainWriteBuffer();
+            rotate();
+        }
+        if (bytes.length > this.writeBuffer.remaining()) {
+            drainWriteBuffer();
+            if (bytes.length > this.writeBuffer.capacity()) {
+                writeFully(ByteBuffer.wrap(bytes));
+                return;
+            }
+        }
+        this.writeBuffer.put(bytes);
+    }
+
+    private void drainWriteBuffer() throws IOException {
+        this.writeBuffer.flip();
+        writeFully(this.writeBuffer);
+        this.writeBuffer.clear();
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            this.fileSize += this.channel.write(buffer);
+        }
+    }
+
+    private void rotate() throws IOException {
+        closeChannel();
+        if (this.maxBackups > 0) {
+            String path = this.file.getPath();
+            new File(path + "." + this.maxBackups).delete();
+            for (int i = this.maxBackups - 1; i >= 1; i--) {
+                File backup = new File(path + "." + i);
+                if (backup.exists()) {
+                    backup.renameTo(new File(path + "." + (i + 1)));
+                }
+            }
+            this.file.renameTo(new File(path + ".1"));
+        }
+        if (this.file.exists()) {
+            RandomAccessFile raf = new RandomAccessFile(this.file, "rw");
+            try {
+                raf.setLength(0);
+            } finally {
+                raf.close();
+            }
+        }
+        openChannel();
+    }
+
+    private void openChannel() throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(this.file, "rw");
+        this.channel = raf.getChannel();
+        this.fileSize = this.channel.size();
+        this.channel.position(this.fileSize);
+    }
+
+    private void closeChannel() {
+        if (this.channel == null) {
+            return;
+        }
+        try {
+            this.channel.close();
+        } catch (IOException ignore) {
+        }
+        this.channel = null;
+    }
+}
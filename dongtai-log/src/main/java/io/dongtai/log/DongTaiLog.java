@@ -5,7 +5,6 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.TimeZone;
 import java.util.logging.Level;
-import java.util.regex.Matcher;
 
 /**
  * @author niuerzhuang@huoxian.cn
@@ -14,6 +13,8 @@ public class DongTaiLog {
     public static boolean enablePrintLog;
     private static final String logDir;
     private static String logPath = "";
+    private static volatile AsyncFileAppender appender;
+    private static final int LOG_BUFFER_SIZE = 8192;
     public static boolean enableColor;
     public static LogLevel LEVEL = getCurrentLevel();
 
@@ -26,6 +27,12 @@ public class DongTaiLog {
     private static final String TITLE = "[io.dongtai.iast.agent] ";
     private static final String TITLE_COLOR = "[" + colorStr("io.dongtai.iast.agent", BLUE) + "] ";
 
+    private static final SimpleDateFormat TIME_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    /**
+     * 缓存当前秒的时间字符串，同一秒内的日志不再重复格式化
+     */
+    private static volatile CachedTime cachedTime = new CachedTime(-1, "");
+
     static {
         if (System.console() != null && !System.getProperty("os.name").toLowerCase().contains("windows")) {
             enableColor = true;
@@ -33,6 +40,7 @@ public class DongTaiLog {
 
         enablePrintLog = !"false".equalsIgnoreCase(IastProperties.enablePrintLog());
         logDir = IastProperties.getLogDir();
+        TIME_FORMAT.setTimeZone(TimeZone.getTimeZone("Asia/Shanghai"));
     }
 
     public static void init(int id) {
@@ -56,12 +64,39 @@ public class DongTaiLog {
             if (!file.exists()) {
                 file.createNewFile();
             }
+            startAppender(file);
             logPath = path;
         } catch (Exception e) {
             System.out.println("init log file " + logPath + "failed: " + e.getMessage());
         }
     }
 
+    private static synchronized void startAppender(File file) throws IOException {
+        AsyncFileAppender newAppender = new AsyncFileAppender(file, LOG_BUFFER_SIZE,
+                IastProperties.getLogMaxSize(), IastProperties.getLogMaxBackups());
+        newAppender.start();
+        if (appender == null) {
+            Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    shutdown();
+                }
+            }, "DongTai-IAST-LogShutdown"));
+        } else {
+            appender.close();
+        }
+        appender = newAppender;
+    }
+
+    /**
+     * 将缓冲区中的日志写入文件并关闭日志文件
+     */
+    public static synchronized void shutdown() {
+        if (appender != null) {
+            appender.close();
+        }
+    }
+
     public static String getLogPath() {
         return logPath;
     }
@@ -248,45 +283,61 @@ public class DongTaiLog {
         error("", t);
     }
 
-    private static String format(String from, Object... arguments) {
-        if (from != null) {
-            String computed = from;
-            if (arguments != null && arguments.length != 0) {
-                for (Object argument : arguments) {
-                    computed = computed.replaceFirst("\\{\\}", argument == null ? "NULL" : Matcher.quoteReplacement(argument.toString()));
-                }
+    /**
+     * 依次用参数替换 {} 占位符，参数多余时忽略，不足时保留剩余占位符
+     */
+    static String format(String from, Object... arguments) {
+        if (from == null || arguments == null || arguments.length == 0) {
+            return from;
+        }
+        StringBuilder sb = new StringBuilder(from.length() + 16 * arguments.length);
+        int start = 0;
+        for (Object argument : arguments) {
+            int index = from.indexOf("{}", start);
+            if (index < 0) {
+                break;
             }
-            return computed;
+            sb.append(from, start, index).append(argument == null ? "NULL" : argument.toString());
+            start = index + 2;
         }
-        return null;
+        sb.append(from, start, from.length());
+        return sb.toString();
     }
 
     private static String getTime() {
-        SimpleDateFormat simpleDateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-        simpleDateFormat.setTimeZone(TimeZone.getTimeZone("Asia/Shanghai"));
-        return simpleDateFormat.format(new Date()) + " ";
+        long second = System.currentTimeMillis() / 1000;
+        CachedTime current = cachedTime;
+        if (current.second != second) {
+            String time;
+            synchronized (TIME_FORMAT) {
+                time = TIME_FORMAT.format(new Date(second * 1000)) + " ";
+            }
+            current = new CachedTime(second, time);
+            cachedTime = current;
+        }
+        return current.time;
     }
 
     private static void writeLogToFile(String msg, Throwable t) {
-        if (logPath.isEmpty()) {
+        AsyncFileAppender current = appender;
+        if (logPath.isEmpty() || current == null) {
             return;
         }
-        FileOutputStream o = null;
-        File file = new File(logPath);
-        try {
-            if (t != null) {
-                StringWriter stringWriter = new StringWriter();
-                t.printStackTrace(new PrintWriter(stringWriter));
-                msg = msg + stringWriter;
-            }
+        if (t != null) {
+            StringWriter stringWriter = new StringWriter();
+            t.printStackTrace(new PrintWriter(stringWriter));
+            msg = msg + stringWriter;
+        }
+        current.append(msg);
+    }
 
-            o = new FileOutputStream(file, true);
-            o.write(msg.getBytes());
-            o.write(System.getProperty("line.separator").getBytes());
-            o.flush();
-            o.close();
-        } catch (Exception e) {
-            System.out.println("the log file " + file.getPath() + " is not writable: " + e.toString());
+    private static class CachedTime {
+        private final long second;
+        private final String time;
+
+        private CachedTime(long second, String time) {
+            this.second = second;
+            this.time = time;
         }
     }
 }
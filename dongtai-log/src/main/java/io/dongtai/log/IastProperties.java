@@ -10,6 +10,8 @@ public class IastProperties {
     private static String dongtaiLog;
     private static String dongtaiLogDir;
     private static String dongtaiLogLevel;
+    private static Long dongtaiLogMaxSize;
+    private static Integer dongtaiLogMaxBackups;
 
     public static String enablePrintLog() {
         if (dongtaiLog == null) {
@@ -51,4 +53,35 @@ public class IastProperties {
         }
         return dongtaiLogLevel;
     }
+
+    /**
+     * 单个日志文件大小上限，单位 MB，默认 100
+     */
+    public static long getLogMaxSize() {
+        if (dongtaiLogMaxSize == null) {
+            dongtaiLogMaxSize = parseLong(System.getProperty("dongtai.log.max-size"), 100L) * 1024 * 1024;
+        }
+        return dongtaiLogMaxSize;
+    }
+
+    /**
+     * 滚动后保留的历史日志文件数，默认 3
+     */
+    public static int getLogMaxBackups() {
+        if (dongtaiLogMaxBackups == null) {
+            dongtaiLogMaxBackups = (int) parseLong(System.getProperty("dongtai.log.max-backups"), 3L);
+        }
+        return dongtaiLogMaxBackups;
+    }
+
+    private static long parseLong(String value, long defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
 }
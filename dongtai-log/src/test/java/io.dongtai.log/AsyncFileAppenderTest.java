@@ -0,0 +1,75 @@
+package io.dongtai.log;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.*;
+
+public class AsyncFileAppenderTest {
+    private final static String LS = System.getProperty("line.separator");
+
+    @Test
+    public void appendTest() throws IOException {
+        File file = File.createTempFile("dongtai-log", ".log");
+        try {
+            AsyncFileAppender appender = new AsyncFileAppender(file, 16, 0, 0);
+            appender.start();
+            for (int i = 0; i < 10; i++) {
+                appender.append("line " + i);
+            }
+            appender.close();
+            StringBuilder expected = new StringBuilder();
+            for (int i = 0; i < 10; i++) {
+                expected.append("line ").append(i).append(LS);
+            }
+            Assert.assertEquals(expected.toString(), read(file));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void rotateTest() throws IOException {
+        File file = File.createTempFile("dongtai-log", ".log");
+        File backup1 = new File(file.getPath() + ".1");
+        File backup2 = new File(file.getPath() + ".2");
+        try {
+            AsyncFileAppender appender = new AsyncFileAppender(file, 16, 6, 1);
+            appender.start();
+            appender.append("aaaa");
+            appender.append("bbbb");
+            appender.append("cccc");
+            appender.close();
+            Assert.assertEquals("cccc" + LS, read(file));
+            Assert.assertEquals("bbbb" + LS, read(backup1));
+            Assert.assertFalse(backup2.exists());
+        } finally {
+            file.delete();
+            backup1.delete();
+            backup2.delete();
+        }
+    }
+
+    @Test
+    public void formatTest() {
+        Assert.assertEquals("foo bar baz", DongTaiLog.format("foo {} {}", "bar", "baz"));
+        Assert.assertEquals("foo NULL {}", DongTaiLog.format("foo {} {}", (Object) null));
+        Assert.assertEquals("foo $1 \\", DongTaiLog.format("foo {} {}", "$1", "\\", "extra"));
+        Assert.assertEquals("foo {}", DongTaiLog.format("foo {}"));
+    }
+
+    private static String read(File file) throws IOException {
+        InputStream is = new FileInputStream(file);
+        try {
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int n;
+            while ((n = is.read(buffer)) != -1) {
+                os.write(buffer, 0, n);
+            }
+            return os.toString();
+        } finally {
+            is.close();
+        }
+    }
+}
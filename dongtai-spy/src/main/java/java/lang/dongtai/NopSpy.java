@@ -281,10 +281,22 @@ public class NopSpy implements SpyDispatcher {
         return false;
     }
 
+    @Override
+    public boolean isCollectAllowed(boolean isEnterEntry) {
+        return false;
+    }
+
     @Override
     public boolean collectMethod(Object instance, Object[] parameters, Object retObject, String methodMatcher,
                                  String className, String matchedClassName, String methodName, String signature,
                                  boolean isStatic) {
         return false;
     }
+
+    @Override
+    public boolean collectMethod(Object instance, Object[] parameters, Object retObject, int policyNodeId,
+                                 String className, String matchedClassName, String methodName, String signature,
+                                 boolean isStatic) {
+        return false;
+    }
 }
@@ -164,6 +164,14 @@ public interface SpyDispatcher {
 
     boolean isNotReplayRequest();
 
+    /**
+     * cheap, non-allocating check before the woven code builds the argument array and boxes the return value.
+     *
+     * @param isEnterEntry true if the hooked method is an entry point (http/rpc); else false
+     * @return true if the method call should be collected; else false
+     */
+    boolean isCollectAllowed(boolean isEnterEntry);
+
     /**
      * mark for enter Source Entry Point
      *
@@ -186,4 +194,15 @@ public interface SpyDispatcher {
     public boolean collectMethod(Object instance, Object[] parameters, Object retObject, String methodMatcher,
                                  String className, String matchedClassName, String methodName, String signature,
                                  boolean isStatic);
+
+    /**
+     * collect hooked method by policy node id, which is assigned when the policy is built and woven into bytecode.
+     * avoids resolving the policy node by methodMatcher string on every call.
+     *
+     * @param policyNodeId policy node id
+     * @return true if the method is collected; else false
+     */
+    boolean collectMethod(Object instance, Object[] parameters, Object retObject, int policyNodeId,
+                          String className, String matchedClassName, String methodName, String signature,
+                          boolean isStatic);
 }